@@ -0,0 +1,38 @@
+package anz.api.controllers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RestController;
+
+import anz.api.controllers.dtos.CacheRegionStatisticsDto;
+import anz.core.application.CacheStatistics;
+import anz.core.domain.models.CacheRegionStatistics;
+
+@RestController
+class CacheController {
+    private final CacheStatistics cacheStatistics;
+
+    @Autowired(required = true)
+    CacheController(final CacheStatistics cacheStatistics) {
+        this.cacheStatistics = cacheStatistics;
+    }
+
+    @RequestMapping(value = "/cache/statistics", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<CacheRegionStatisticsDto> getStatistics() {
+        final List<CacheRegionStatisticsDto> result = new ArrayList<>();
+        for (final CacheRegionStatistics region : cacheStatistics.getRegions()) {
+            result.add(new CacheRegionStatisticsDto(region));
+        }
+        return result;
+    }
+
+    // starts the counters over, the cached entries stay
+    @RequestMapping(value = "/cache/statistics", method = RequestMethod.DELETE, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    void clearStatistics() {
+        cacheStatistics.clear();
+    }
+}
\ No newline at end of file
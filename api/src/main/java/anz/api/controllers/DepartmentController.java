@@ -2,38 +2,67 @@ package anz.api.controllers;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+
+import anz.api.controllers.dtos.CommonAncestorDto;
 import anz.api.controllers.dtos.DepartmentDto;
+import anz.api.controllers.dtos.DepartmentImportDto;
+import anz.api.controllers.dtos.DepartmentNodeDto;
+import anz.api.controllers.dtos.DepartmentRollupDto;
 import anz.api.controllers.dtos.EmployeeDto;
+import anz.api.controllers.dtos.SparseFields;
 import anz.api.controllers.exceptions.BadRequestException;
 import anz.api.controllers.exceptions.NotAcceptableException;
 import anz.api.controllers.exceptions.NotFoundException;
 import anz.api.controllers.exceptions.PreconditionFailedException;
 import anz.core.application.DepartmentService;
+import anz.core.application.EncodedEntities;
 import anz.core.application.shared.InvalidEntityException;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentImport;
+import anz.core.domain.models.DepartmentNode;
+import anz.core.domain.models.DepartmentRollup;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EncodedEntity;
 
 @RestController
 class DepartmentController {
+    private static final String ROW = "department";
+
+    private static final String TABLE = "departments";
+
     private final DepartmentService departmentService;
 
+    private final EncodedEntities encodedEntities;
+
     @Autowired(required = true)
-    DepartmentController(final DepartmentService departmentService) {
+    DepartmentController(final DepartmentService departmentService, final EncodedEntities encodedEntities) {
         this.departmentService = departmentService;
+        this.encodedEntities = encodedEntities;
     }
 
-    @RequestMapping(value = "/department", method = RequestMethod.POST, consumes = "application/json;charset=UTF-8", produces = "application/json;charset=UTF-8")
+    @RequestMapping(value = "/department", method = RequestMethod.POST, consumes = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     DepartmentDto create(@RequestBody final DepartmentDto departmentDto) {
         if (null != departmentDto.getId()) {
             throw new BadRequestException("id cannot be set while creating deparment");
@@ -52,32 +81,176 @@ class DepartmentController {
         }
     }
 
-    @RequestMapping(value = "/departments", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
-    List<DepartmentDto> list() {
-        final List<Department> departments = departmentService.getAll();
-        return toDepartmentDtoList(departments);
+    // a whole tree in one request, rows may come before their parents and nothing is created unless every row is valid
+    @RequestMapping(value = "/departments/bulk", method = RequestMethod.POST, consumes = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<DepartmentDto> createTree(@RequestBody final List<DepartmentImportDto> departmentImportDtos) {
+        try {
+            final List<DepartmentImport> imports = new ArrayList<>();
+            for (final DepartmentImportDto departmentImportDto : departmentImportDtos) {
+                if (null != departmentImportDto.getId()) {
+                    throw new BadRequestException("id cannot be set while creating deparment");
+                }
+                final Department.Builder builder = Department.Builder.newInstance(departmentImportDto.getName(), departmentImportDto.getOpenPositions());
+                builder.location(departmentImportDto.getLocation()).managerId(departmentImportDto.getManagerId())
+                       .parentDepartment(departmentImportDto.getParentDepartmentId());
+                imports.add(new DepartmentImport(departmentImportDto.getRef(), builder.build(), departmentImportDto.getParentRef(),
+                                                 departmentImportDto.getParentName()));
+            }
+            return toDepartmentDtoList(departmentService.createTree(imports));
+        } catch (final NullPointerException | IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        } catch (final InvalidEntityException ex) {
+            throw new NotAcceptableException(ex.getMessage(), ex);
+        } catch (final EntityExistsException ex) {
+            throw new NotAcceptableException(ex.getMessage(), ex);
+        } catch (final EntityNotFoundException ex) {
+            throw new PreconditionFailedException(ex.getMessage(), ex);
+        }
     }
 
-    @RequestMapping(value = "/department/{id}", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
-    DepartmentDto getById(@PathVariable(value = "id") final long id) {
-        final Department department = departmentService.getById(id);
-        return toDepartmentDto(department);
+    @RequestMapping(value = "/departments", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<List<DepartmentDto>> list(@RequestParam(value = "limit", required = false) final Integer limit,
+                                             @RequestParam(value = "after", required = false) final Long after,
+                                             @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        try {
+            final List<String> fieldList = SparseFields.parse(fields, DepartmentDto.FIELDS);
+            if (request.checkNotModified(ETags.ofTable(TABLE, departmentService.getTableVersion(), request))) {
+                return null;
+            }
+            if (!Pagination.isRequested(limit, after)) {
+                return ResponseEntity.ok(null == fieldList ? toDepartmentDtoList(departmentService.getAll()) : toSparseDepartmentDtoList(departmentService.getAll(fieldList)));
+            }
+            final int pageLimit = Pagination.limitOf(limit);
+            final List<DepartmentDto> result = null == fieldList ? toDepartmentDtoList(departmentService.getPage(after, pageLimit))
+                                                                 : toSparseDepartmentDtoList(departmentService.getPage(fieldList, after, pageLimit));
+            return Pagination.page(result, pageLimit, result.isEmpty() ? null : result.get(result.size() - 1).getId());
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    // one IN query for the whole id list, rows come back in the order of the ids and ids without a row are listed in a header
+    @RequestMapping(value = "/departments", params = "ids", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<List<DepartmentDto>> getByIds(@RequestParam(value = "ids") final List<Long> ids,
+                                                 @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        try {
+            final List<String> fieldList = SparseFields.parse(fields, DepartmentDto.FIELDS);
+            if (request.checkNotModified(ETags.ofTable(TABLE, departmentService.getTableVersion(), request))) {
+                return null;
+            }
+            final List<DepartmentDto> result = null == fieldList ? toDepartmentDtoList(departmentService.getByIds(ids))
+                                                                 : toSparseDepartmentDtoList(departmentService.getByIds(fieldList, ids));
+            return MultiGet.of(ids, result, DepartmentDto::getId);
+        } catch (final NullPointerException | IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    @RequestMapping(value = "/departments", params = "stream=true", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        final FilterProvider filters;
+        try {
+            filters = SparseFields.filterOf(SparseFields.parse(fields, DepartmentDto.FIELDS));
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        if (request.checkNotModified(ETags.ofTable(TABLE, departmentService.getTableVersion(), request))) {
+            return null;
+        }
+        final MediaType mediaType = MediaTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.ok().contentType(mediaType).body(body -> {
+            final JsonArrayWriter writer = JsonArrayWriter.open(body, mediaType, filters);
+            departmentService.forEach(department -> writer.write(new DepartmentDto(department)));
+            writer.finish();
+        });
+    }
+
+    @RequestMapping(value = "/department/{id}", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<byte[]> getById(@PathVariable(value = "id") final long id, @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields,
+                                   final WebRequest request) {
+        final List<String> fieldList;
+        try {
+            fieldList = SparseFields.parse(fields, DepartmentDto.FIELDS);
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final MediaType mediaType = MediaTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        final String variant = EncodedRows.variantOf(mediaType, fieldList);
+        EncodedEntity encoded = encodedEntities.get(Department.class, id, variant);
+        // a revalidation of a row that is not cached reads the version column only, the row is loaded once it is known to have changed
+        if (null == encoded && ETags.isConditional(request)) {
+            final Long version = departmentService.getVersionById(id);
+            if (null != version && request.checkNotModified(ETags.ofRow(ROW, id, version, request))) {
+                return null;
+            }
+        }
+        if (null == encoded) {
+            encoded = encodedEntities.get(Department.class, id, variant, () -> {
+                final Department department = departmentService.getById(id);
+                return null == department ? null : EncodedRows.encode(department.getVersion(), new DepartmentDto(department), mediaType, fieldList);
+            });
+        }
+        if (null == encoded || request.checkNotModified(ETags.ofRow(ROW, id, encoded.getVersion(), request))) {
+            return null;
+        }
+        return EncodedRows.of(encoded, mediaType);
     }
 
-    @RequestMapping(value = "/department/{id}/parent", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
+    @RequestMapping(value = "/department/{id}/parent", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     DepartmentDto getParentOf(@PathVariable(value = "id") final long id) {
         final Department department = departmentService.getParentById(id);
         return toDepartmentDto(department);
     }
 
     // only the direct children will be retrieved
-    @RequestMapping(value = "/department/{id}/children", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
+    @RequestMapping(value = "/department/{id}/children", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     List<DepartmentDto> getChildrenOf(@PathVariable(value = "id") final long id) {
         final List<Department> departments = departmentService.getSubDepartmentsById(id);
         return toDepartmentDtoList(departments);
     }
 
-    @RequestMapping(value = "/department/{id}/employees", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
+    // the whole subtree in breadth-first order, optionally cut off below maxDepth levels
+    @RequestMapping(value = "/department/{id}/descendants", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<DepartmentNodeDto> getDescendantsOf(@PathVariable(value = "id") final long id, @RequestParam(value = "maxDepth", required = false) final Integer maxDepth) {
+        try {
+            final List<DepartmentNode> departmentNodes = departmentService.getDescendants(id, null == maxDepth ? Integer.MAX_VALUE : maxDepth);
+            return toDepartmentNodeDtoList(departmentNodes);
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    // the parent first and the root last
+    @RequestMapping(value = "/department/{id}/ancestors", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<DepartmentNodeDto> getAncestorsOf(@PathVariable(value = "id") final long id) {
+        return toDepartmentNodeDtoList(departmentService.getAncestors(id));
+    }
+
+    @RequestMapping(value = "/department/{id}/ancestors/{ancestorId}", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    DepartmentNodeDto getAncestorOf(@PathVariable(value = "id") final long id, @PathVariable(value = "ancestorId") final long ancestorId) {
+        final DepartmentNode departmentNode = departmentService.getAncestor(id, ancestorId);
+        if (null == departmentNode) {
+            throw new NotFoundException("Department [" + id + "] is not under department [" + ancestorId + "]");
+        }
+        return new DepartmentNodeDto(departmentNode);
+    }
+
+    // the lowest department that both a and b are, or sit under
+    @RequestMapping(value = "/department/lca", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    CommonAncestorDto getLowestCommonAncestor(@RequestParam(value = "a") final long id, @RequestParam(value = "b") final long otherId) {
+        try {
+            final CommonAncestor commonAncestor = departmentService.getLowestCommonAncestor(id, otherId);
+            if (null == commonAncestor) {
+                throw new NotFoundException("Departments [" + id + "] and [" + otherId + "] have no common ancestor");
+            }
+            return new CommonAncestorDto(commonAncestor);
+        } catch (final EntityNotFoundException ex) {
+            throw new NotFoundException(ex.getMessage(), ex);
+        }
+    }
+
+    @RequestMapping(value = "/department/{id}/employees", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     List<EmployeeDto> getEmployeesOf(@PathVariable(value = "id") final long id) {
         final List<EmployeeDto> result = new ArrayList<>();
         final List<Employee> employees = departmentService.getEmployees(id);
@@ -87,7 +260,18 @@ class DepartmentController {
         return result;
     }
 
-    @RequestMapping(value = "/department", method = RequestMethod.PUT, consumes = "application/json;charset=UTF-8", produces = "application/json;charset=UTF-8")
+    // headcount and open positions summed over the department and its whole subtree
+    @RequestMapping(value = "/department/{id}/rollup", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    DepartmentRollupDto getRollupOf(@PathVariable(value = "id") final long id) {
+        final DepartmentRollup departmentRollup = departmentService.getRollup(id);
+        if (null == departmentRollup) {
+            throw new NotFoundException("No such department can be found, department id: [" + id + "]");
+        }
+        return new DepartmentRollupDto(id, departmentRollup);
+    }
+
+    @RequestMapping(value = "/department", method = RequestMethod.PUT, consumes = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     DepartmentDto update(@RequestBody final DepartmentDto departmentDto) {
         final Long id = departmentDto.getId();
         if (null == id) {
@@ -107,10 +291,34 @@ class DepartmentController {
             throw new NotAcceptableException(ex.getMessage(), ex);
         } catch (final EntityNotFoundException ex) {
             throw new PreconditionFailedException(ex.getMessage(), ex);
+        } catch (final OptimisticLockingFailureException ex) {
+            throw new PreconditionFailedException("Department with id [" + id + "] was changed by another request", ex);
         }
     }
 
-    @RequestMapping(value = "/department/{id}", method = RequestMethod.DELETE, produces = "application/json;charset=UTF-8")
+    // a merge patch of the fields that change, merged into the department as read, only the columns that change are written
+    @RequestMapping(value = "/department/{id}", method = RequestMethod.PATCH, consumes = { MediaTypes.MERGE_PATCH, MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    DepartmentDto patch(@PathVariable(value = "id") final long id, @RequestBody final Map<String, Object> patch) {
+        final Department department;
+        try {
+            department = departmentService.patch(id, MergePatches.departmentPatchOf(patch));
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        } catch (final InvalidEntityException ex) {
+            throw new NotAcceptableException(ex.getMessage(), ex);
+        } catch (final EntityNotFoundException ex) {
+            throw new PreconditionFailedException(ex.getMessage(), ex);
+        } catch (final OptimisticLockingFailureException ex) {
+            throw new PreconditionFailedException("Department with id [" + id + "] was changed by another request", ex);
+        }
+        if (null == department) {
+            throw new NotFoundException("No such department can be found, department id: [" + id + "]");
+        }
+        return new DepartmentDto(department);
+    }
+
+    @RequestMapping(value = "/department/{id}", method = RequestMethod.DELETE, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     void removeById(@PathVariable(value = "id") final long id) {
         try {
             departmentService.removeById(id);
@@ -125,6 +333,14 @@ class DepartmentController {
         return null == department ? null : new DepartmentDto(department);
     }
 
+    private List<DepartmentDto> toSparseDepartmentDtoList(final List<Map<String, Object>> rows) {
+        final List<DepartmentDto> result = new ArrayList<>();
+        for (final Map<String, Object> row : rows) {
+            result.add(new DepartmentDto(row));
+        }
+        return result;
+    }
+
     private List<DepartmentDto> toDepartmentDtoList(final List<Department> departments) {
         final List<DepartmentDto> result = new ArrayList<>();
         for (final Department department : departments) {
@@ -132,4 +348,12 @@ class DepartmentController {
         }
         return result;
     }
+
+    private List<DepartmentNodeDto> toDepartmentNodeDtoList(final List<DepartmentNode> departmentNodes) {
+        final List<DepartmentNodeDto> result = new ArrayList<>();
+        for (final DepartmentNode departmentNode : departmentNodes) {
+            result.add(new DepartmentNodeDto(departmentNode));
+        }
+        return result;
+    }
 }
\ No newline at end of file
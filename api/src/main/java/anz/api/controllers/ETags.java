@@ -0,0 +1,49 @@
+package anz.api.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+// strong validators for conditional GETs, a single row is tagged with its id and @Version and a collection with the version
+// of its table. the parameters and the negotiated format are part of both because they change the representation
+final class ETags {
+    private ETags() {
+    }
+
+    static boolean isConditional(final WebRequest request) {
+        return null != request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    }
+
+    static String ofRow(final String type, final long id, final long version, final WebRequest request) {
+        return type + "-" + id + "-" + version + parametersOf(request) + formatOf(request);
+    }
+
+    static String ofTable(final String type, final String tableVersion, final WebRequest request) {
+        return type + "-" + tableVersion + parametersOf(request) + formatOf(request);
+    }
+
+    // JSON keeps the bare tag
+    private static String formatOf(final WebRequest request) {
+        final MediaType mediaType = MediaTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return MediaTypes.isJson(mediaType) ? "" : "-" + mediaType.getSubtype();
+    }
+
+    // sorted so the order they were given in does not matter, hashed so the tag stays short whatever was asked for
+    private static String parametersOf(final WebRequest request) {
+        final Map<String, String[]> parameters = request.getParameterMap();
+        if (null == parameters || parameters.isEmpty()) {
+            return "";
+        }
+        final StringBuilder builder = new StringBuilder();
+        for (final Map.Entry<String, String[]> parameter : new TreeMap<>(parameters).entrySet()) {
+            builder.append(parameter.getKey()).append('=').append(Arrays.toString(parameter.getValue())).append('&');
+        }
+        return "-" + DigestUtils.md5DigestAsHex(builder.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
\ No newline at end of file
@@ -1,47 +1,73 @@
 package anz.api.controllers;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+
+import anz.api.controllers.dtos.CommonAncestorDto;
 import anz.api.controllers.dtos.DepartmentDto;
 import anz.api.controllers.dtos.EmployeeDto;
+import anz.api.controllers.dtos.ImportResultDto;
+import anz.api.controllers.dtos.SparseFields;
 import anz.api.controllers.exceptions.BadRequestException;
 import anz.api.controllers.exceptions.NotAcceptableException;
 import anz.api.controllers.exceptions.NotFoundException;
 import anz.api.controllers.exceptions.PreconditionFailedException;
 import anz.core.application.EmployeeService;
+import anz.core.application.EncodedEntities;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EncodedEntity;
+import anz.core.domain.models.ImportResult;
 
 @RestController
 class EmployeeController {
+    private static final String ROW = "employee";
+
+    private static final String TABLE = "employees";
+
     private final EmployeeService employeeService;
 
+    private final EncodedEntities encodedEntities;
+
     @Autowired(required = true)
-    EmployeeController(final EmployeeService employeeService) {
+    EmployeeController(final EmployeeService employeeService, final EncodedEntities encodedEntities) {
         this.employeeService = employeeService;
+        this.encodedEntities = encodedEntities;
     }
 
-    @RequestMapping(value = "/employee", method = RequestMethod.POST, consumes = "application/json;charset=UTF-8", produces = "application/json;charset=UTF-8")
+    @RequestMapping(value = "/employee", method = RequestMethod.POST, consumes = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     EmployeeDto create(@RequestBody final EmployeeDto employeeDto) {
         if (null != employeeDto.getId()) {
             throw new BadRequestException("id cannot be set while creating employee");
         }
         try {
-            final Employee.Builder builder = Employee.Builder.newInstance(employeeDto.getFirstname(), employeeDto.getLastname(), employeeDto.getLdapUsername(),
-                                                                          employeeDto.getTitle(), employeeDto.getGrade());
-            builder.birthdate(employeeDto.getBirthdate()).departmentId(employeeDto.getDepartmentId()).gender(employeeDto.getGender());
-            final Employee employee = employeeService.create(builder.build());
+            final Employee employee = employeeService.create(toEmployee(employeeDto));
             return new EmployeeDto(employee);
         } catch (final NullPointerException | IllegalArgumentException ex) {
             throw new BadRequestException(ex.getMessage(), ex);
@@ -52,23 +78,139 @@ class EmployeeController {
         }
     }
 
-    @RequestMapping(value = "/employees", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
-    List<EmployeeDto> list() {
-        final List<EmployeeDto> result = new ArrayList<>();
-        final List<Employee> employees = employeeService.getAll();
-        for (final Employee employee : employees) {
-            result.add(new EmployeeDto(employee));
+    // a JSON array or one employee per line, every row gets an entry in the report in request order and a rejected row does not
+    // stop the others from being created
+    @RequestMapping(value = "/employees/bulk", method = RequestMethod.POST, consumes = { "application/json", "application/x-ndjson", MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<ImportResultDto> createAll(final InputStream body, @RequestHeader(value = HttpHeaders.CONTENT_TYPE, required = false) final String contentType) {
+        final List<EmployeeDto> employeeDtos;
+        try {
+            employeeDtos = EmployeeReader.readAll(body, null == contentType ? null : MediaType.parseMediaType(contentType));
+        } catch (final IOException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final ImportResult[] results = new ImportResult[employeeDtos.size()];
+        final List<Integer> indexes = new ArrayList<>();
+        final List<Employee> employees = new ArrayList<>();
+        for (int index = 0; index < employeeDtos.size(); index++) {
+            final EmployeeDto employeeDto = employeeDtos.get(index);
+            try {
+                Validate.notNull(employeeDto, "employee cannot be null");
+                Validate.isTrue(null == employeeDto.getId(), "id cannot be set while creating employee");
+                employees.add(toEmployee(employeeDto));
+                indexes.add(index);
+            } catch (final NullPointerException | IllegalArgumentException ex) {
+                results[index] = ImportResult.rejected(ImportResult.Status.INVALID, ex.getMessage());
+            }
+        }
+        try {
+            final List<ImportResult> created = employeeService.createAll(employees);
+            for (int position = 0; position < created.size(); position++) {
+                results[indexes.get(position)] = created.get(position);
+            }
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        } catch (final EntityExistsException ex) {
+            throw new NotAcceptableException(ex.getMessage(), ex);
+        }
+        final List<ImportResultDto> result = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            result.add(new ImportResultDto(index, results[index]));
         }
         return result;
     }
 
-    @RequestMapping(value = "/employee/{id}", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
-    EmployeeDto getById(@PathVariable(value = "id") final long id) {
-        final Employee employee = employeeService.getById(id);
-        return null == employee ? null : new EmployeeDto(employee);
+    // the whole table unless limit or after is given, then one page in id order with the next cursor in a header
+    @RequestMapping(value = "/employees", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<List<EmployeeDto>> list(@RequestParam(value = "limit", required = false) final Integer limit,
+                                           @RequestParam(value = "after", required = false) final Long after,
+                                           @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        try {
+            final List<String> fieldList = SparseFields.parse(fields, EmployeeDto.FIELDS);
+            if (request.checkNotModified(ETags.ofTable(TABLE, employeeService.getTableVersion(), request))) {
+                return null;
+            }
+            if (!Pagination.isRequested(limit, after)) {
+                return ResponseEntity.ok(null == fieldList ? toEmployeeDtoList(employeeService.getAll()) : toSparseEmployeeDtoList(employeeService.getAll(fieldList)));
+            }
+            final int pageLimit = Pagination.limitOf(limit);
+            final List<EmployeeDto> result = null == fieldList ? toEmployeeDtoList(employeeService.getPage(after, pageLimit))
+                                                               : toSparseEmployeeDtoList(employeeService.getPage(fieldList, after, pageLimit));
+            return Pagination.page(result, pageLimit, result.isEmpty() ? null : result.get(result.size() - 1).getId());
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
     }
 
-    @RequestMapping(value = "/employee/{id}/department", method = RequestMethod.GET, produces = "application/json;charset=UTF-8")
+    // one IN query for the whole id list, rows come back in the order of the ids and ids without a row are listed in a header
+    @RequestMapping(value = "/employees", params = "ids", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<List<EmployeeDto>> getByIds(@RequestParam(value = "ids") final List<Long> ids,
+                                               @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        try {
+            final List<String> fieldList = SparseFields.parse(fields, EmployeeDto.FIELDS);
+            if (request.checkNotModified(ETags.ofTable(TABLE, employeeService.getTableVersion(), request))) {
+                return null;
+            }
+            final List<EmployeeDto> result = null == fieldList ? toEmployeeDtoList(employeeService.getByIds(ids))
+                                                               : toSparseEmployeeDtoList(employeeService.getByIds(fieldList, ids));
+            return MultiGet.of(ids, result, EmployeeDto::getId);
+        } catch (final NullPointerException | IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+
+    // the whole table written row by row as it is read from the database, for consumers that need every employee
+    @RequestMapping(value = "/employees", params = "stream=true", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<StreamingResponseBody> export(@RequestParam(value = SparseFields.PARAMETER, required = false) final String fields, final WebRequest request) {
+        final FilterProvider filters;
+        try {
+            filters = SparseFields.filterOf(SparseFields.parse(fields, EmployeeDto.FIELDS));
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        if (request.checkNotModified(ETags.ofTable(TABLE, employeeService.getTableVersion(), request))) {
+            return null;
+        }
+        final MediaType mediaType = MediaTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        return ResponseEntity.ok().contentType(mediaType).body(body -> {
+            final JsonArrayWriter writer = JsonArrayWriter.open(body, mediaType, filters);
+            employeeService.forEach(employee -> writer.write(new EmployeeDto(employee)));
+            writer.finish();
+        });
+    }
+
+    @RequestMapping(value = "/employee/{id}", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    ResponseEntity<byte[]> getById(@PathVariable(value = "id") final long id, @RequestParam(value = SparseFields.PARAMETER, required = false) final String fields,
+                                   final WebRequest request) {
+        final List<String> fieldList;
+        try {
+            fieldList = SparseFields.parse(fields, EmployeeDto.FIELDS);
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+        final MediaType mediaType = MediaTypes.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        final String variant = EncodedRows.variantOf(mediaType, fieldList);
+        EncodedEntity encoded = encodedEntities.get(Employee.class, id, variant);
+        // a revalidation of a row that is not cached reads the version column only, the row is loaded once it is known to have changed
+        if (null == encoded && ETags.isConditional(request)) {
+            final Long version = employeeService.getVersionById(id);
+            if (null != version && request.checkNotModified(ETags.ofRow(ROW, id, version, request))) {
+                return null;
+            }
+        }
+        if (null == encoded) {
+            encoded = encodedEntities.get(Employee.class, id, variant, () -> {
+                final Employee employee = employeeService.getById(id);
+                return null == employee ? null : EncodedRows.encode(employee.getVersion(), new EmployeeDto(employee), mediaType, fieldList);
+            });
+        }
+        if (null == encoded || request.checkNotModified(ETags.ofRow(ROW, id, encoded.getVersion(), request))) {
+            return null;
+        }
+        return EncodedRows.of(encoded, mediaType);
+    }
+
+    @RequestMapping(value = "/employee/{id}/department", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     DepartmentDto getDepartmentOf(@PathVariable(value = "id") final long id) {
         try {
             final Department department = employeeService.getDepartmentOf(id);
@@ -78,7 +220,51 @@ class EmployeeController {
         }
     }
 
-    @RequestMapping(value = "/employee/{id}", method = RequestMethod.DELETE, produces = "application/json;charset=UTF-8")
+    // manager of the employee's department first, then the manager of its parent department and so on up to the top
+    @RequestMapping(value = "/employee/{id}/reporting-chain", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    List<EmployeeDto> getReportingChainOf(@PathVariable(value = "id") final long id) {
+        try {
+            return toEmployeeDtoList(employeeService.getReportingChain(id));
+        } catch (final EntityNotFoundException ex) {
+            throw new NotFoundException(ex.getMessage(), ex);
+        }
+    }
+
+    // the lowest department that the departments of employees a and b both are, or sit under
+    @RequestMapping(value = "/employee/lca", method = RequestMethod.GET, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    CommonAncestorDto getLowestCommonDepartment(@RequestParam(value = "a") final long id, @RequestParam(value = "b") final long otherId) {
+        try {
+            final CommonAncestor commonAncestor = employeeService.getLowestCommonDepartment(id, otherId);
+            if (null == commonAncestor) {
+                throw new NotFoundException("Employees [" + id + "] and [" + otherId + "] have no common department");
+            }
+            return new CommonAncestorDto(commonAncestor);
+        } catch (final EntityNotFoundException ex) {
+            throw new NotFoundException(ex.getMessage(), ex);
+        }
+    }
+
+    // a merge patch of the fields that change, merged into the employee as read, only the columns that change are written
+    @RequestMapping(value = "/employee/{id}", method = RequestMethod.PATCH, consumes = { MediaTypes.MERGE_PATCH, MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR },
+                    produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
+    EmployeeDto patch(@PathVariable(value = "id") final long id, @RequestBody final Map<String, Object> patch) {
+        final Employee employee;
+        try {
+            employee = employeeService.patch(id, MergePatches.employeePatchOf(patch));
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        } catch (final EntityNotFoundException ex) {
+            throw new PreconditionFailedException(ex.getMessage(), ex);
+        } catch (final OptimisticLockingFailureException ex) {
+            throw new PreconditionFailedException("Employee with id [" + id + "] was changed by another request", ex);
+        }
+        if (null == employee) {
+            throw new NotFoundException("No such employee can be found, employee id: [" + id + "]");
+        }
+        return new EmployeeDto(employee);
+    }
+
+    @RequestMapping(value = "/employee/{id}", method = RequestMethod.DELETE, produces = { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR })
     void removeById(@PathVariable(value = "id") final long id) {
         try {
             employeeService.removeById(id);
@@ -88,4 +274,27 @@ class EmployeeController {
             throw new PreconditionFailedException(ex.getMessage(), ex);
         }
     }
+
+    private Employee toEmployee(final EmployeeDto employeeDto) {
+        final Employee.Builder builder = Employee.Builder.newInstance(employeeDto.getFirstname(), employeeDto.getLastname(), employeeDto.getLdapUsername(),
+                                                                      employeeDto.getTitle(), employeeDto.getGrade());
+        builder.birthdate(employeeDto.getBirthdate()).departmentId(employeeDto.getDepartmentId()).gender(employeeDto.getGender());
+        return builder.build();
+    }
+
+    private List<EmployeeDto> toSparseEmployeeDtoList(final List<Map<String, Object>> rows) {
+        final List<EmployeeDto> result = new ArrayList<>();
+        for (final Map<String, Object> row : rows) {
+            result.add(new EmployeeDto(row));
+        }
+        return result;
+    }
+
+    private List<EmployeeDto> toEmployeeDtoList(final List<Employee> employees) {
+        final List<EmployeeDto> result = new ArrayList<>();
+        for (final Employee employee : employees) {
+            result.add(new EmployeeDto(employee));
+        }
+        return result;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,29 @@
+package anz.api.controllers;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+
+import anz.api.controllers.dtos.EmployeeDto;
+
+// reads either one array or a sequence of objects, newline delimited in JSON and back to back in Smile or CBOR.
+// jackson unwraps a root level array into its elements
+final class EmployeeReader {
+    private EmployeeReader() {
+    }
+
+    static List<EmployeeDto> readAll(final InputStream body, final MediaType contentType) throws IOException {
+        final List<EmployeeDto> result = new ArrayList<>();
+        try (MappingIterator<EmployeeDto> iterator = MediaTypes.mapperOf(contentType).readerFor(EmployeeDto.class).readValues(body)) {
+            while (iterator.hasNextValue()) {
+                result.add(iterator.nextValue());
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package anz.api.controllers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+
+import anz.api.controllers.dtos.SparseFields;
+import anz.core.domain.models.EncodedEntity;
+
+// single rows are encoded once per version, format and fields, and the bytes are sent as they are until the row changes
+final class EncodedRows {
+    private EncodedRows() {
+    }
+
+    // what besides the row decides the bytes
+    static String variantOf(final MediaType mediaType, final List<String> fields) {
+        return mediaType.getSubtype() + (null == fields ? "" : ";" + String.join(",", fields));
+    }
+
+    static EncodedEntity encode(final long version, final Object dto, final MediaType mediaType, final List<String> fields) {
+        try {
+            return new EncodedEntity(version, MediaTypes.mapperOf(mediaType).writer(SparseFields.filterOf(fields)).writeValueAsBytes(dto));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    static ResponseEntity<byte[]> of(final EncodedEntity encoded, final MediaType mediaType) {
+        return ResponseEntity.ok().contentType(mediaType).body(encoded.getBytes());
+    }
+}
@@ -0,0 +1,12 @@
+package anz.api.controllers;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
+
+// the Smile and CBOR counterparts of spring's JSON converter, spring only ships its own from version 5 on.
+// being jackson converters, the sparse fieldset advice applies to them as it does to JSON
+class JacksonBinaryHttpMessageConverter extends AbstractJackson2HttpMessageConverter {
+    JacksonBinaryHttpMessageConverter(final String mediaType) {
+        super(MediaTypes.mapperOf(MediaType.parseMediaType(mediaType)), MediaType.parseMediaType(mediaType));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,48 @@
+package anz.api.controllers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+
+// writes an array to the response element by element, so an export never holds more than the current row.
+// JSON, Smile and CBOR alike, jackson drives all three through the same generator
+final class JsonArrayWriter {
+    private final JsonGenerator generator;
+
+    private final ObjectWriter writer;
+
+    private JsonArrayWriter(final JsonGenerator generator, final ObjectWriter writer) {
+        this.generator = generator;
+        this.writer = writer;
+    }
+
+    // the output buffer decides when to flush rather than every row
+    static JsonArrayWriter open(final OutputStream body, final MediaType mediaType, final FilterProvider filters) throws IOException {
+        final ObjectMapper objectMapper = MediaTypes.mapperOf(mediaType);
+        final JsonGenerator generator = objectMapper.getFactory().createGenerator(body);
+        generator.writeStartArray();
+        return new JsonArrayWriter(generator, objectMapper.writer(filters).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    }
+
+    void write(final Object value) {
+        try {
+            writer.writeValue(generator, value);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // only called once every row was written, a failed export is left without its closing bracket
+    void finish() throws IOException {
+        generator.writeEndArray();
+        generator.close();
+    }
+}
\ No newline at end of file
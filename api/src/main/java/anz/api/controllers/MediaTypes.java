@@ -0,0 +1,89 @@
+package anz.api.controllers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import anz.api.controllers.dtos.SparseFields;
+
+// the representations every endpoint speaks, JSON unless Accept asks for Smile or CBOR, which spare service to service
+// traffic the text encoding. request bodies are read according to their Content-Type the same way
+final class MediaTypes {
+    static final String JSON = "application/json;charset=UTF-8";
+
+    static final String SMILE = "application/x-jackson-smile";
+
+    static final String CBOR = "application/cbor";
+
+    // what PATCH takes besides the three, a JSON merge patch that spring's JSON converter reads like any other JSON
+    static final String MERGE_PATCH = "application/merge-patch+json";
+
+    private static final MediaType JSON_TYPE = MediaType.parseMediaType(JSON);
+
+    private static final MediaType SMILE_TYPE = MediaType.parseMediaType(SMILE);
+
+    private static final MediaType CBOR_TYPE = MediaType.parseMediaType(CBOR);
+
+    // JSON first, so a client that accepts anything keeps getting what it always got
+    private static final List<MediaType> PRODUCIBLE = Arrays.asList(JSON_TYPE, SMILE_TYPE, CBOR_TYPE);
+
+    private static final ObjectMapper JSON_MAPPER = mapperOf(new JsonFactory());
+
+    private static final ObjectMapper SMILE_MAPPER = mapperOf(new SmileFactory());
+
+    private static final ObjectMapper CBOR_MAPPER = mapperOf(new CBORFactory());
+
+    private MediaTypes() {
+    }
+
+    // the preferred of the three that Accept allows, JSON when there is no Accept.
+    // the mappings refuse an Accept that allows none of them with a 406 before this is asked
+    static MediaType negotiate(final String accept) {
+        if (StringUtils.isBlank(accept)) {
+            return JSON_TYPE;
+        }
+        final List<MediaType> accepted = MediaType.parseMediaTypes(accept);
+        MediaType.sortBySpecificityAndQuality(accepted);
+        for (final MediaType acceptedType : accepted) {
+            if (0.0 == acceptedType.getQualityValue()) {
+                continue;
+            }
+            for (final MediaType producible : PRODUCIBLE) {
+                if (acceptedType.isCompatibleWith(producible)) {
+                    return producible;
+                }
+            }
+        }
+        return JSON_TYPE;
+    }
+
+    static boolean isJson(final MediaType mediaType) {
+        return JSON_TYPE.includes(mediaType);
+    }
+
+    // the mapper that reads and writes the given type, anything that is neither Smile nor CBOR is JSON
+    static ObjectMapper mapperOf(final MediaType mediaType) {
+        if (null != mediaType && SMILE_TYPE.includes(mediaType)) {
+            return SMILE_MAPPER;
+        }
+        if (null != mediaType && CBOR_TYPE.includes(mediaType)) {
+            return CBOR_MAPPER;
+        }
+        return JSON_MAPPER;
+    }
+
+    // configured like the mapper of spring's own JSON converter, so every format carries the same properties
+    private static ObjectMapper mapperOf(final JsonFactory factory) {
+        final ObjectMapper objectMapper = new ObjectMapper(factory);
+        Jackson2ObjectMapperBuilder.json().filters(SparseFields.ALL).configure(objectMapper);
+        return objectMapper;
+    }
+}
\ No newline at end of file
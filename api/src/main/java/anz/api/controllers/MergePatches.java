@@ -0,0 +1,106 @@
+package anz.api.controllers;
+
+import java.util.Map;
+
+import org.apache.commons.lang3.Validate;
+
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.EmployeePatch;
+import anz.core.domain.models.Gender;
+
+// JSON merge patches (RFC 7396) of a department or an employee: a member sets the field, a null member clears it and a field
+// that is not a member keeps its value. members for fields that cannot be changed, or of the wrong type, are an
+// IllegalArgumentException like every other invalid input
+final class MergePatches {
+    private MergePatches() {
+    }
+
+    static DepartmentPatch departmentPatchOf(final Map<String, Object> members) {
+        Validate.notNull(members, "patch cannot be null");
+        final DepartmentPatch.Builder builder = DepartmentPatch.Builder.newInstance();
+        for (final Map.Entry<String, Object> member : members.entrySet()) {
+            switch (member.getKey()) {
+                case "openPositions":
+                    builder.openPositions(intOf(member));
+                    break;
+                case "location":
+                    builder.location(stringOf(member));
+                    break;
+                case "managerId":
+                    builder.managerId(longOf(member));
+                    break;
+                case "parentDepartmentId":
+                    builder.parentDepartment(longOf(member));
+                    break;
+                default:
+                    throw new IllegalArgumentException("[" + member.getKey() + "] of a department cannot be patched");
+            }
+        }
+        return builder.build();
+    }
+
+    static EmployeePatch employeePatchOf(final Map<String, Object> members) {
+        Validate.notNull(members, "patch cannot be null");
+        final EmployeePatch.Builder builder = EmployeePatch.Builder.newInstance();
+        for (final Map.Entry<String, Object> member : members.entrySet()) {
+            switch (member.getKey()) {
+                case "firstname":
+                    builder.firstname(notNull(member, stringOf(member)));
+                    break;
+                case "lastname":
+                    builder.lastname(notNull(member, stringOf(member)));
+                    break;
+                case "gender":
+                    builder.gender(genderOf(member));
+                    break;
+                case "birthdate":
+                    builder.birthdate(notNull(member, longOf(member)));
+                    break;
+                case "title":
+                    builder.title(notNull(member, stringOf(member)));
+                    break;
+                case "grade":
+                    builder.grade(notNull(member, stringOf(member)));
+                    break;
+                case "departmentId":
+                    builder.departmentId(longOf(member));
+                    break;
+                default:
+                    throw new IllegalArgumentException("[" + member.getKey() + "] of an employee cannot be patched");
+            }
+        }
+        return builder.build();
+    }
+
+    private static <T> T notNull(final Map.Entry<String, Object> member, final T value) {
+        Validate.isTrue(null != value, "[" + member.getKey() + "] cannot be cleared");
+        return value;
+    }
+
+    private static String stringOf(final Map.Entry<String, Object> member) {
+        final Object value = member.getValue();
+        Validate.isTrue(null == value || value instanceof String, "[" + member.getKey() + "] must be a string");
+        return (String) value;
+    }
+
+    // jackson reads a whole number as an Integer, or as a Long when it does not fit, anything larger does not fit a column either
+    private static Long longOf(final Map.Entry<String, Object> member) {
+        final Object value = member.getValue();
+        Validate.isTrue(null == value || value instanceof Integer || value instanceof Long, "[" + member.getKey() + "] must be a whole number");
+        return null == value ? null : ((Number) value).longValue();
+    }
+
+    private static int intOf(final Map.Entry<String, Object> member) {
+        final Object value = member.getValue();
+        Validate.isTrue(null != value, "[" + member.getKey() + "] cannot be cleared");
+        Validate.isTrue(value instanceof Integer, "[" + member.getKey() + "] must be a whole number of at most " + Integer.MAX_VALUE);
+        return (Integer) value;
+    }
+
+    private static Gender genderOf(final Map.Entry<String, Object> member) {
+        final String value = stringOf(member);
+        final Gender gender = Gender.fromValue(value);
+        Validate.isTrue(null == value || null != gender, "[" + member.getKey() + "] must be male or female");
+        return gender;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package anz.api.controllers;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// lookups of many rows by id in one request, ids that match no row are listed in a header rather than failing the request
+final class MultiGet {
+    static final String MISSING_IDS_HEADER = "X-Missing-Ids";
+
+    private MultiGet() {
+    }
+
+    static <T> ResponseEntity<List<T>> of(final List<Long> ids, final List<T> body, final Function<T, Long> idOf) {
+        final Set<Long> found = new HashSet<>();
+        for (final T row : body) {
+            found.add(idOf.apply(row));
+        }
+        final Set<Long> missing = new LinkedHashSet<>(ids);
+        missing.removeAll(found);
+        final HttpHeaders headers = new HttpHeaders();
+        if (!missing.isEmpty()) {
+            headers.set(MISSING_IDS_HEADER, StringUtils.join(missing, ','));
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package anz.api.controllers;
+
+import java.util.List;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// keyset pagination of the list endpoints, the cursor is the id of the last row of a page and the next page starts after it
+final class Pagination {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final int DEFAULT_LIMIT = 100;
+
+    private Pagination() {
+    }
+
+    static boolean isRequested(final Integer limit, final Long after) {
+        return null != limit || null != after;
+    }
+
+    static int limitOf(final Integer limit) {
+        return null == limit ? DEFAULT_LIMIT : limit;
+    }
+
+    // a full page may be followed by more rows, a short page is the last one and carries no cursor
+    static <T> ResponseEntity<List<T>> page(final List<T> body, final int limit, final Long lastId) {
+        final HttpHeaders headers = new HttpHeaders();
+        if (body.size() == limit && null != lastId) {
+            headers.set(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+        }
+        return new ResponseEntity<>(body, headers, HttpStatus.OK);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package anz.api.controllers;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import anz.api.controllers.dtos.DepartmentDto;
+import anz.api.controllers.dtos.EmployeeDto;
+import anz.api.controllers.dtos.SparseFields;
+import anz.api.controllers.exceptions.BadRequestException;
+
+// applies ?fields= to every JSON body a GET returns, employees and departments nested in other responses included. a write has
+// already committed by the time its body is written, so its body is written in full rather than failing on an unknown field
+@ControllerAdvice
+class SparseFieldsAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+    private static final Set<String> KNOWN_FIELDS = new LinkedHashSet<>();
+
+    static {
+        KNOWN_FIELDS.addAll(EmployeeDto.FIELDS);
+        KNOWN_FIELDS.addAll(DepartmentDto.FIELDS);
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(final MappingJacksonValue bodyContainer, final MediaType contentType, final MethodParameter returnType,
+                                           final ServerHttpRequest request, final ServerHttpResponse response) {
+        if (HttpMethod.GET != request.getMethod()) {
+            bodyContainer.setFilters(SparseFields.ALL);
+            return;
+        }
+        final String fields = ((ServletServerHttpRequest) request).getServletRequest().getParameter(SparseFields.PARAMETER);
+        try {
+            bodyContainer.setFilters(SparseFields.filterOf(SparseFields.parse(fields, KNOWN_FIELDS)));
+        } catch (final IllegalArgumentException ex) {
+            throw new BadRequestException(ex.getMessage(), ex);
+        }
+    }
+}
\ No newline at end of file
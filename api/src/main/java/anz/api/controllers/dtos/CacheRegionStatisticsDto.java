@@ -0,0 +1,53 @@
+package anz.api.controllers.dtos;
+
+import anz.core.domain.models.CacheRegionStatistics;
+
+public class CacheRegionStatisticsDto {
+    private String region;
+
+    private long hits;
+
+    private long misses;
+
+    private long puts;
+
+    private long entries;
+
+    private double hitRatio;
+
+    CacheRegionStatisticsDto() {
+    }
+
+    public CacheRegionStatisticsDto(final CacheRegionStatistics cacheRegionStatistics) {
+        region = cacheRegionStatistics.getName();
+        hits = cacheRegionStatistics.getHits();
+        misses = cacheRegionStatistics.getMisses();
+        puts = cacheRegionStatistics.getPuts();
+        entries = cacheRegionStatistics.getEntries();
+        hitRatio = 0 == hits + misses ? 0.0 : (double) hits / (hits + misses);
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public double getHitRatio() {
+        return hitRatio;
+    }
+}
\ No newline at end of file
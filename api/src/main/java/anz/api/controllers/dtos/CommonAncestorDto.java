@@ -0,0 +1,39 @@
+package anz.api.controllers.dtos;
+
+import anz.core.domain.models.CommonAncestor;
+
+public class CommonAncestorDto {
+    private DepartmentDto department;
+
+    private int distanceFromA;
+
+    private int distanceFromB;
+
+    private int distance;
+
+    CommonAncestorDto() {
+    }
+
+    public CommonAncestorDto(final CommonAncestor commonAncestor) {
+        department = new DepartmentDto(commonAncestor.getDepartment());
+        distanceFromA = commonAncestor.getDistanceFromA();
+        distanceFromB = commonAncestor.getDistanceFromB();
+        distance = commonAncestor.getDistance();
+    }
+
+    public DepartmentDto getDepartment() {
+        return department;
+    }
+
+    public int getDistanceFromA() {
+        return distanceFromA;
+    }
+
+    public int getDistanceFromB() {
+        return distanceFromB;
+    }
+
+    public int getDistance() {
+        return distance;
+    }
+}
\ No newline at end of file
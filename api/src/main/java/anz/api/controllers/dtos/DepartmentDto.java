@@ -1,11 +1,19 @@
 package anz.api.controllers.dtos;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import anz.core.domain.models.Department;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFilter(SparseFields.FILTER)
 public class DepartmentDto {
+    public static final List<String> FIELDS = Arrays.asList("id", "name", "location", "managerId", "openPositions", "parentDepartmentId");
+
     private Long id;
 
     private String name;
@@ -30,6 +38,15 @@ public class DepartmentDto {
         parentDepartmentId = department.getParentDepartmentId();
     }
 
+    public DepartmentDto(final Map<String, Object> fields) {
+        id = (Long) fields.get("id");
+        name = (String) fields.get("name");
+        location = (String) fields.get("location");
+        managerId = (Long) fields.get("managerId");
+        openPositions = null == fields.get("openPositions") ? 0 : ((Number) fields.get("openPositions")).intValue();
+        parentDepartmentId = (Long) fields.get("parentDepartmentId");
+    }
+
     public Long getId() {
         return id;
     }
@@ -0,0 +1,37 @@
+package anz.api.controllers.dtos;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentImport;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DepartmentImportDto extends DepartmentDto {
+    private String ref;
+
+    private String parentRef;
+
+    private String parentName;
+
+    DepartmentImportDto() {
+    }
+
+    public DepartmentImportDto(final DepartmentImport departmentImport) {
+        super(departmentImport.getDepartment());
+        ref = departmentImport.getRef();
+        parentRef = departmentImport.getParentRef();
+        parentName = departmentImport.getParentName();
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getParentRef() {
+        return parentRef;
+    }
+
+    public String getParentName() {
+        return parentName;
+    }
+}
\ No newline at end of file
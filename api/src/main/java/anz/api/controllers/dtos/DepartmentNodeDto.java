@@ -0,0 +1,19 @@
+package anz.api.controllers.dtos;
+
+import anz.core.domain.models.DepartmentNode;
+
+public class DepartmentNodeDto extends DepartmentDto {
+    private int depth;
+
+    DepartmentNodeDto() {
+    }
+
+    public DepartmentNodeDto(final DepartmentNode departmentNode) {
+        super(departmentNode.getDepartment());
+        depth = departmentNode.getDepth();
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
\ No newline at end of file
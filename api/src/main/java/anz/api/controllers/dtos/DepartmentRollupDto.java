@@ -0,0 +1,32 @@
+package anz.api.controllers.dtos;
+
+import anz.core.domain.models.DepartmentRollup;
+
+public class DepartmentRollupDto {
+    private long departmentId;
+
+    private long headcount;
+
+    private long openPositions;
+
+    DepartmentRollupDto() {
+    }
+
+    public DepartmentRollupDto(final long departmentId, final DepartmentRollup departmentRollup) {
+        this.departmentId = departmentId;
+        headcount = departmentRollup.getHeadcount();
+        openPositions = departmentRollup.getOpenPositions();
+    }
+
+    public long getDepartmentId() {
+        return departmentId;
+    }
+
+    public long getHeadcount() {
+        return headcount;
+    }
+
+    public long getOpenPositions() {
+        return openPositions;
+    }
+}
\ No newline at end of file
@@ -1,12 +1,20 @@
 package anz.api.controllers.dtos;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import anz.core.domain.models.Employee;
 import anz.core.domain.models.Gender;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
+@JsonFilter(SparseFields.FILTER)
 public class EmployeeDto {
+    public static final List<String> FIELDS = Arrays.asList("id", "firstname", "lastname", "ldapUsername", "gender", "birthdate", "title", "grade", "departmentId");
+
     private Long id;
 
     private String firstname;
@@ -40,6 +48,19 @@ public class EmployeeDto {
         departmentId = employee.getDepartmentId();
     }
 
+    // a sparse row, fields it does not hold keep their defaults and are filtered out when written
+    public EmployeeDto(final Map<String, Object> fields) {
+        id = (Long) fields.get("id");
+        firstname = (String) fields.get("firstname");
+        lastname = (String) fields.get("lastname");
+        ldapUsername = (String) fields.get("ldapUsername");
+        gender = null == fields.get("gender") ? null : fields.get("gender").toString();
+        birthdate = null == fields.get("birthdate") ? 0L : ((Number) fields.get("birthdate")).longValue();
+        title = (String) fields.get("title");
+        grade = (String) fields.get("grade");
+        departmentId = (Long) fields.get("departmentId");
+    }
+
     public Long getId() {
         return id;
     }
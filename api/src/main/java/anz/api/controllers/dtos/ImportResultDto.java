@@ -0,0 +1,42 @@
+package anz.api.controllers.dtos;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import anz.core.domain.models.ImportResult;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ImportResultDto {
+    private int index;
+
+    private String status;
+
+    private Long id;
+
+    private String message;
+
+    ImportResultDto() {
+    }
+
+    public ImportResultDto(final int index, final ImportResult importResult) {
+        this.index = index;
+        status = importResult.getStatus().toString();
+        id = importResult.getId();
+        message = importResult.getMessage();
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,56 @@
+package anz.api.controllers.dtos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.Validate;
+
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+// ?fields=firstname,lastname keeps only those properties of every employee and department written
+public final class SparseFields {
+    public static final String PARAMETER = "fields";
+
+    public static final String FILTER = "sparseFields";
+
+    // the id of every row and the depth of a department node, which inherits the filter from DepartmentDto
+    private static final List<String> ALWAYS_KEPT = Arrays.asList("id", "depth");
+
+    // the DTOs name a filter, so every writer of them needs a provider even when nothing is filtered
+    public static final FilterProvider ALL = filterOf(null);
+
+    private SparseFields() {
+    }
+
+    // the fields in the order given, each once, null when no fields were asked for
+    public static List<String> parse(final String fields, final Collection<String> known) {
+        if (null == fields) {
+            return null;
+        }
+        final Set<String> result = new LinkedHashSet<>();
+        for (final String field : StringUtils.split(fields, ',')) {
+            final String trimmed = field.trim();
+            Validate.isTrue(known.contains(trimmed), "unknown field [%s]", trimmed);
+            result.add(trimmed);
+        }
+        Validate.isTrue(!result.isEmpty(), "fields cannot be empty");
+        return new ArrayList<>(result);
+    }
+
+    public static FilterProvider filterOf(final List<String> fields) {
+        if (null == fields) {
+            return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.serializeAll());
+        }
+        final Set<String> kept = new HashSet<>(fields);
+        kept.addAll(ALWAYS_KEPT);
+        return new SimpleFilterProvider().addFilter(FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(kept));
+    }
+}
\ No newline at end of file
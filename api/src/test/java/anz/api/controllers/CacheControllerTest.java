@@ -0,0 +1,57 @@
+package anz.api.controllers;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import anz.api.controllers.dtos.CacheRegionStatisticsDto;
+import anz.core.application.CacheStatistics;
+import anz.core.domain.models.CacheRegionStatistics;
+
+public class CacheControllerTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private CacheStatistics cacheStatistics = mockery.mock(CacheStatistics.class);
+
+    private CacheController target = new CacheController(cacheStatistics);
+
+    @Test
+    public void testGetStatistics() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(cacheStatistics).getRegions();
+                will(returnValue(Arrays.asList(new CacheRegionStatistics("department", 3L, 1L, 1L, 1L), new CacheRegionStatistics("employee", 0L, 0L, 0L, 0L))));
+            }
+        });
+
+        final List<CacheRegionStatisticsDto> actual = target.getStatistics();
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("department", actual.get(0).getRegion());
+        Assert.assertEquals(0.75, actual.get(0).getHitRatio(), 0.0);
+        Assert.assertEquals(0.0, actual.get(1).getHitRatio(), 0.0);
+    }
+
+    @Test
+    public void testClearStatistics() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(cacheStatistics).clear();
+            }
+        });
+
+        target.clearStatistics();
+
+        mockery.assertIsSatisfied();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package anz.api.controllers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import anz.api.controllers.dtos.DepartmentDto;
+import anz.api.controllers.dtos.EmployeeDto;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.domain.models.Gender;
+
+// payload size and encode and decode time of the DTO lists in JSON, Smile and CBOR, with the mappers the endpoints use.
+// not a test, surefire leaves it alone; run it from the project root after mvn test-compile with
+//   java -cp api/target/test-classes:api/target/classes:<mvn -pl api dependency:build-classpath> anz.api.controllers.CodecBenchmark
+public final class CodecBenchmark {
+    private static final int EMPLOYEES = 10000;
+
+    private static final int DEPARTMENTS = 1000;
+
+    private static final int WARMUP_ROUNDS = 30;
+
+    private static final int ROUNDS = 50;
+
+    private CodecBenchmark() {
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final List<EmployeeDto> employees = new ArrayList<>(EMPLOYEES);
+        for (long id = 1; id <= EMPLOYEES; id++) {
+            employees.add(new EmployeeDto(Employee.Builder.newInstance(id, "firstname" + id, "lastname" + id, "user" + id, "Software Engineer", "G" + id % 7)
+                                                          .gender(0 == id % 2 ? Gender.Male : Gender.Female).birthdate(id * 86400000L).departmentId(id % DEPARTMENTS + 1)
+                                                          .build()));
+        }
+        final List<DepartmentDto> departments = new ArrayList<>(DEPARTMENTS);
+        for (long id = 1; id <= DEPARTMENTS; id++) {
+            departments.add(new DepartmentDto(Department.Builder.newInstance(id, "department" + id, (int) (id % 13)).location("Melbourne").managerId(id)
+                                                                .parentDepartment(1 == id ? null : id / 2).build()));
+        }
+        System.out.println(String.format("%-12s %-16s %12s %12s %12s", "payload", "format", "bytes", "encode ms", "decode ms"));
+        for (final String format : new String[] { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR }) {
+            run(EMPLOYEES + " emp", format, employees, EmployeeDto[].class);
+        }
+        for (final String format : new String[] { MediaTypes.JSON, MediaTypes.SMILE, MediaTypes.CBOR }) {
+            run(DEPARTMENTS + " dep", format, departments, DepartmentDto[].class);
+        }
+    }
+
+    private static void run(final String payload, final String format, final List<?> rows, final Class<?> arrayType) throws IOException {
+        final MediaType mediaType = MediaType.parseMediaType(format);
+        final ObjectMapper objectMapper = MediaTypes.mapperOf(mediaType);
+        byte[] bytes = null;
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            bytes = objectMapper.writeValueAsBytes(rows);
+            objectMapper.readValue(bytes, arrayType);
+        }
+        long encodeNanos = 0L;
+        long decodeNanos = 0L;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long start = System.nanoTime();
+            bytes = objectMapper.writeValueAsBytes(rows);
+            final long encoded = System.nanoTime();
+            objectMapper.readValue(bytes, arrayType);
+            decodeNanos += System.nanoTime() - encoded;
+            encodeNanos += encoded - start;
+        }
+        System.out.println(String.format("%-12s %-16s %12d %12.2f %12.2f", payload, mediaType.getSubtype(), bytes.length, encodeNanos / 1e6 / ROUNDS,
+                                         decodeNanos / 1e6 / ROUNDS));
+    }
+}
\ No newline at end of file
@@ -1,27 +1,53 @@
 package anz.api.controllers;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Matcher;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
 
+import anz.api.controllers.dtos.CommonAncestorDto;
 import anz.api.controllers.dtos.DepartmentDto;
+import anz.api.controllers.dtos.DepartmentImportDto;
+import anz.api.controllers.dtos.DepartmentNodeDto;
+import anz.api.controllers.dtos.DepartmentRollupDto;
 import anz.api.controllers.dtos.EmployeeDto;
 import anz.api.controllers.exceptions.BadRequestException;
 import anz.api.controllers.exceptions.NotAcceptableException;
 import anz.api.controllers.exceptions.NotFoundException;
 import anz.api.controllers.exceptions.PreconditionFailedException;
 import anz.core.application.DepartmentService;
+import anz.core.application.EncodedEntities;
 import anz.core.application.shared.InvalidEntityException;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentImport;
+import anz.core.domain.models.DepartmentNode;
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.DepartmentRollup;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EncodedEntity;
 
 public class DepartmentControllerTest {
     private Mockery mockery = new Mockery() {
@@ -32,7 +58,69 @@ public class DepartmentControllerTest {
 
     private DepartmentService departmentService = mockery.mock(DepartmentService.class);
 
-    private DepartmentController target = new DepartmentController(departmentService);
+    private EncodedEntities encodedEntities = mockery.mock(EncodedEntities.class);
+
+    private DepartmentController target = new DepartmentController(departmentService, encodedEntities);
+
+    // a request without If-None-Match, the table version and the tags it is given are not checked
+    private WebRequest unconditional() {
+        final WebRequest request = mockery.mock(WebRequest.class, "unconditional");
+        mockery.checking(new Expectations() {
+            {
+                allowing(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue(null));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).checkNotModified(with(any(String.class)));
+                will(returnValue(false));
+
+                allowing(departmentService).getTableVersion();
+                will(returnValue("v1"));
+            }
+        });
+        return request;
+    }
+
+    // the imports in the order they reach the service, by the names of their departments
+    private static Matcher<List<DepartmentImport>> named(final String... names) {
+        return new FeatureMatcher<List<DepartmentImport>, List<String>>(CoreMatchers.equalTo(Arrays.asList(names)), "imports named", "names") {
+            @Override
+            protected List<String> featureValueOf(final List<DepartmentImport> imports) {
+                final List<String> result = new ArrayList<>();
+                for (final DepartmentImport departmentImport : imports) {
+                    result.add(departmentImport.getDepartment().getName());
+                }
+                return result;
+            }
+        };
+    }
+
+    // nothing is encoded yet, every read loads the row and encodes it
+    private void uncached() {
+        mockery.checking(new Expectations() {
+            {
+                allowing(encodedEntities).get(with(any(Class.class)), with(any(long.class)), with(any(String.class)));
+                will(returnValue(null));
+
+                allowing(encodedEntities).get(with(any(Class.class)), with(any(long.class)), with(any(String.class)), with(CoreMatchers.<Supplier<EncodedEntity>> instanceOf(Supplier.class)));
+                will(new CustomAction("load") {
+                    @Override
+                    public Object invoke(final Invocation invocation) {
+                        return ((Supplier<?>) invocation.getParameter(3)).get();
+                    }
+                });
+            }
+        });
+    }
+
+    private static DepartmentDto decode(final ResponseEntity<byte[]> response) throws IOException {
+        return MediaTypes.mapperOf(response.getHeaders().getContentType()).readValue(response.getBody(), DepartmentDto.class);
+    }
 
     @Test(expected = BadRequestException.class)
     public void testCreateWhenDepartmentIdIsNotNull() {
@@ -137,6 +225,82 @@ public class DepartmentControllerTest {
         Assert.assertEquals(departmentDto.getOpenPositions(), actual.getOpenPositions());
     }
 
+    @Test
+    public void testCreateTree() {
+        final DepartmentImportDto child = new DepartmentImportDto(new DepartmentImport(null, Department.Builder.newInstance("child", 0).build(), "p", null));
+        final DepartmentImportDto parent = new DepartmentImportDto(new DepartmentImport("p", Department.Builder.newInstance("parent", 0).build(), null, null));
+        final List<Department> created = Arrays.asList(Department.Builder.newInstance(2L, "child", 0).parentDepartment(1L).build(),
+                                                       Department.Builder.newInstance(1L, "parent", 0).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).createTree(with(named("child", "parent")));
+                will(returnValue(created));
+            }
+        });
+
+        final List<DepartmentDto> actual = target.createTree(Arrays.asList(child, parent));
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals(Long.valueOf(2L), actual.get(0).getId());
+        Assert.assertEquals(Long.valueOf(1L), actual.get(0).getParentDepartmentId());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testCreateTreeWhenParentGivenTwice() {
+        final DepartmentImportDto departmentImportDto = mockery.mock(DepartmentImportDto.class);
+
+        mockery.checking(new Expectations() {
+            {
+                allowing(departmentImportDto).getId();
+                will(returnValue(null));
+                allowing(departmentImportDto).getName();
+                will(returnValue("child"));
+                allowing(departmentImportDto).getOpenPositions();
+                will(returnValue(0));
+                allowing(departmentImportDto).getLocation();
+                allowing(departmentImportDto).getManagerId();
+                allowing(departmentImportDto).getParentDepartmentId();
+                will(returnValue(1L));
+                allowing(departmentImportDto).getRef();
+                allowing(departmentImportDto).getParentRef();
+                will(returnValue("p"));
+                allowing(departmentImportDto).getParentName();
+            }
+        });
+
+        target.createTree(Arrays.asList(departmentImportDto));
+    }
+
+    @Test(expected = NotAcceptableException.class)
+    public void testCreateTreeWhenInvalidEntityExceptionThrown() {
+        final DepartmentImportDto departmentImportDto = new DepartmentImportDto(new DepartmentImport("a", Department.Builder.newInstance("a", 0).build(), "a", null));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).createTree(with(named("a")));
+                will(throwException(new InvalidEntityException("Departments [a] form a cycle")));
+            }
+        });
+
+        target.createTree(Arrays.asList(departmentImportDto));
+    }
+
+    @Test(expected = PreconditionFailedException.class)
+    public void testCreateTreeWhenEntityNotFoundExceptionThrown() {
+        final DepartmentImportDto departmentImportDto = new DepartmentImportDto(new DepartmentImport(null, Department.Builder.newInstance("a", 0).build(), null, "x"));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).createTree(with(named("a")));
+                will(throwException(new EntityNotFoundException("Parent department with name [x] cannot be found")));
+            }
+        });
+
+        target.createTree(Arrays.asList(departmentImportDto));
+    }
+
     @Test
     public void testList() {
         final List<Department> departments = new ArrayList<>();
@@ -150,7 +314,7 @@ public class DepartmentControllerTest {
             }
         });
 
-        List<DepartmentDto> list = target.list();
+        List<DepartmentDto> list = target.list(null, null, null, unconditional()).getBody();
 
         mockery.assertIsSatisfied();
         Assert.assertEquals(1, list.size());
@@ -159,10 +323,121 @@ public class DepartmentControllerTest {
     }
 
     @Test
-    public void testGetById() {
+    public void testListPage() {
+        final List<Department> departments = new ArrayList<>();
+        departments.add(Department.Builder.newInstance(4L, "test", 1).build());
+        departments.add(Department.Builder.newInstance(5L, "test", 1).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getPage(3L, 2);
+                will(returnValue(departments));
+            }
+        });
+
+        ResponseEntity<List<DepartmentDto>> actual = target.list(2, 3L, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.getBody().size());
+        Assert.assertEquals("5", actual.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testListLastPage() {
+        final List<Department> departments = new ArrayList<>();
+        departments.add(Department.Builder.newInstance(4L, "test", 1).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getPage(null, 2);
+                will(returnValue(departments));
+            }
+        });
+
+        ResponseEntity<List<DepartmentDto>> actual = target.list(2, null, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, actual.getBody().size());
+        Assert.assertFalse(actual.getHeaders().containsKey(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testListPageWhenLimitInvalid() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getPage(null, 0);
+                will(throwException(new IllegalArgumentException()));
+            }
+        });
+
+        target.list(0, null, null, unconditional());
+    }
+
+    @Test
+    public void testGetByIds() {
+        final List<Long> ids = Arrays.asList(2L, 1L, 3L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getByIds(ids);
+                will(returnValue(Arrays.asList(Department.Builder.newInstance(1L, "a", 0).build())));
+            }
+        });
+
+        final ResponseEntity<List<DepartmentDto>> actual = target.getByIds(ids, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, actual.getBody().size());
+        Assert.assertEquals("2,3", actual.getHeaders().getFirst(MultiGet.MISSING_IDS_HEADER));
+    }
+
+    @Test
+    public void testGetByIdsSparse() {
+        final List<Long> ids = Arrays.asList(2L, 1L);
+        final Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 1L);
+        row.put("openPositions", 3);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getByIds(Arrays.asList("openPositions"), ids);
+                will(returnValue(Arrays.asList(row)));
+            }
+        });
+
+        final ResponseEntity<List<DepartmentDto>> actual = target.getByIds(ids, "openPositions", unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(3, actual.getBody().get(0).getOpenPositions());
+        Assert.assertNull(actual.getBody().get(0).getName());
+        Assert.assertEquals("2", actual.getHeaders().getFirst(MultiGet.MISSING_IDS_HEADER));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdsWhenFieldUnknown() {
+        target.getByIds(Arrays.asList(1L), "firstname", unconditional());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdsWhenIllegalArgumentExceptionThrown() {
+        final List<Long> ids = Arrays.asList(1L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getByIds(ids);
+                will(throwException(new IllegalArgumentException()));
+            }
+        });
+
+        target.getByIds(ids, null, unconditional());
+    }
+
+    @Test
+    public void testGetById() throws IOException {
         final Department department = Department.Builder.newInstance("test", 1).build();
         final DepartmentDto expect = new DepartmentDto(department);
         final Long id = 1L;
+        uncached();
 
         mockery.checking(new Expectations() {
             {
@@ -171,11 +446,99 @@ public class DepartmentControllerTest {
             }
         });
 
-        final DepartmentDto actual = target.getById(id);
+        final ResponseEntity<byte[]> actual = target.getById(id, null, unconditional());
 
         mockery.assertIsSatisfied();
-        Assert.assertEquals(expect.getName(), actual.getName());
-        Assert.assertEquals(expect.getOpenPositions(), actual.getOpenPositions());
+        Assert.assertEquals(expect.getName(), decode(actual).getName());
+        Assert.assertEquals(expect.getOpenPositions(), decode(actual).getOpenPositions());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdWhenFieldOfEmployee() {
+        target.getById(1L, "ldapUsername", unconditional());
+    }
+
+    @Test
+    public void testGetByIdFromCache() {
+        final byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(encodedEntities).get(Department.class, 1L, "json;name");
+                will(returnValue(new EncodedEntity(0L, bytes)));
+
+                never(departmentService).getById(1L);
+            }
+        });
+
+        final ResponseEntity<byte[]> actual = target.getById(1L, "name", unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(bytes, actual.getBody());
+    }
+
+    @Test
+    public void testGetByIdWhenModified() throws IOException {
+        final Department department = Department.Builder.newInstance(1L, "test", 1).build();
+        final WebRequest request = mockery.mock(WebRequest.class);
+        uncached();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue("\"department-1-0\""));
+
+                oneOf(departmentService).getVersionById(1L);
+                will(returnValue(1L));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified("department-1-1");
+                will(returnValue(false));
+
+                oneOf(departmentService).getById(1L);
+                will(returnValue(department));
+
+                oneOf(request).checkNotModified("department-1-0");
+                will(returnValue(false));
+            }
+        });
+
+        final ResponseEntity<byte[]> actual = target.getById(1L, null, request);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("test", decode(actual).getName());
+    }
+
+    @Test
+    public void testGetByIdsNotModified() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+        final List<Long> ids = Arrays.asList(1L, 2L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getTableVersion();
+                will(returnValue("v2"));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.singletonMap("ids", new String[] { "1,2" })));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified(with(any(String.class)));
+                will(returnValue(true));
+
+                never(departmentService).getByIds(ids);
+            }
+        });
+
+        Assert.assertNull(target.getByIds(ids, null, request));
+        mockery.assertIsSatisfied();
     }
 
     @Test
@@ -220,6 +583,106 @@ public class DepartmentControllerTest {
         Assert.assertEquals(department.getOpenPositions(), actual.get(0).getOpenPositions());
     }
 
+    @Test
+    public void testGetDescendantsOf() {
+        final Long id = 1L;
+        final List<DepartmentNode> departmentNodes = new ArrayList<>();
+        departmentNodes.add(new DepartmentNode(Department.Builder.newInstance(2L, "child", 1).parentDepartment(id).build(), 1));
+        departmentNodes.add(new DepartmentNode(Department.Builder.newInstance(3L, "grandchild", 1).parentDepartment(2L).build(), 2));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getDescendants(id, Integer.MAX_VALUE);
+                will(returnValue(departmentNodes));
+            }
+        });
+
+        final List<DepartmentNodeDto> actual = target.getDescendantsOf(id, null);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("child", actual.get(0).getName());
+        Assert.assertEquals(1, actual.get(0).getDepth());
+        Assert.assertEquals("grandchild", actual.get(1).getName());
+        Assert.assertEquals(2, actual.get(1).getDepth());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetDescendantsOfWhenIllegalArgumentExceptionThrown() {
+        final Long id = 1L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getDescendants(id, 0);
+                will(throwException(new IllegalArgumentException()));
+            }
+        });
+
+        target.getDescendantsOf(id, 0);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetAncestorsOf() {
+        final Long id = 3L;
+        final List<DepartmentNode> departmentNodes = new ArrayList<>();
+        departmentNodes.add(new DepartmentNode(Department.Builder.newInstance(2L, "parent", 1).parentDepartment(1L).build(), 1));
+        departmentNodes.add(new DepartmentNode(Department.Builder.newInstance(1L, "root", 1).build(), 2));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getAncestors(id);
+                will(returnValue(departmentNodes));
+            }
+        });
+
+        final List<DepartmentNodeDto> actual = target.getAncestorsOf(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("parent", actual.get(0).getName());
+        Assert.assertEquals("root", actual.get(1).getName());
+        Assert.assertEquals(2, actual.get(1).getDepth());
+    }
+
+    @Test
+    public void testGetAncestorOf() {
+        final Long id = 3L;
+        final Long ancestorId = 1L;
+        final DepartmentNode departmentNode = new DepartmentNode(Department.Builder.newInstance(ancestorId, "root", 1).build(), 2);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getAncestor(id, ancestorId);
+                will(returnValue(departmentNode));
+            }
+        });
+
+        final DepartmentNodeDto actual = target.getAncestorOf(id, ancestorId);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(ancestorId, actual.getId());
+        Assert.assertEquals(2, actual.getDepth());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetAncestorOfWhenNotUnder() {
+        final Long id = 3L;
+        final Long ancestorId = 4L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getAncestor(id, ancestorId);
+                will(returnValue(null));
+            }
+        });
+
+        target.getAncestorOf(id, ancestorId);
+
+        mockery.assertIsSatisfied();
+    }
+
     @Test
     public void testGetEmployeesOf() {
         final Long id = 1L;
@@ -240,6 +703,41 @@ public class DepartmentControllerTest {
         Assert.assertEquals(employees.size(), actual.size());
     }
 
+    @Test
+    public void testGetRollupOf() {
+        final Long id = 1L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getRollup(id);
+                will(returnValue(new DepartmentRollup(12L, 3L)));
+            }
+        });
+
+        final DepartmentRollupDto actual = target.getRollupOf(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1L, actual.getDepartmentId());
+        Assert.assertEquals(12L, actual.getHeadcount());
+        Assert.assertEquals(3L, actual.getOpenPositions());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetRollupOfWhenDepartmentNotExist() {
+        final Long id = 1L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getRollup(id);
+                will(returnValue(null));
+            }
+        });
+
+        target.getRollupOf(id);
+
+        mockery.assertIsSatisfied();
+    }
+
     @Test(expected = BadRequestException.class)
     public void testUpdateWhenDepartmentIdIsNotNull() {
         final DepartmentDto departmentDto = mockery.mock(DepartmentDto.class);
@@ -447,6 +945,75 @@ public class DepartmentControllerTest {
         Assert.assertEquals(parentDepartmentId, actual.getParentDepartmentId());
     }
 
+    @Test
+    public void testPatch() {
+        final Department department = Department.Builder.newInstance(1L, "test", 0).location("aa").managerId(3L).build();
+        final Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("openPositions", 2);
+        patch.put("managerId", null);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).patch(with(1L), with(any(DepartmentPatch.class)));
+                will(new CustomAction("apply the patch") {
+                    @Override
+                    public Object invoke(final Invocation invocation) {
+                        final DepartmentPatch departmentPatch = (DepartmentPatch) invocation.getParameter(1);
+                        department.update(departmentPatch.openPositionsOf(department), departmentPatch.locationOf(department),
+                                          departmentPatch.managerIdOf(department), departmentPatch.parentDepartmentIdOf(department));
+                        return department;
+                    }
+                });
+            }
+        });
+
+        DepartmentDto actual = target.patch(1L, patch);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.getOpenPositions());
+        Assert.assertEquals("aa", actual.getLocation());
+        Assert.assertNull(actual.getManagerId());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenFieldCannotBePatched() {
+        target.patch(1L, Collections.<String, Object> singletonMap("name", "test"));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenOpenPositionsCleared() {
+        target.patch(1L, Collections.<String, Object> singletonMap("openPositions", null));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenManagerIdNotANumber() {
+        target.patch(1L, Collections.<String, Object> singletonMap("managerId", "1"));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testPatchWhenDepartmentNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).patch(with(1L), with(any(DepartmentPatch.class)));
+                will(returnValue(null));
+            }
+        });
+
+        target.patch(1L, Collections.<String, Object> singletonMap("openPositions", 1));
+    }
+
+    @Test(expected = PreconditionFailedException.class)
+    public void testPatchWhenEntityNotFoundExceptionThrown() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).patch(with(1L), with(any(DepartmentPatch.class)));
+                will(throwException(new EntityNotFoundException()));
+            }
+        });
+
+        target.patch(1L, Collections.<String, Object> singletonMap("managerId", 5));
+    }
+
     @Test(expected = NotFoundException.class)
     public void testRemoveByIdWhenEntityNotFoundExceptionThrow() {
         final Long id = 1L;
@@ -493,4 +1060,48 @@ public class DepartmentControllerTest {
 
         mockery.assertIsSatisfied();
     }
+
+    @Test
+    public void testGetLowestCommonAncestor() {
+        final Department department = Department.Builder.newInstance(1L, "root", 1).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getLowestCommonAncestor(2L, 3L);
+                will(returnValue(new CommonAncestor(department, 1, 2)));
+            }
+        });
+
+        final CommonAncestorDto actual = target.getLowestCommonAncestor(2L, 3L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(department.getId(), actual.getDepartment().getId());
+        Assert.assertEquals(1, actual.getDistanceFromA());
+        Assert.assertEquals(2, actual.getDistanceFromB());
+        Assert.assertEquals(3, actual.getDistance());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetLowestCommonAncestorWhenNoneShared() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getLowestCommonAncestor(2L, 3L);
+                will(returnValue(null));
+            }
+        });
+
+        target.getLowestCommonAncestor(2L, 3L);
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetLowestCommonAncestorWhenEntityNotFoundExceptionThrown() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentService).getLowestCommonAncestor(2L, 3L);
+                will(throwException(new EntityNotFoundException()));
+            }
+        });
+
+        target.getLowestCommonAncestor(2L, 3L);
+    }
 }
\ No newline at end of file
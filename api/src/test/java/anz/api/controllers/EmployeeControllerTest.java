@@ -1,26 +1,58 @@
 package anz.api.controllers;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Matcher;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import anz.api.controllers.dtos.CommonAncestorDto;
 import anz.api.controllers.dtos.DepartmentDto;
 import anz.api.controllers.dtos.EmployeeDto;
+import anz.api.controllers.dtos.ImportResultDto;
 import anz.api.controllers.exceptions.BadRequestException;
 import anz.api.controllers.exceptions.NotAcceptableException;
 import anz.api.controllers.exceptions.NotFoundException;
 import anz.api.controllers.exceptions.PreconditionFailedException;
 import anz.core.application.EmployeeService;
+import anz.core.application.EncodedEntities;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EmployeePatch;
+import anz.core.domain.models.EncodedEntity;
+import anz.core.domain.models.Gender;
+import anz.core.domain.models.ImportResult;
 
 public class EmployeeControllerTest {
     private Mockery mockery = new Mockery() {
@@ -31,7 +63,69 @@ public class EmployeeControllerTest {
 
     private EmployeeService employeeService = mockery.mock(EmployeeService.class);
 
-    private EmployeeController target = new EmployeeController(employeeService);
+    private EncodedEntities encodedEntities = mockery.mock(EncodedEntities.class);
+
+    private EmployeeController target = new EmployeeController(employeeService, encodedEntities);
+
+    // a request without If-None-Match, the table version and the tags it is given are not checked
+    private WebRequest unconditional() {
+        final WebRequest request = mockery.mock(WebRequest.class, "unconditional");
+        mockery.checking(new Expectations() {
+            {
+                allowing(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue(null));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).checkNotModified(with(any(String.class)));
+                will(returnValue(false));
+
+                allowing(employeeService).getTableVersion();
+                will(returnValue("v1"));
+            }
+        });
+        return request;
+    }
+
+    // nothing is encoded yet, every read loads the row and encodes it
+    private void uncached() {
+        mockery.checking(new Expectations() {
+            {
+                allowing(encodedEntities).get(with(any(Class.class)), with(any(long.class)), with(any(String.class)));
+                will(returnValue(null));
+
+                allowing(encodedEntities).get(with(any(Class.class)), with(any(long.class)), with(any(String.class)), with(CoreMatchers.<Supplier<EncodedEntity>> instanceOf(Supplier.class)));
+                will(new CustomAction("load") {
+                    @Override
+                    public Object invoke(final Invocation invocation) {
+                        return ((Supplier<?>) invocation.getParameter(3)).get();
+                    }
+                });
+            }
+        });
+    }
+
+    // only the valid rows reach the service, employees have no equals of their own so they are told apart by their ldap usernames
+    private static Matcher<List<Employee>> ldapUsernames(final String... ldapUsernames) {
+        return new FeatureMatcher<List<Employee>, List<String>>(CoreMatchers.equalTo(Arrays.asList(ldapUsernames)), "employees with ldap usernames", "ldap usernames") {
+            @Override
+            protected List<String> featureValueOf(final List<Employee> employees) {
+                final List<String> result = new ArrayList<>();
+                for (final Employee employee : employees) {
+                    result.add(employee.getLdapUsername());
+                }
+                return result;
+            }
+        };
+    }
+
+    private static EmployeeDto decode(final ResponseEntity<byte[]> response) throws IOException {
+        return MediaTypes.mapperOf(response.getHeaders().getContentType()).readValue(response.getBody(), EmployeeDto.class);
+    }
 
     @Test(expected = BadRequestException.class)
     public void testCreateWhenDepartmentIdIsNotNull() {
@@ -139,6 +233,81 @@ public class EmployeeControllerTest {
         Assert.assertEquals(employeeDto.getGrade(), actual.getGrade());
     }
 
+    @Test
+    public void testCreateAll() {
+        final String body = "[{\"firstname\":\"f\",\"lastname\":\"l\",\"ldapUsername\":\"a\",\"title\":\"t\",\"grade\":\"g\",\"departmentId\":1},"
+                            + "{\"firstname\":\"f\",\"ldapUsername\":\"b\",\"title\":\"t\",\"grade\":\"g\"},"
+                            + "{\"id\":3,\"firstname\":\"f\",\"lastname\":\"l\",\"ldapUsername\":\"c\",\"title\":\"t\",\"grade\":\"g\"},"
+                            + "{\"firstname\":\"f\",\"lastname\":\"l\",\"ldapUsername\":\"d\",\"title\":\"t\",\"grade\":\"g\"}]";
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).createAll(with(ldapUsernames("a", "d")));
+                will(returnValue(Arrays.asList(ImportResult.created(10L), ImportResult.rejected(ImportResult.Status.CONFLICT, "exists"))));
+            }
+        });
+
+        final List<ImportResultDto> actual = target.createAll(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "application/json");
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(4, actual.size());
+        Assert.assertEquals("CREATED", actual.get(0).getStatus());
+        Assert.assertEquals(Long.valueOf(10L), actual.get(0).getId());
+        Assert.assertEquals("INVALID", actual.get(1).getStatus());
+        Assert.assertEquals("INVALID", actual.get(2).getStatus());
+        Assert.assertEquals("CONFLICT", actual.get(3).getStatus());
+        Assert.assertEquals(3, actual.get(3).getIndex());
+    }
+
+    @Test
+    public void testCreateAllFromNdjson() {
+        final String body = "{\"firstname\":\"f\",\"lastname\":\"l\",\"ldapUsername\":\"a\",\"title\":\"t\",\"grade\":\"g\"}\n"
+                            + "{\"firstname\":\"f\",\"lastname\":\"l\",\"ldapUsername\":\"b\",\"title\":\"t\",\"grade\":\"g\"}\n";
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).createAll(with(ldapUsernames("a", "b")));
+                will(returnValue(Arrays.asList(ImportResult.created(10L), ImportResult.created(11L))));
+            }
+        });
+
+        final List<ImportResultDto> actual = target.createAll(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), "application/x-ndjson");
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals(Long.valueOf(11L), actual.get(1).getId());
+    }
+
+    @Test
+    public void testCreateAllFromSmile() throws IOException {
+        final ObjectMapper smile = MediaTypes.mapperOf(MediaType.parseMediaType(MediaTypes.SMILE));
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        for (final String ldapUsername : Arrays.asList("a", "b")) {
+            body.write(smile.writeValueAsBytes(new EmployeeDto(Employee.Builder.newInstance("f", "l", ldapUsername, "t", "g").build())));
+        }
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).createAll(with(ldapUsernames("a", "b")));
+                will(returnValue(Arrays.asList(ImportResult.created(10L), ImportResult.created(11L))));
+            }
+        });
+
+        final List<ImportResultDto> actual = target.createAll(new ByteArrayInputStream(body.toByteArray()), MediaTypes.SMILE);
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("CREATED", actual.get(1).getStatus());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testCreateAllWhenBodyMalformed() {
+        target.createAll(new ByteArrayInputStream("[{\"firstname\":".getBytes(StandardCharsets.UTF_8)), "application/json");
+    }
+
     @Test
     public void testList() {
         final List<Employee> employees = new ArrayList<>();
@@ -152,7 +321,7 @@ public class EmployeeControllerTest {
             }
         });
 
-        List<EmployeeDto> list = target.list();
+        List<EmployeeDto> list = target.list(null, null, null, unconditional()).getBody();
 
         mockery.assertIsSatisfied();
         Assert.assertEquals(1, list.size());
@@ -161,10 +330,238 @@ public class EmployeeControllerTest {
     }
 
     @Test
-    public void testGetById() {
+    public void testListPage() {
+        final List<Employee> employees = new ArrayList<>();
+        employees.add(Employee.Builder.newInstance(4L, "firstname", "lastname", "ldapUsername", "title", "grade").build());
+        employees.add(Employee.Builder.newInstance(5L, "firstname", "lastname", "ldapUsername", "title", "grade").build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getPage(3L, 2);
+                will(returnValue(employees));
+            }
+        });
+
+        ResponseEntity<List<EmployeeDto>> actual = target.list(2, 3L, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.getBody().size());
+        Assert.assertEquals("5", actual.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testListLastPage() {
+        final List<Employee> employees = new ArrayList<>();
+        employees.add(Employee.Builder.newInstance(4L, "firstname", "lastname", "ldapUsername", "title", "grade").build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getPage(null, 2);
+                will(returnValue(employees));
+            }
+        });
+
+        ResponseEntity<List<EmployeeDto>> actual = target.list(2, null, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, actual.getBody().size());
+        Assert.assertFalse(actual.getHeaders().containsKey(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    public void testListSparse() {
+        final Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 4L);
+        row.put("lastname", "lastname");
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getAll(Arrays.asList("lastname", "id"));
+                will(returnValue(Arrays.asList(row)));
+            }
+        });
+
+        final List<EmployeeDto> actual = target.list(null, null, "lastname, id,lastname", unconditional()).getBody();
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Long.valueOf(4L), actual.get(0).getId());
+        Assert.assertEquals("lastname", actual.get(0).getLastname());
+        Assert.assertNull(actual.get(0).getFirstname());
+    }
+
+    @Test
+    public void testListPageSparse() {
+        final Map<String, Object> row = new LinkedHashMap<>();
+        row.put("id", 5L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getPage(Arrays.asList("id"), 3L, 1);
+                will(returnValue(Arrays.asList(row)));
+            }
+        });
+
+        final ResponseEntity<List<EmployeeDto>> actual = target.list(1, 3L, "id", unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("5", actual.getHeaders().getFirst(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testListWhenFieldUnknown() {
+        target.list(null, null, "firstname,name", unconditional());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testListPageWhenLimitInvalid() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getPage(null, 0);
+                will(throwException(new IllegalArgumentException()));
+            }
+        });
+
+        target.list(0, null, null, unconditional());
+    }
+
+    @Test
+    public void testExport() throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Employee employee1 = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").build();
+        final Employee employee2 = Employee.Builder.newInstance(2L, "firstname", "lastname", "b", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).forEach(with(Expectations.<Consumer<Employee>> anything()));
+                will(new CustomAction("feed two employees") {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(final Invocation invocation) {
+                        final Consumer<Employee> consumer = (Consumer<Employee>) invocation.getParameter(0);
+                        consumer.accept(employee1);
+                        consumer.accept(employee2);
+                        return null;
+                    }
+                });
+            }
+        });
+
+        final ResponseEntity<StreamingResponseBody> actual = target.export(null, unconditional());
+        actual.getBody().writeTo(body);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("application/json;charset=UTF-8", actual.getHeaders().getContentType().toString());
+        final String json = new String(body.toByteArray(), StandardCharsets.UTF_8);
+        Assert.assertTrue(json.startsWith("[{\"id\":1,"));
+        Assert.assertTrue(json.contains("},{\"id\":2,"));
+        Assert.assertTrue(json.endsWith("}]"));
+    }
+
+    @Test
+    public void testExportAsCbor() throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").build();
+        final WebRequest request = mockery.mock(WebRequest.class);
+
+        mockery.checking(new Expectations() {
+            {
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue("application/json;q=0.5, application/cbor"));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                oneOf(employeeService).getTableVersion();
+                will(returnValue("v1"));
+
+                oneOf(request).checkNotModified("employees-v1-cbor");
+                will(returnValue(false));
+
+                oneOf(employeeService).forEach(with(Expectations.<Consumer<Employee>> anything()));
+                will(new CustomAction("feed one employee") {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(final Invocation invocation) {
+                        ((Consumer<Employee>) invocation.getParameter(0)).accept(employee);
+                        return null;
+                    }
+                });
+            }
+        });
+
+        final ResponseEntity<StreamingResponseBody> actual = target.export(null, request);
+        actual.getBody().writeTo(body);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(MediaTypes.CBOR, actual.getHeaders().getContentType().toString());
+        final JsonNode rows = new ObjectMapper(new CBORFactory()).readTree(body.toByteArray());
+        Assert.assertEquals(1, rows.size());
+        Assert.assertEquals("lastname", rows.get(0).get("lastname").asText());
+    }
+
+    @Test
+    public void testExportSparse() throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).forEach(with(Expectations.<Consumer<Employee>> anything()));
+                will(new CustomAction("feed one employee") {
+                    @Override
+                    @SuppressWarnings("unchecked")
+                    public Object invoke(final Invocation invocation) {
+                        ((Consumer<Employee>) invocation.getParameter(0)).accept(employee);
+                        return null;
+                    }
+                });
+            }
+        });
+
+        target.export("lastname", unconditional()).getBody().writeTo(body);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("[{\"id\":1,\"lastname\":\"lastname\"}]", new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testGetByIds() {
+        final List<Long> ids = Arrays.asList(2L, 1L, 3L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getByIds(ids);
+                will(returnValue(Arrays.asList(Employee.Builder.newInstance(1L, "f", "l", "a", "t", "g").build())));
+            }
+        });
+
+        final ResponseEntity<List<EmployeeDto>> actual = target.getByIds(ids, null, unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, actual.getBody().size());
+        Assert.assertEquals("2,3", actual.getHeaders().getFirst(MultiGet.MISSING_IDS_HEADER));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdsWhenIllegalArgumentExceptionThrown() {
+        final List<Long> ids = Arrays.asList(1L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getByIds(ids);
+                will(throwException(new IllegalArgumentException()));
+            }
+        });
+
+        target.getByIds(ids, null, unconditional());
+    }
+
+    @Test
+    public void testGetById() throws IOException {
         final Employee employee = Employee.Builder.newInstance("firstname", "lastname", "ldapUsername", "title", "grade").build();
         final EmployeeDto employeeDto = new EmployeeDto(employee);
         final Long id = 1L;
+        uncached();
 
         mockery.checking(new Expectations() {
             {
@@ -173,11 +570,254 @@ public class EmployeeControllerTest {
             }
         });
 
-        final EmployeeDto actual = target.getById(id);
+        final ResponseEntity<byte[]> actual = target.getById(id, null, unconditional());
 
         mockery.assertIsSatisfied();
-        Assert.assertEquals(employeeDto.getFirstname(), actual.getFirstname());
-        Assert.assertEquals(employeeDto.getLastname(), actual.getLastname());
+        Assert.assertEquals(MediaType.parseMediaType(MediaTypes.JSON), actual.getHeaders().getContentType());
+        Assert.assertEquals(employeeDto.getFirstname(), decode(actual).getFirstname());
+        Assert.assertEquals(employeeDto.getLastname(), decode(actual).getLastname());
+    }
+
+    @Test
+    public void testGetByIdWithFields() throws IOException {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(encodedEntities).get(Employee.class, 1L, "json;lastname,firstname");
+                will(returnValue(null));
+
+                oneOf(encodedEntities).get(with(Employee.class), with(1L), with("json;lastname,firstname"), with(CoreMatchers.<Supplier<EncodedEntity>> instanceOf(Supplier.class)));
+                will(new CustomAction("load") {
+                    @Override
+                    public Object invoke(final Invocation invocation) {
+                        return ((Supplier<?>) invocation.getParameter(3)).get();
+                    }
+                });
+
+                oneOf(employeeService).getById(1L);
+                will(returnValue(employee));
+            }
+        });
+
+        final ResponseEntity<byte[]> actual = target.getById(1L, "lastname,firstname", unconditional());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("{\"id\":1,\"firstname\":\"firstname\",\"lastname\":\"lastname\"}", new String(actual.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdWhenFieldUnknown() {
+        target.getById(1L, "salary", unconditional());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetByIdWhenFieldOfDepartment() {
+        target.getById(1L, "openPositions", unconditional());
+    }
+
+    @Test
+    public void testGetByIdFromCache() {
+        final byte[] bytes = "{}".getBytes(StandardCharsets.UTF_8);
+        final WebRequest request = mockery.mock(WebRequest.class);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(encodedEntities).get(Employee.class, 1L, "cbor");
+                will(returnValue(new EncodedEntity(3L, bytes)));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(MediaTypes.CBOR));
+
+                oneOf(request).checkNotModified("employee-1-3-cbor");
+                will(returnValue(false));
+
+                never(employeeService).getById(1L);
+            }
+        });
+
+        final ResponseEntity<byte[]> actual = target.getById(1L, null, request);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(bytes, actual.getBody());
+        Assert.assertEquals(MediaType.parseMediaType(MediaTypes.CBOR), actual.getHeaders().getContentType());
+    }
+
+    @Test
+    public void testGetByIdNotModifiedFromCache() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(encodedEntities).get(Employee.class, 1L, "json");
+                will(returnValue(new EncodedEntity(2L, new byte[0])));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified("employee-1-2");
+                will(returnValue(true));
+
+                never(employeeService).getVersionById(1L);
+            }
+        });
+
+        Assert.assertNull(target.getById(1L, null, request));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetByIdTagsVersion() throws IOException {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").build();
+        final WebRequest request = mockery.mock(WebRequest.class);
+        uncached();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue(null));
+
+                oneOf(employeeService).getById(1L);
+                will(returnValue(employee));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified("employee-1-0");
+                will(returnValue(false));
+            }
+        });
+
+        final ResponseEntity<byte[]> actual = target.getById(1L, null, request);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("firstname", decode(actual).getFirstname());
+    }
+
+    @Test
+    public void testGetByIdNotModified() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+        uncached();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue("\"employee-1-2\""));
+
+                oneOf(employeeService).getVersionById(1L);
+                will(returnValue(2L));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified("employee-1-2");
+                will(returnValue(true));
+
+                never(employeeService).getById(1L);
+            }
+        });
+
+        Assert.assertNull(target.getById(1L, null, request));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetByIdTagsFormat() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+        uncached();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(request).getHeader(HttpHeaders.IF_NONE_MATCH);
+                will(returnValue("\"employee-1-2\""));
+
+                oneOf(employeeService).getVersionById(1L);
+                will(returnValue(2L));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(MediaTypes.SMILE));
+
+                oneOf(request).checkNotModified("employee-1-2-x-jackson-smile");
+                will(returnValue(true));
+            }
+        });
+
+        Assert.assertNull(target.getById(1L, null, request));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testListNotModified() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getTableVersion();
+                will(returnValue("v1"));
+
+                allowing(request).getParameterMap();
+                will(returnValue(Collections.emptyMap()));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+
+                oneOf(request).checkNotModified("employees-v1");
+                will(returnValue(true));
+
+                never(employeeService).getAll();
+            }
+        });
+
+        Assert.assertNull(target.list(null, null, null, request));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testListTagDependsOnParameters() {
+        final WebRequest request = mockery.mock(WebRequest.class);
+        final Map<String, String[]> parameters = new LinkedHashMap<>();
+        parameters.put("limit", new String[] { "1" });
+        parameters.put("after", new String[] { "3" });
+        final Map<String, String[]> reordered = new LinkedHashMap<>();
+        reordered.put("after", new String[] { "3" });
+        reordered.put("limit", new String[] { "1" });
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(request).getParameterMap();
+                will(returnValue(parameters));
+
+                oneOf(request).getParameterMap();
+                will(returnValue(reordered));
+
+                oneOf(request).getParameterMap();
+                will(returnValue(Collections.singletonMap("limit", new String[] { "2" })));
+
+                allowing(request).getHeader(HttpHeaders.ACCEPT);
+                will(returnValue(null));
+            }
+        });
+
+        final String tag = ETags.ofTable("employees", "v1", request);
+
+        Assert.assertTrue(tag.startsWith("employees-v1-"));
+        Assert.assertEquals(tag, ETags.ofTable("employees", "v1", request));
+        Assert.assertNotEquals(tag, ETags.ofTable("employees", "v1", request));
     }
 
     @Test(expected = NotFoundException.class)
@@ -216,6 +856,66 @@ public class EmployeeControllerTest {
         Assert.assertEquals(departmentDto.getOpenPositions(), actual.getOpenPositions());
     }
 
+    @Test
+    public void testPatch() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").departmentId(2L).build();
+        final Map<String, Object> patch = new LinkedHashMap<>();
+        patch.put("title", "manager");
+        patch.put("gender", "female");
+        patch.put("departmentId", null);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).patch(with(1L), with(any(EmployeePatch.class)));
+                will(new CustomAction("apply the patch") {
+                    @Override
+                    public Object invoke(final Invocation invocation) {
+                        final EmployeePatch employeePatch = (EmployeePatch) invocation.getParameter(1);
+                        employee.update(employeePatch.firstnameOf(employee), employeePatch.lastnameOf(employee), employeePatch.genderOf(employee),
+                                        employeePatch.birthdateOf(employee), employeePatch.titleOf(employee), employeePatch.gradeOf(employee),
+                                        employeePatch.departmentIdOf(employee));
+                        return employee;
+                    }
+                });
+            }
+        });
+
+        EmployeeDto actual = target.patch(1L, patch);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("manager", actual.getTitle());
+        Assert.assertEquals("firstname", actual.getFirstname());
+        Assert.assertEquals(Gender.Female, actual.getGender());
+        Assert.assertNull(actual.getDepartmentId());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenLdapUsernameGiven() {
+        target.patch(1L, Collections.<String, Object> singletonMap("ldapUsername", "other"));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenTitleCleared() {
+        target.patch(1L, Collections.<String, Object> singletonMap("title", null));
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testPatchWhenGenderUnknown() {
+        target.patch(1L, Collections.<String, Object> singletonMap("gender", "unknown"));
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testPatchWhenEmployeeNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).patch(with(1L), with(any(EmployeePatch.class)));
+                will(returnValue(null));
+            }
+        });
+
+        target.patch(1L, Collections.<String, Object> singletonMap("title", "manager"));
+    }
+
     @Test(expected = NotFoundException.class)
     public void testRemoveByIdWhenEntityNotFoundExceptionThrow() {
         final Long id = 1L;
@@ -262,4 +962,68 @@ public class EmployeeControllerTest {
 
         mockery.assertIsSatisfied();
     }
+
+    @Test
+    public void testGetLowestCommonDepartment() {
+        final Department department = Department.Builder.newInstance(1L, "root", 1).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getLowestCommonDepartment(2L, 3L);
+                will(returnValue(new CommonAncestor(department, 0, 1)));
+            }
+        });
+
+        final CommonAncestorDto actual = target.getLowestCommonDepartment(2L, 3L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(department.getId(), actual.getDepartment().getId());
+        Assert.assertEquals(1, actual.getDistance());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetLowestCommonDepartmentWhenNoneShared() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getLowestCommonDepartment(2L, 3L);
+                will(returnValue(null));
+            }
+        });
+
+        target.getLowestCommonDepartment(2L, 3L);
+    }
+
+    @Test
+    public void testGetReportingChainOf() {
+        final Long id = 1L;
+        final List<Employee> employees = new ArrayList<>();
+        employees.add(Employee.Builder.newInstance(2L, "firstname", "lastname", "boss", "title", "grade").build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getReportingChain(id);
+                will(returnValue(employees));
+            }
+        });
+
+        List<EmployeeDto> actual = target.getReportingChainOf(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, actual.size());
+        Assert.assertEquals(Long.valueOf(2L), actual.get(0).getId());
+    }
+
+    @Test(expected = NotFoundException.class)
+    public void testGetReportingChainOfWhenEntityNotFoundExceptionThrown() {
+        final Long id = 1L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeService).getReportingChain(id);
+                will(throwException(new EntityNotFoundException()));
+            }
+        });
+
+        target.getReportingChainOf(id);
+    }
 }
\ No newline at end of file
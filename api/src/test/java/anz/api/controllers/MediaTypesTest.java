@@ -0,0 +1,40 @@
+package anz.api.controllers;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import anz.api.controllers.dtos.DepartmentDto;
+import anz.core.domain.models.Department;
+
+public class MediaTypesTest {
+    @Test
+    public void testNegotiate() {
+        Assert.assertEquals(MediaTypes.JSON, MediaTypes.negotiate(null).toString());
+        Assert.assertEquals(MediaTypes.JSON, MediaTypes.negotiate("*/*").toString());
+        Assert.assertEquals(MediaTypes.JSON, MediaTypes.negotiate("application/json").toString());
+        Assert.assertEquals(MediaTypes.SMILE, MediaTypes.negotiate(MediaTypes.SMILE).toString());
+        Assert.assertEquals(MediaTypes.CBOR, MediaTypes.negotiate("application/json;q=0.5, application/cbor").toString());
+        Assert.assertEquals(MediaTypes.JSON, MediaTypes.negotiate("application/cbor;q=0, */*").toString());
+    }
+
+    @Test
+    public void testMapperOf() throws IOException {
+        Assert.assertTrue(MediaTypes.mapperOf(MediaType.parseMediaType(MediaTypes.SMILE)).getFactory() instanceof SmileFactory);
+        Assert.assertTrue(MediaTypes.mapperOf(MediaType.parseMediaType(MediaTypes.CBOR)).getFactory() instanceof CBORFactory);
+        Assert.assertFalse(MediaTypes.mapperOf(MediaType.parseMediaType("application/x-ndjson")).getFactory() instanceof SmileFactory);
+
+        final DepartmentDto departmentDto = new DepartmentDto(Department.Builder.newInstance(1L, "test", 2).location("aa").build());
+        final byte[] smile = MediaTypes.mapperOf(MediaType.parseMediaType(MediaTypes.SMILE)).writeValueAsBytes(departmentDto);
+        final DepartmentDto actual = MediaTypes.mapperOf(MediaType.parseMediaType(MediaTypes.SMILE)).readValue(smile, DepartmentDto.class);
+
+        Assert.assertEquals("test", actual.getName());
+        Assert.assertEquals("aa", actual.getLocation());
+        Assert.assertEquals(2, actual.getOpenPositions());
+    }
+}
\ No newline at end of file
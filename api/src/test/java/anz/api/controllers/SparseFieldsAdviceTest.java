@@ -0,0 +1,60 @@
+package anz.api.controllers;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServletServerHttpRequest;
+
+import anz.api.controllers.dtos.SparseFields;
+import anz.api.controllers.exceptions.BadRequestException;
+
+public class SparseFieldsAdviceTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private HttpServletRequest servletRequest = mockery.mock(HttpServletRequest.class);
+
+    private SparseFieldsAdvice target = new SparseFieldsAdvice();
+
+    @Test
+    public void testGetIsFiltered() {
+        final MappingJacksonValue body = write("GET", "name");
+
+        Assert.assertNotSame(SparseFields.ALL, body.getFilters());
+    }
+
+    @Test(expected = BadRequestException.class)
+    public void testGetWhenFieldUnknown() {
+        write("GET", "unknown");
+    }
+
+    @Test
+    public void testWriteIsNotFilteredWhenFieldUnknown() {
+        final MappingJacksonValue body = write("POST", "unknown");
+
+        Assert.assertSame(SparseFields.ALL, body.getFilters());
+    }
+
+    private MappingJacksonValue write(final String method, final String fields) {
+        mockery.checking(new Expectations() {
+            {
+                allowing(servletRequest).getMethod();
+                will(returnValue(method));
+
+                allowing(servletRequest).getParameter(SparseFields.PARAMETER);
+                will(returnValue(fields));
+            }
+        });
+        final MappingJacksonValue body = new MappingJacksonValue(new Object());
+        target.beforeBodyWriteInternal(body, null, null, new ServletServerHttpRequest(servletRequest), null);
+        return body;
+    }
+}
\ No newline at end of file
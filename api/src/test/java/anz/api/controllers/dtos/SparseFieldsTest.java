@@ -0,0 +1,59 @@
+package anz.api.controllers.dtos;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentNode;
+
+public class SparseFieldsTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testParse() {
+        Assert.assertNull(SparseFields.parse(null, DepartmentDto.FIELDS));
+        Assert.assertEquals(Arrays.asList("name", "id"), SparseFields.parse("name, id,name", DepartmentDto.FIELDS));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWhenFieldUnknown() {
+        SparseFields.parse("name,firstname", DepartmentDto.FIELDS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseWhenEmpty() {
+        SparseFields.parse(" , ", DepartmentDto.FIELDS);
+    }
+
+    @Test
+    public void testFilterKeepsIdAndFields() throws JsonProcessingException {
+        final DepartmentDto departmentDto = new DepartmentDto(Department.Builder.newInstance(1L, "d", 2).location("x").build());
+
+        final String actual = objectMapper.writer(SparseFields.filterOf(Arrays.asList("name"))).writeValueAsString(departmentDto);
+
+        Assert.assertEquals("{\"id\":1,\"name\":\"d\"}", actual);
+    }
+
+    @Test
+    public void testFilterKeepsDepthOfDepartmentNodes() throws JsonProcessingException {
+        final DepartmentNodeDto departmentNodeDto = new DepartmentNodeDto(new DepartmentNode(Department.Builder.newInstance(1L, "d", 2).build(), 3));
+
+        final String actual = objectMapper.writer(SparseFields.filterOf(Arrays.asList("openPositions"))).writeValueAsString(departmentNodeDto);
+
+        Assert.assertEquals("{\"id\":1,\"openPositions\":2,\"depth\":3}", actual);
+    }
+
+    @Test
+    public void testAllKeepsEveryField() throws JsonProcessingException {
+        final DepartmentDto departmentDto = new DepartmentDto(Department.Builder.newInstance(1L, "d", 2).build());
+
+        final String actual = objectMapper.writer(SparseFields.ALL).writeValueAsString(departmentDto);
+
+        Assert.assertTrue(actual.contains("\"parentDepartmentId\":null"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package anz.core.application;
+
+import java.util.List;
+
+import anz.core.domain.models.CacheRegionStatistics;
+
+public interface CacheStatistics {
+    // one row per region of the second level cache, the query cache included, empty when the cache is switched off
+    List<CacheRegionStatistics> getRegions();
+
+    void clear();
+}
\ No newline at end of file
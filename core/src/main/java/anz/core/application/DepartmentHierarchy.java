@@ -0,0 +1,29 @@
+package anz.core.application;
+
+import java.util.List;
+import java.util.Set;
+
+public interface DepartmentHierarchy {
+    boolean contains(final long id);
+
+    Long getParentId(final long id);
+
+    Set<Long> getChildIds(final long id);
+
+    // true when descendantId is ancestorId itself or sits anywhere below it
+    boolean isDescendantOf(final long descendantId, final long ancestorId);
+
+    // 0 for a top level department, -1 when the department is unknown
+    int getDepth(final long id);
+
+    // the deepest department that both are, or sit under, null when either is unknown or they share no ancestor
+    Long getLowestCommonAncestorId(final long id, final long otherId);
+
+    // the department itself followed by its whole subtree in depth-first order
+    List<Long> getSubtreeIds(final long id);
+
+    // put and remove take effect when the current transaction commits, and never when it rolls back
+    void put(final long id, final Long parentId);
+
+    void remove(final long id);
+}
\ No newline at end of file
@@ -0,0 +1,18 @@
+package anz.core.application;
+
+import anz.core.domain.models.DepartmentRollup;
+
+public interface DepartmentRollups {
+    DepartmentRollup get(final long id);
+
+    // the changes take effect when the current transaction commits, and never when it rolls back
+    void addDepartment(final long id, final Long parentId, final int openPositions);
+
+    void updateDepartment(final long id, final Long parentId, final int openPositions);
+
+    void removeDepartment(final long id);
+
+    void addEmployee(final Long departmentId);
+
+    void removeEmployee(final Long departmentId);
+}
\ No newline at end of file
@@ -1,24 +1,66 @@
 package anz.core.application;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentImport;
+import anz.core.domain.models.DepartmentNode;
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.DepartmentRollup;
 import anz.core.domain.models.Employee;
 
 public interface DepartmentService {
     Department create(final Department department);
 
+    // creates every row or none of them, rows may come before their parents, the created departments are returned in the same order
+    List<Department> createTree(final List<DepartmentImport> imports);
+
     List<Department> getAll();
 
+    void forEach(final Consumer<Department> consumer);
+
+    List<Department> getPage(final Long after, final int limit);
+
+    List<Map<String, Object>> getAll(final List<String> fields);
+
+    List<Map<String, Object>> getPage(final List<String> fields, final Long after, final int limit);
+
+    List<Map<String, Object>> getByIds(final List<String> fields, final List<Long> ids);
+
     Department getById(final long id);
 
+    // the @Version of the department without reading the rest of the row, null when there is no such department
+    Long getVersionById(final long id);
+
+    // moves on every write to the department table, never repeats
+    String getTableVersion();
+
+    // the departments with the given ids in the order asked for, each at most once, ids that match no department are left out
+    List<Department> getByIds(final List<Long> ids);
+
     Department getParentById(final long id);
 
     List<Department> getSubDepartmentsById(final long id);
 
+    List<DepartmentNode> getDescendants(final long id, final int maxDepth);
+
+    List<DepartmentNode> getAncestors(final long id);
+
+    DepartmentNode getAncestor(final long id, final long ancestorId);
+
     List<Employee> getEmployees(long id);
 
+    DepartmentRollup getRollup(final long id);
+
+    CommonAncestor getLowestCommonAncestor(final long id, final long otherId);
+
     Department update(final Department department);
 
+    // only the fields the patch sets are written, and only those that change are checked. null when there is no such department
+    Department patch(final long id, final DepartmentPatch patch);
+
     void removeById(final long id);
 }
\ No newline at end of file
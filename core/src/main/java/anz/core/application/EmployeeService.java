@@ -1,18 +1,56 @@
 package anz.core.application;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EmployeePatch;
+import anz.core.domain.models.ImportResult;
 
 public interface EmployeeService {
     Employee create(final Employee employee);
 
+    // one result per employee in the same order, rows that fail validation are reported and the others are still created
+    List<ImportResult> createAll(final List<Employee> employees);
+
     List<Employee> getAll();
 
+    // every employee in id order, without holding more than one of them in memory
+    void forEach(final Consumer<Employee> consumer);
+
+    // at most limit rows with an id greater than after, in id order
+    List<Employee> getPage(final Long after, final int limit);
+
+    // sparse variants of getAll, getPage and getByIds, each row maps the id and the given fields to their values and no other column is read
+    List<Map<String, Object>> getAll(final List<String> fields);
+
+    List<Map<String, Object>> getPage(final List<String> fields, final Long after, final int limit);
+
+    List<Map<String, Object>> getByIds(final List<String> fields, final List<Long> ids);
+
     Employee getById(final long id);
 
+    // the @Version of the employee without reading the rest of the row, null when there is no such employee
+    Long getVersionById(final long id);
+
+    // moves on every write to the employee table, never repeats
+    String getTableVersion();
+
+    // the employees with the given ids in the order asked for, each at most once, ids that match no employee are left out
+    List<Employee> getByIds(final List<Long> ids);
+
     Department getDepartmentOf(final long id);
 
+    List<Employee> getReportingChain(final long id);
+
+    CommonAncestor getLowestCommonDepartment(final long id, final long otherId);
+
+    // only the fields the patch sets are written, a department is only checked when the employee moves to it. null when there is
+    // no such employee
+    Employee patch(final long id, final EmployeePatch patch);
+
     void removeById(final long id);
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package anz.core.application;
+
+import java.util.function.Supplier;
+
+import anz.core.domain.models.EncodedEntity;
+
+// encoded rows kept per id and variant, a variant being whatever else shapes the bytes, such as the format or the fields written
+public interface EncodedEntities {
+    // null when nothing is cached for the id and variant
+    EncodedEntity get(final Class<?> entityType, final long id, final String variant);
+
+    // the cached entity, otherwise the loaded one, null when the loader finds no row
+    EncodedEntity get(final Class<?> entityType, final long id, final String variant, final Supplier<EncodedEntity> loader);
+
+    // drops every variant of the row, once now and once more when the surrounding transaction completes
+    void evict(final Class<?> entityType, final long id);
+}
\ No newline at end of file
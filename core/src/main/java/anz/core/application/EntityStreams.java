@@ -0,0 +1,9 @@
+package anz.core.application;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+public interface EntityStreams {
+    // hands the entities to the consumer one at a time and detaches each afterwards, so the persistence context stays empty
+    <T> void forEach(final Stream<T> entities, final Consumer<? super T> consumer);
+}
\ No newline at end of file
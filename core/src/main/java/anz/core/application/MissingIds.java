@@ -0,0 +1,13 @@
+package anz.core.application;
+
+import java.util.Collection;
+import java.util.function.Supplier;
+
+// ids that were looked up and found missing, so asking for them again does not reach the database
+public interface MissingIds {
+    // null without calling the loader while the id is known to be missing, otherwise whatever the loader returns, remembering the id when that is null
+    <T> T get(final Class<?> entityType, final long id, final Supplier<T> loader);
+
+    // forgets the ids, once now and once more when the surrounding transaction completes
+    void created(final Class<?> entityType, final Collection<Long> ids);
+}
\ No newline at end of file
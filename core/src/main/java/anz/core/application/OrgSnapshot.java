@@ -0,0 +1,27 @@
+package anz.core.application;
+
+import java.util.List;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+
+// every department and employee as of one point in time, nothing about it changes once it is published.
+// the entities it returns are copies, the caller may change them
+public interface OrgSnapshot {
+    // grows with every snapshot that is published
+    long getVersion();
+
+    Department getDepartment(final long id);
+
+    Employee getEmployee(final long id);
+
+    // at most limit rows with an id greater than after, in id order, limit 0 means every row
+    List<Department> getDepartments(final Long after, final int limit);
+
+    List<Employee> getEmployees(final Long after, final int limit);
+
+    // in id order, empty when the department is unknown
+    List<Department> getSubDepartments(final long id);
+
+    List<Employee> getEmployeesOf(final long departmentId);
+}
\ No newline at end of file
@@ -0,0 +1,20 @@
+package anz.core.application;
+
+import java.util.Collection;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+
+public interface OrgSnapshots {
+    // the latest published snapshot, null unless snapshot reads are turned on
+    OrgSnapshot current();
+
+    // each change is published as a new snapshot once the surrounding transaction commits, and dropped when it rolls back
+    void departmentsSaved(final Collection<Department> departments);
+
+    void departmentRemoved(final long id);
+
+    void employeesSaved(final Collection<Employee> employees);
+
+    void employeeRemoved(final long id);
+}
\ No newline at end of file
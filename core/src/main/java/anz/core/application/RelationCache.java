@@ -0,0 +1,14 @@
+package anz.core.application;
+
+import java.util.Collection;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public interface RelationCache {
+    // the result cached under key, otherwise the loaded one, which is kept until key or any of the tags taken from it is evicted,
+    // or until it is the least recently used result of a full cache
+    <T> T get(final String key, final Supplier<T> loader, final Function<T, Collection<String>> tagsOf);
+
+    // drops every result cached under or tagged with one of the tags, once now and once more when the surrounding transaction completes
+    void evict(final Collection<String> tags);
+}
\ No newline at end of file
@@ -0,0 +1,12 @@
+package anz.core.application;
+
+import java.util.List;
+
+public interface ReportingChains {
+    // managers of the department, its parent and so on up to the top level department, departments without a manager are skipped
+    List<Long> getManagerIds(final long departmentId);
+
+    void departmentUpdated(final long id, final Long managerId, final Long parentId);
+
+    void departmentRemoved(final long id);
+}
\ No newline at end of file
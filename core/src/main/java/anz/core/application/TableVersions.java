@@ -0,0 +1,8 @@
+package anz.core.application;
+
+public interface TableVersions {
+    // changes whenever a row of the entity's table is written, and across restarts
+    String get(final Class<?> entityType);
+
+    void changed(final Class<?> entityType);
+}
\ No newline at end of file
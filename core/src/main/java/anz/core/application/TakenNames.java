@@ -0,0 +1,10 @@
+package anz.core.application;
+
+// the ldap usernames of employees and the names of departments, department names ignoring case
+public interface TakenNames {
+    // false only when no row of the entity's table has the name, true means the database has to be asked
+    boolean mightBeTaken(final Class<?> entityType, final String name);
+
+    // every write that stores a name has to report it, before its transaction commits
+    void taken(final Class<?> entityType, final String name);
+}
\ No newline at end of file
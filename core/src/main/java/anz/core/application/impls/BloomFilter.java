@@ -0,0 +1,84 @@
+package anz.core.application.impls;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a fixed size set of strings that can answer "maybe" for a string it never saw, but never "no" for one it did.
+// adds and lookups may run concurrently, a bit once set is never cleared
+final class BloomFilter {
+    private final AtomicLongArray words;
+
+    private final int bits;
+
+    private final int hashes;
+
+    private final int capacity;
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    // sized so that the false positive rate stays near falsePositiveRate until capacity strings were added
+    BloomFilter(final int capacity, final double falsePositiveRate) {
+        final double ln2 = Math.log(2);
+        final long wanted = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, wanted));
+        this.words = new AtomicLongArray((bits + 63) / 64);
+        this.hashes = Math.max(1, (int) Math.round((double) bits / capacity * ln2));
+        this.capacity = capacity;
+    }
+
+    void add(final String value) {
+        final long hash = hash(value);
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int index = 1; index <= hashes; index++) {
+            final int bit = indexOf(h1 + index * h2);
+            final int word = bit >>> 6;
+            final long mask = 1L << bit;
+            long current = words.get(word);
+            while (0 == (current & mask) && !words.compareAndSet(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+        size.incrementAndGet();
+    }
+
+    boolean mightContain(final String value) {
+        final long hash = hash(value);
+        final int h1 = (int) hash;
+        final int h2 = (int) (hash >>> 32);
+        for (int index = 1; index <= hashes; index++) {
+            final int bit = indexOf(h1 + index * h2);
+            if (0 == (words.get(bit >>> 6) & (1L << bit))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    boolean isFull() {
+        return size.get() >= capacity;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    private int indexOf(final int combined) {
+        return (combined & Integer.MAX_VALUE) % bits;
+    }
+
+    // 64 bit FNV-1a over the chars, finished with the murmur3 mix so both halves are usable as independent hashes
+    private static long hash(final String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int index = 0; index < value.length(); index++) {
+            hash ^= value.charAt(index);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
\ No newline at end of file
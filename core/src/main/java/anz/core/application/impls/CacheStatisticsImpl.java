@@ -0,0 +1,51 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.application.CacheStatistics;
+import anz.core.domain.models.CacheRegionStatistics;
+
+// reads hibernate's statistics, which only count while hibernate.generate_statistics is on
+@Component
+class CacheStatisticsImpl implements CacheStatistics {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Autowired(required = true)
+    CacheStatisticsImpl(final EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public List<CacheRegionStatistics> getRegions() {
+        final Statistics statistics = statistics();
+        final String[] names = statistics.getSecondLevelCacheRegionNames();
+        Arrays.sort(names);
+        final List<CacheRegionStatistics> result = new ArrayList<>(names.length);
+        for (final String name : names) {
+            final SecondLevelCacheStatistics region = statistics.getSecondLevelCacheStatistics(name);
+            if (null != region) {
+                result.add(new CacheRegionStatistics(name, region.getHitCount(), region.getMissCount(), region.getPutCount(), region.getElementCountInMemory()));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        statistics().clear();
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,22 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// splits the values of a set based lookup so every in list stays within what the database takes as bind parameters
+final class Chunks {
+    private static final int SIZE = 1000;
+
+    private Chunks() {
+    }
+
+    static <T> List<List<T>> of(final Collection<T> values) {
+        final List<T> all = new ArrayList<>(values);
+        final List<List<T>> result = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += SIZE) {
+            result.add(all.subList(from, Math.min(from + SIZE, all.size())));
+        }
+        return result;
+    }
+}
\ No newline at end of file
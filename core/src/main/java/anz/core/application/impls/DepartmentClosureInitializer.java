@@ -0,0 +1,31 @@
+package anz.core.application.impls;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.repositories.DepartmentClosureRepository;
+import anz.core.repositories.DepartmentRepository;
+
+// hbm2ddl creates the closure table empty, so existing trees are backfilled once, and again if it ever drifts out of sync
+@Component
+class DepartmentClosureInitializer {
+    private final DepartmentRepository departmentRepository;
+
+    private final DepartmentClosureRepository departmentClosureRepository;
+
+    @Autowired(required = true)
+    DepartmentClosureInitializer(final DepartmentRepository departmentRepository, final DepartmentClosureRepository departmentClosureRepository) {
+        this.departmentRepository = departmentRepository;
+        this.departmentClosureRepository = departmentClosureRepository;
+    }
+
+    @PostConstruct
+    void rebuildIfOutOfSync() {
+        if (departmentClosureRepository.countByDepth(0) == departmentRepository.count()) {
+            return;
+        }
+        departmentClosureRepository.rebuildAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,383 @@
+package anz.core.application.impls;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.application.DepartmentHierarchy;
+import anz.core.domain.models.Department;
+import anz.core.repositories.DepartmentRepository;
+
+// parent and children links of every department, loaded once and then kept in sync by the department service as its changes commit
+@Component
+class DepartmentHierarchyImpl implements DepartmentHierarchy {
+    private static final long NO_PARENT = -1L;
+
+    private final DepartmentRepository departmentRepository;
+
+    private final ConcurrentMap<Long, Long> parents = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, Set<Long>> children = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    // odd while a write is in progress, so a snapshot is only trusted when it was built at the current even version
+    private final AtomicLong version = new AtomicLong();
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+
+    private volatile Snapshot snapshot;
+
+    private volatile boolean loaded;
+
+    @Autowired(required = true)
+    DepartmentHierarchyImpl(final DepartmentRepository departmentRepository) {
+        this.departmentRepository = departmentRepository;
+    }
+
+    @Override
+    public boolean contains(final long id) {
+        ensureLoaded();
+        return parents.containsKey(id);
+    }
+
+    @Override
+    public Long getParentId(final long id) {
+        ensureLoaded();
+        final Long parentId = parents.get(id);
+        return null == parentId || NO_PARENT == parentId ? null : parentId;
+    }
+
+    @Override
+    public Set<Long> getChildIds(final long id) {
+        ensureLoaded();
+        final Set<Long> childIds = children.get(id);
+        if (null == childIds) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(new HashSet<>(childIds));
+    }
+
+    @Override
+    public boolean isDescendantOf(final long descendantId, final long ancestorId) {
+        if (descendantId == ancestorId) {
+            return true;
+        }
+        ensureLoaded();
+        final Snapshot current = currentSnapshot();
+        if (null != current) {
+            return current.isDescendantOf(descendantId, ancestorId);
+        }
+        // bounded by the number of departments so a corrupted chain cannot loop forever
+        int remaining = parents.size() + 1;
+        Long id = descendantId;
+        while (null != id && NO_PARENT != id && remaining-- > 0) {
+            if (ancestorId == id) {
+                return true;
+            }
+            id = parents.get(id);
+        }
+        return false;
+    }
+
+    @Override
+    public int getDepth(final long id) {
+        ensureLoaded();
+        final Snapshot current = currentSnapshot();
+        if (null != current) {
+            return current.getDepth(id);
+        }
+        return ancestorsOf(id).size() - 1;
+    }
+
+    @Override
+    public Long getLowestCommonAncestorId(final long id, final long otherId) {
+        ensureLoaded();
+        final Snapshot current = currentSnapshot();
+        if (null != current) {
+            return current.getLowestCommonAncestorId(id, otherId);
+        }
+        final Set<Long> ancestors = new HashSet<>(ancestorsOf(id));
+        for (final Long ancestorId : ancestorsOf(otherId)) {
+            if (ancestors.contains(ancestorId)) {
+                return ancestorId;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public List<Long> getSubtreeIds(final long id) {
+        ensureLoaded();
+        final Snapshot current = currentSnapshot();
+        if (null != current) {
+            return current.getSubtreeIds(id);
+        }
+        if (!parents.containsKey(id)) {
+            return Collections.emptyList();
+        }
+        final List<Long> result = new ArrayList<>();
+        final Deque<Long> pending = new ArrayDeque<>();
+        pending.push(id);
+        while (!pending.isEmpty()) {
+            final Long next = pending.pop();
+            result.add(next);
+            for (final Long childId : getChildIds(next)) {
+                pending.push(childId);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(final long id, final Long parentId) {
+        afterCommit(() -> link(id, parentId));
+    }
+
+    @Override
+    public void remove(final long id) {
+        afterCommit(() -> {
+            final Long parentId = parents.remove(id);
+            if (null != parentId) {
+                childrenOf(parentId).remove(id);
+            }
+            children.remove(id);
+        });
+    }
+
+    // a link made by a transaction that rolls back would stay forever, and the cycle check of later moves would trust it
+    private void afterCommit(final Runnable change) {
+        Transactions.afterCommit(() -> apply(change));
+    }
+
+    // the first load happens here at the latest, after the commit, so it reads committed rows only and the change again does nothing
+    private void apply(final Runnable change) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            version.incrementAndGet();
+            try {
+                change.run();
+            } finally {
+                version.incrementAndGet();
+            }
+        }
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (loaded) {
+                return;
+            }
+            version.incrementAndGet();
+            try {
+                for (final Department department : departmentRepository.findAll()) {
+                    link(department.getId(), department.getParentDepartmentId());
+                }
+            } finally {
+                version.incrementAndGet();
+            }
+            loaded = true;
+        }
+    }
+
+    // returns null rather than waiting when the snapshot is stale and cannot be rebuilt right now, callers then walk the maps
+    private Snapshot currentSnapshot() {
+        final long expectedVersion = version.get();
+        final Snapshot current = snapshot;
+        if (null != current && current.version == expectedVersion) {
+            return current;
+        }
+        if (0 != (expectedVersion & 1) || !rebuilding.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            final Snapshot rebuilt = Snapshot.build(expectedVersion, parents.size(), children);
+            if (null == rebuilt || version.get() != expectedVersion) {
+                return null;
+            }
+            snapshot = rebuilt;
+            return rebuilt;
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    // the department itself first and its top level department last, empty when the department is unknown
+    private List<Long> ancestorsOf(final long id) {
+        final List<Long> result = new ArrayList<>();
+        int remaining = parents.size() + 1;
+        Long current = parents.containsKey(id) ? id : null;
+        while (null != current && NO_PARENT != current && remaining-- > 0) {
+            result.add(current);
+            current = parents.get(current);
+        }
+        return result;
+    }
+
+    private void link(final long id, final Long parentId) {
+        final long newParentId = null == parentId ? NO_PARENT : parentId;
+        final Long oldParentId = parents.put(id, newParentId);
+        if (null != oldParentId && oldParentId != newParentId) {
+            childrenOf(oldParentId).remove(id);
+        }
+        childrenOf(newParentId).add(id);
+    }
+
+    private Set<Long> childrenOf(final long parentId) {
+        Set<Long> childIds = children.get(parentId);
+        if (null == childIds) {
+            childIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+            final Set<Long> existing = children.putIfAbsent(parentId, childIds);
+            if (null != existing) {
+                childIds = existing;
+            }
+        }
+        return childIds;
+    }
+
+    // Euler tour labelling: a department is entered at positions.get(id) and its subtree ends at last[positions.get(id)],
+    // so "is A under B" is two integer comparisons and a subtree is one contiguous range of order.
+    // up[k][position] is the position of the 2^k-th ancestor (-1 above the top), which lifts a department to the
+    // lowest common ancestor in O(log depth) steps
+    private static final class Snapshot {
+        private final long version;
+
+        private final Map<Long, Integer> positions;
+
+        private final long[] order;
+
+        private final int[] last;
+
+        private final int[] depths;
+
+        private final int[][] up;
+
+        private Snapshot(final long version, final Map<Long, Integer> positions, final long[] order, final int[] last, final int[] depths, final int[][] up) {
+            this.version = version;
+            this.positions = positions;
+            this.order = order;
+            this.last = last;
+            this.depths = depths;
+            this.up = up;
+        }
+
+        static Snapshot build(final long version, final int size, final Map<Long, Set<Long>> children) {
+            final Map<Long, Integer> positions = new HashMap<>(size * 4 / 3 + 1);
+            final long[] order = new long[size];
+            final int[] last = new int[size];
+            final int[] depths = new int[size];
+            final int[][] up = new int[Math.max(1, 32 - Integer.numberOfLeadingZeros(size))][size];
+            final Deque<Integer> entered = new ArrayDeque<>();
+            final Deque<Iterator<Long>> pending = new ArrayDeque<>();
+            pending.push(sortedChildren(children, NO_PARENT));
+            int position = 0;
+            while (!pending.isEmpty()) {
+                final Iterator<Long> iterator = pending.peek();
+                if (!iterator.hasNext()) {
+                    pending.pop();
+                    if (!entered.isEmpty()) {
+                        last[entered.pop()] = position - 1;
+                    }
+                    continue;
+                }
+                final Long id = iterator.next();
+                // a write changed the maps while they were walked, the caller discards this attempt anyway
+                if (position == size || positions.containsKey(id)) {
+                    return null;
+                }
+                final int parent = entered.isEmpty() ? -1 : entered.peek();
+                positions.put(id, position);
+                order[position] = id;
+                depths[position] = -1 == parent ? 0 : depths[parent] + 1;
+                // ancestors are entered before their descendants, so every jump this row needs is already filled in
+                up[0][position] = parent;
+                for (int level = 1; level < up.length; level++) {
+                    final int half = up[level - 1][position];
+                    up[level][position] = -1 == half ? -1 : up[level - 1][half];
+                }
+                entered.push(position++);
+                pending.push(sortedChildren(children, id));
+            }
+            return new Snapshot(version, positions, order, last, depths, up);
+        }
+
+        private static Iterator<Long> sortedChildren(final Map<Long, Set<Long>> children, final long id) {
+            final Set<Long> childIds = children.get(id);
+            if (null == childIds || childIds.isEmpty()) {
+                return Collections.<Long> emptyList().iterator();
+            }
+            final Long[] sorted = childIds.toArray(new Long[childIds.size()]);
+            Arrays.sort(sorted);
+            return Arrays.asList(sorted).iterator();
+        }
+
+        boolean isDescendantOf(final long descendantId, final long ancestorId) {
+            final Integer descendant = positions.get(descendantId);
+            final Integer ancestor = positions.get(ancestorId);
+            if (null == descendant || null == ancestor) {
+                return false;
+            }
+            return isAncestor(ancestor, descendant);
+        }
+
+        int getDepth(final long id) {
+            final Integer position = positions.get(id);
+            return null == position ? -1 : depths[position];
+        }
+
+        Long getLowestCommonAncestorId(final long id, final long otherId) {
+            final Integer position = positions.get(id);
+            final Integer otherPosition = positions.get(otherId);
+            if (null == position || null == otherPosition) {
+                return null;
+            }
+            if (isAncestor(position, otherPosition)) {
+                return id;
+            }
+            // climb to the highest ancestor that still does not contain the other department, its parent is the answer
+            int current = position;
+            for (int level = up.length - 1; level >= 0; level--) {
+                final int next = up[level][current];
+                if (-1 != next && !isAncestor(next, otherPosition)) {
+                    current = next;
+                }
+            }
+            final int parent = up[0][current];
+            return -1 == parent ? null : order[parent];
+        }
+
+        private boolean isAncestor(final int ancestor, final int descendant) {
+            return ancestor <= descendant && descendant <= last[ancestor];
+        }
+
+        List<Long> getSubtreeIds(final long id) {
+            final Integer position = positions.get(id);
+            if (null == position) {
+                return Collections.emptyList();
+            }
+            final List<Long> result = new ArrayList<>(last[position] - position + 1);
+            for (int index = position; index <= last[position]; index++) {
+                result.add(order[index]);
+            }
+            return result;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,24 @@
+package anz.core.application.impls;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.repositories.DepartmentRepository;
+
+// hbm2ddl adds the lower case name column empty, so departments saved before it existed get theirs once at startup
+@Component
+class DepartmentLowerNameInitializer {
+    private final DepartmentRepository departmentRepository;
+
+    @Autowired(required = true)
+    DepartmentLowerNameInitializer(final DepartmentRepository departmentRepository) {
+        this.departmentRepository = departmentRepository;
+    }
+
+    @PostConstruct
+    void fillMissing() {
+        departmentRepository.fillLowerNames();
+    }
+}
\ No newline at end of file
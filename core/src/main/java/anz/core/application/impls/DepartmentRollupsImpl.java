@@ -0,0 +1,150 @@
+package anz.core.application.impls;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.application.DepartmentRollups;
+import anz.core.domain.models.DepartmentRollup;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// subtree totals per department, every change is applied as a delta to the department and each of its ancestors once it commits.
+// the parent links the deltas walk are kept here as well, a move changes its link and its totals in the same step
+@Component
+class DepartmentRollupsImpl implements DepartmentRollups {
+    private final DepartmentRepository departmentRepository;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final ConcurrentMap<Long, Integer> openPositions = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Long, DepartmentRollup> rollups = new ConcurrentHashMap<>();
+
+    // null for a top level department, only read and written under the write lock
+    private final Map<Long, Long> parents = new HashMap<>();
+
+    private final Object writeLock = new Object();
+
+    private volatile boolean loaded;
+
+    @Autowired(required = true)
+    DepartmentRollupsImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository) {
+        this.departmentRepository = departmentRepository;
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Override
+    public DepartmentRollup get(final long id) {
+        ensureLoaded();
+        return rollups.get(id);
+    }
+
+    @Override
+    public void addDepartment(final long id, final Long parentId, final int openPositions) {
+        afterCommit(() -> {
+            parents.put(id, parentId);
+            this.openPositions.put(id, openPositions);
+            rollups.put(id, DepartmentRollup.EMPTY.plus(0L, openPositions));
+            applyFrom(parentId, 0L, openPositions);
+        });
+    }
+
+    @Override
+    public void updateDepartment(final long id, final Long parentId, final int openPositions) {
+        afterCommit(() -> {
+            final DepartmentRollup oldRollup = rollups.get(id);
+            if (null == oldRollup) {
+                return;
+            }
+            final Integer oldOpenPositions = this.openPositions.put(id, openPositions);
+            final DepartmentRollup newRollup = oldRollup.plus(0L, openPositions - (null == oldOpenPositions ? 0 : oldOpenPositions));
+            rollups.put(id, newRollup);
+            // both chains start above the department itself, so they read the same before and after the link moves
+            final Long oldParentId = parents.put(id, parentId);
+            applyFrom(oldParentId, -oldRollup.getHeadcount(), -oldRollup.getOpenPositions());
+            applyFrom(parentId, newRollup.getHeadcount(), newRollup.getOpenPositions());
+        });
+    }
+
+    @Override
+    public void removeDepartment(final long id) {
+        afterCommit(() -> {
+            final DepartmentRollup rollup = rollups.remove(id);
+            openPositions.remove(id);
+            final Long parentId = parents.remove(id);
+            if (null != rollup) {
+                applyFrom(parentId, -rollup.getHeadcount(), -rollup.getOpenPositions());
+            }
+        });
+    }
+
+    @Override
+    public void addEmployee(final Long departmentId) {
+        afterCommit(() -> applyFrom(departmentId, 1L, 0L));
+    }
+
+    @Override
+    public void removeEmployee(final Long departmentId) {
+        afterCommit(() -> applyFrom(departmentId, -1L, 0L));
+    }
+
+    // loaded up front, a lazy load inside a write transaction would already see the row being written and count it twice
+    @PostConstruct
+    void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (loaded) {
+                return;
+            }
+            final List<Object[]> departmentRows = departmentRepository.findAllParentsAndOpenPositions();
+            for (final Object[] row : departmentRows) {
+                final Long id = (Long) row[0];
+                parents.put(id, (Long) row[1]);
+                openPositions.put(id, (Integer) row[2]);
+                rollups.put(id, DepartmentRollup.EMPTY);
+            }
+            // every department must have its entry before any delta can travel through it
+            for (final Object[] row : departmentRows) {
+                applyFrom((Long) row[0], 0L, (Integer) row[2]);
+            }
+            for (final Object[] row : employeeRepository.countGroupByDepartmentId()) {
+                applyFrom((Long) row[0], (Long) row[1], 0L);
+            }
+            loaded = true;
+        }
+    }
+
+    // a delta of a transaction that rolls back would stay in the totals forever
+    private void afterCommit(final Runnable change) {
+        Transactions.afterCommit(() -> apply(change));
+    }
+
+    private void apply(final Runnable change) {
+        ensureLoaded();
+        synchronized (writeLock) {
+            change.run();
+        }
+    }
+
+    // called with the write lock held
+    private void applyFrom(final Long id, final long headcount, final long openPositions) {
+        Long current = id;
+        while (null != current) {
+            final DepartmentRollup rollup = rollups.get(current);
+            if (null != rollup) {
+                rollups.put(current, rollup.plus(headcount, openPositions));
+            }
+            current = parents.get(current);
+        }
+    }
+}
\ No newline at end of file
@@ -1,76 +1,407 @@
 package anz.core.application.impls;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import anz.core.application.DepartmentHierarchy;
+import anz.core.application.DepartmentRollups;
 import anz.core.application.DepartmentService;
+import anz.core.application.EncodedEntities;
+import anz.core.application.EntityStreams;
+import anz.core.application.MissingIds;
+import anz.core.application.OrgSnapshot;
+import anz.core.application.OrgSnapshots;
+import anz.core.application.RelationCache;
+import anz.core.application.ReportingChains;
+import anz.core.application.TableVersions;
+import anz.core.application.TakenNames;
 import anz.core.application.shared.InvalidEntityException;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentClosure;
+import anz.core.domain.models.DepartmentImport;
+import anz.core.domain.models.DepartmentNode;
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.DepartmentRollup;
 import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentClosureRepository;
 import anz.core.repositories.DepartmentRepository;
 import anz.core.repositories.EmployeeRepository;
 
 @Service
 class DepartmentServiceImpl implements DepartmentService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_IMPORT_SIZE = 10000;
+
     private final DepartmentRepository departmentRepository;
 
     private final EmployeeRepository employeeRepository;
 
+    private final DepartmentClosureRepository departmentClosureRepository;
+
+    private final DepartmentHierarchy departmentHierarchy;
+
+    private final DepartmentRollups departmentRollups;
+
+    private final ReportingChains reportingChains;
+
+    private final EntityStreams entityStreams;
+
+    private final TableVersions tableVersions;
+
+    private final RelationCache relationCache;
+
+    private final MissingIds missingIds;
+
+    private final TakenNames takenNames;
+
+    private final EncodedEntities encodedEntities;
+
+    private final OrgSnapshots orgSnapshots;
+
     @Autowired(required = true)
-    DepartmentServiceImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository) {
+    DepartmentServiceImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository,
+                          final DepartmentClosureRepository departmentClosureRepository, final DepartmentHierarchy departmentHierarchy,
+                          final DepartmentRollups departmentRollups, final ReportingChains reportingChains, final EntityStreams entityStreams,
+                          final TableVersions tableVersions, final RelationCache relationCache, final MissingIds missingIds, final TakenNames takenNames,
+                          final EncodedEntities encodedEntities, final OrgSnapshots orgSnapshots) {
         this.departmentRepository = departmentRepository;
         this.employeeRepository = employeeRepository;
+        this.departmentClosureRepository = departmentClosureRepository;
+        this.departmentHierarchy = departmentHierarchy;
+        this.departmentRollups = departmentRollups;
+        this.reportingChains = reportingChains;
+        this.entityStreams = entityStreams;
+        this.tableVersions = tableVersions;
+        this.relationCache = relationCache;
+        this.missingIds = missingIds;
+        this.takenNames = takenNames;
+        this.encodedEntities = encodedEntities;
+        this.orgSnapshots = orgSnapshots;
     }
 
     @Override
+    @Transactional
     public Department create(final Department department) {
         Validate.notNull(department, "department cannot be null");
         final String name = department.getName();
-        final Department existDepartment = departmentRepository.findByNameIgnoreCase(name);
-        if (null != existDepartment) {
-            throw new EntityExistsException("Department with name [" + name + "] already exists");
-        }
         final Long managerId = department.getManagerId();
         if (null != managerId) {
-            final Employee employee = employeeRepository.findOne(managerId);
-            if (null == employee) {
-                throw new EntityNotFoundException("Manager with id [" + managerId + "] cannot be found");
-            }
+            checkManagersExist(Collections.singletonList(managerId));
         }
 
         final Long parentId = department.getParentDepartmentId();
         if (null != parentId) {
-            final Department parent = getById(parentId);
-            if (null == parent) {
+            if (!departmentHierarchy.contains(parentId)) {
                 throw new EntityNotFoundException("Parent department with id [" + parentId + "] cannot be found");
             }
         }
-        return departmentRepository.save(department);
+        final Department created;
+        try {
+            created = departmentRepository.save(department);
+        } catch (final DataAccessException ex) {
+            if (UniqueConstraints.isViolated(ex, UniqueConstraints.DEPARTMENT_LOWER_NAME)) {
+                throw new EntityExistsException("Department with name [" + name + "] already exists");
+            }
+            throw ex;
+        }
+        final long id = created.getId();
+        takenNames.taken(Department.class, name);
+        missingIds.created(Department.class, Collections.singletonList(id));
+        departmentClosureRepository.insertSelf(id);
+        if (null != parentId) {
+            departmentClosureRepository.attachSubtree(id, parentId);
+        }
+        departmentHierarchy.put(id, parentId);
+        departmentRollups.addDepartment(id, parentId, created.getOpenPositions());
+        tableVersions.changed(Department.class);
+        relationCache.evict(createdTags(id, parentId));
+        orgSnapshots.departmentsSaved(Collections.singletonList(created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public List<Department> createTree(final List<DepartmentImport> imports) {
+        Validate.notNull(imports, "imports cannot be null");
+        Validate.noNullElements(imports, "imports cannot contain null");
+        Validate.isTrue(imports.size() <= MAX_IMPORT_SIZE, "cannot import more than " + MAX_IMPORT_SIZE + " departments at once");
+        final int size = imports.size();
+        final Map<String, Integer> refs = new HashMap<>();
+        // linked, so the lookups below ask for the names and managers in the order of the rows
+        final Map<String, Integer> names = new LinkedHashMap<>();
+        final Set<Long> managerIds = new LinkedHashSet<>();
+        for (int index = 0; index < size; index++) {
+            final DepartmentImport departmentImport = imports.get(index);
+            final String ref = departmentImport.getRef();
+            if (null != ref && null != refs.put(ref, index)) {
+                throw new InvalidEntityException("Reference [" + ref + "] is used by more than one department");
+            }
+            final String name = departmentImport.getDepartment().getName();
+            if (null != names.put(name.toLowerCase(Locale.ROOT), index)) {
+                throw new EntityExistsException("Department with name [" + name + "] already exists");
+            }
+            if (null != departmentImport.getDepartment().getManagerId()) {
+                managerIds.add(departmentImport.getDepartment().getManagerId());
+            }
+        }
+        final List<String> mightBeTaken = new ArrayList<>();
+        for (final String name : names.keySet()) {
+            if (takenNames.mightBeTaken(Department.class, name)) {
+                mightBeTaken.add(name);
+            }
+        }
+        for (final List<String> chunk : Chunks.of(mightBeTaken)) {
+            final List<Department> existDepartments = departmentRepository.findByLowerNameIn(chunk);
+            if (!existDepartments.isEmpty()) {
+                throw new EntityExistsException("Department with name [" + existDepartments.get(0).getName() + "] already exists");
+            }
+        }
+        checkManagersExist(managerIds);
+        final Set<String> parentNames = new LinkedHashSet<>();
+        for (final DepartmentImport departmentImport : imports) {
+            final String parentName = departmentImport.getParentName();
+            if (null != parentName && !names.containsKey(parentName.toLowerCase(Locale.ROOT))) {
+                parentNames.add(parentName.toLowerCase(Locale.ROOT));
+            }
+        }
+        final Map<String, Long> existParentIds = new HashMap<>();
+        for (final List<String> chunk : Chunks.of(parentNames)) {
+            for (final Department parent : departmentRepository.findByLowerNameIn(chunk)) {
+                existParentIds.put(parent.getName().toLowerCase(Locale.ROOT), parent.getId());
+            }
+        }
+
+        // a parent is either another row, by index, or a department that already exists, by id
+        final int[] parents = new int[size];
+        final Long[] parentIds = new Long[size];
+        for (int index = 0; index < size; index++) {
+            final DepartmentImport departmentImport = imports.get(index);
+            final String parentRef = departmentImport.getParentRef();
+            final String parentName = departmentImport.getParentName();
+            final Long parentId = departmentImport.getDepartment().getParentDepartmentId();
+            parents[index] = -1;
+            if (null != parentRef) {
+                final Integer parent = refs.get(parentRef);
+                if (null == parent) {
+                    throw new InvalidEntityException("Parent reference [" + parentRef + "] matches no department of the import");
+                }
+                parents[index] = parent;
+            } else if (null != parentName) {
+                final Integer parent = names.get(parentName.toLowerCase(Locale.ROOT));
+                if (null != parent) {
+                    parents[index] = parent;
+                } else {
+                    parentIds[index] = existParentIds.get(parentName.toLowerCase(Locale.ROOT));
+                    if (null == parentIds[index]) {
+                        throw new EntityNotFoundException("Parent department with name [" + parentName + "] cannot be found");
+                    }
+                }
+            } else if (null != parentId) {
+                if (!departmentHierarchy.contains(parentId)) {
+                    throw new EntityNotFoundException("Parent department with id [" + parentId + "] cannot be found");
+                }
+                parentIds[index] = parentId;
+            }
+        }
+
+        // one batch per level, so the ids of a level are known before its children are bound
+        final Long[] ids = new Long[size];
+        final Department[] created = new Department[size];
+        final List<List<Integer>> levels = levelsOf(parents, imports);
+        for (final List<Integer> level : levels) {
+            final List<Department> departments = new ArrayList<>(level.size());
+            for (final Integer index : level) {
+                if (-1 != parents[index]) {
+                    parentIds[index] = ids[parents[index]];
+                }
+                final Department department = imports.get(index).getDepartment();
+                departments.add(Department.Builder.newInstance(department.getName(), department.getOpenPositions()).location(department.getLocation())
+                                          .managerId(department.getManagerId()).parentDepartment(parentIds[index]).build());
+            }
+            final List<Long> levelIds;
+            try {
+                levelIds = departmentRepository.insertAll(departments);
+            } catch (final DataAccessException ex) {
+                // only when another request took one of the names after they were looked up
+                if (UniqueConstraints.isViolated(ex, UniqueConstraints.DEPARTMENT_LOWER_NAME)) {
+                    throw new EntityExistsException("A department with one of the names already exists");
+                }
+                throw ex;
+            }
+            for (int position = 0; position < level.size(); position++) {
+                final int index = level.get(position);
+                final Department department = departments.get(position);
+                ids[index] = levelIds.get(position);
+                created[index] = Department.Builder.newInstance(ids[index], department.getName(), department.getOpenPositions()).location(department.getLocation())
+                                               .managerId(department.getManagerId()).parentDepartment(department.getParentDepartmentId()).build();
+                takenNames.taken(Department.class, department.getName());
+            }
+        }
+        missingIds.created(Department.class, Arrays.asList(ids));
+
+        // the ancestors of a new department are its new parents followed by the ancestors the hierarchy already knows
+        final Map<Long, Long> newParentIds = new HashMap<>();
+        for (int index = 0; index < size; index++) {
+            newParentIds.put(ids[index], parentIds[index]);
+        }
+        final List<DepartmentClosure> closures = new ArrayList<>();
+        for (int index = 0; index < size; index++) {
+            closures.add(new DepartmentClosure(ids[index], ids[index], 0));
+            int depth = 1;
+            Long ancestorId = parentIds[index];
+            while (null != ancestorId) {
+                closures.add(new DepartmentClosure(ancestorId, ids[index], depth++));
+                ancestorId = newParentIds.containsKey(ancestorId) ? newParentIds.get(ancestorId) : departmentHierarchy.getParentId(ancestorId);
+            }
+        }
+        departmentClosureRepository.insertAll(closures);
+
+        final List<String> tags = new ArrayList<>();
+        for (final List<Integer> level : levels) {
+            for (final Integer index : level) {
+                departmentHierarchy.put(ids[index], parentIds[index]);
+                departmentRollups.addDepartment(ids[index], parentIds[index], created[index].getOpenPositions());
+                tags.addAll(createdTags(ids[index], parentIds[index]));
+            }
+        }
+        tableVersions.changed(Department.class);
+        relationCache.evict(tags);
+        orgSnapshots.departmentsSaved(Arrays.asList(created));
+        return Arrays.asList(created);
     }
 
     @Override
     public List<Department> getAll() {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getDepartments(null, 0);
+        }
         return departmentRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(final Consumer<Department> consumer) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            snapshot.getDepartments(null, 0).forEach(consumer);
+            return;
+        }
+        entityStreams.forEach(departmentRepository.streamAll(), consumer);
+    }
+
+    @Override
+    public List<Department> getPage(final Long after, final int limit) {
+        Validate.isTrue(limit > 0 && limit <= MAX_PAGE_SIZE, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getDepartments(after, limit);
+        }
+        return departmentRepository.findByIdGreaterThan(null == after ? Long.MIN_VALUE : after, new PageRequest(0, limit, Sort.Direction.ASC, "id"));
+    }
+
+    @Override
+    public List<Map<String, Object>> getAll(final List<String> fields) {
+        Validate.notNull(fields, "fields cannot be null");
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Department.class, snapshot.getDepartments(null, 0), fields);
+        }
+        return departmentRepository.findAttributes(fields, null, 0);
+    }
+
+    @Override
+    public List<Map<String, Object>> getPage(final List<String> fields, final Long after, final int limit) {
+        Validate.notNull(fields, "fields cannot be null");
+        Validate.isTrue(limit > 0 && limit <= MAX_PAGE_SIZE, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Department.class, snapshot.getDepartments(after, limit), fields);
+        }
+        return departmentRepository.findAttributes(fields, after, limit);
+    }
+
     @Override
     public Department getById(final long id) {
-        return departmentRepository.findOne(id);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getDepartment(id);
+        }
+        return missingIds.get(Department.class, id, () -> departmentRepository.findOne(id));
     }
 
     @Override
-    public Department getParentById(final long id) {
-        final Department existDepartment = getById(id);
-        if (null == existDepartment) {
-            return null;
+    public Long getVersionById(final long id) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            final Department department = snapshot.getDepartment(id);
+            return null == department ? null : department.getVersion();
+        }
+        return missingIds.get(Department.class, id, () -> departmentRepository.findVersionById(id));
+    }
+
+    @Override
+    public String getTableVersion() {
+        return tableVersions.get(Department.class);
+    }
+
+    @Override
+    public List<Department> getByIds(final List<Long> ids) {
+        final Set<Long> uniqueIds = Ids.uniqueOf(ids, MAX_PAGE_SIZE);
+        if (uniqueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return departmentsOf(snapshot, uniqueIds);
         }
-        final Long parentId = existDepartment.getParentDepartmentId();
+        return Ids.inOrder(uniqueIds, departmentRepository.findAll(uniqueIds), Department::getId);
+    }
+
+    @Override
+    public List<Map<String, Object>> getByIds(final List<String> fields, final List<Long> ids) {
+        Validate.notNull(fields, "fields cannot be null");
+        final Set<Long> uniqueIds = Ids.uniqueOf(ids, MAX_PAGE_SIZE);
+        if (uniqueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Department.class, departmentsOf(snapshot, uniqueIds), fields);
+        }
+        return Ids.inOrder(uniqueIds, departmentRepository.findAttributesByIds(fields, uniqueIds), row -> (Long) row.get("id"));
+    }
+
+    @Override
+    public Department getParentById(final long id) {
+        final Long parentId = departmentHierarchy.getParentId(id);
         if (null == parentId) {
             return null;
         }
@@ -79,64 +410,311 @@ class DepartmentServiceImpl implements DepartmentService {
 
     @Override
     public List<Department> getSubDepartmentsById(final long id) {
-        return departmentRepository.findByParentDepartmentId(id);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getSubDepartments(id);
+        }
+        return relationCache.get(RelationTags.subDepartmentsOf(id), () -> {
+            final Set<Long> childIds = departmentHierarchy.getChildIds(id);
+            if (childIds.isEmpty()) {
+                return Collections.<Department> emptyList();
+            }
+            return Collections.unmodifiableList(departmentRepository.findAll(childIds));
+        }, RelationTags::departments);
+    }
+
+    @Override
+    public List<DepartmentNode> getDescendants(final long id, final int maxDepth) {
+        Validate.isTrue(maxDepth > 0, "maxDepth must be greater than 0");
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return descendantsOf(snapshot, id, maxDepth);
+        }
+        return toDepartmentNodes(departmentClosureRepository.findDescendants(id, maxDepth));
+    }
+
+    @Override
+    public List<DepartmentNode> getAncestors(final long id) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return ancestorsOf(snapshot, id);
+        }
+        return toDepartmentNodes(departmentClosureRepository.findAncestors(id));
+    }
+
+    @Override
+    public DepartmentNode getAncestor(final long id, final long ancestorId) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            for (final DepartmentNode departmentNode : ancestorsOf(snapshot, id)) {
+                if (ancestorId == departmentNode.getDepartment().getId()) {
+                    return departmentNode;
+                }
+            }
+            return null;
+        }
+        final List<DepartmentNode> departmentNodes = toDepartmentNodes(departmentClosureRepository.findAncestor(id, ancestorId));
+        return departmentNodes.isEmpty() ? null : departmentNodes.get(0);
     }
 
     @Override
     public List<Employee> getEmployees(final long id) {
-        return employeeRepository.findByDepartmentId(id);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getEmployeesOf(id);
+        }
+        return relationCache.get(RelationTags.employeesOf(id), () -> Collections.unmodifiableList(employeeRepository.findByDepartmentId(id)),
+                                 employees -> Collections.<String> emptyList());
+    }
+
+    @Override
+    public DepartmentRollup getRollup(final long id) {
+        return departmentRollups.get(id);
+    }
+
+    @Override
+    public CommonAncestor getLowestCommonAncestor(final long id, final long otherId) {
+        for (final long departmentId : new long[] { id, otherId }) {
+            if (!departmentHierarchy.contains(departmentId)) {
+                throw new EntityNotFoundException("No such department can be found, department id: [" + departmentId + "]");
+            }
+        }
+        final Long ancestorId = departmentHierarchy.getLowestCommonAncestorId(id, otherId);
+        if (null == ancestorId) {
+            return null;
+        }
+        final int depth = departmentHierarchy.getDepth(ancestorId);
+        return new CommonAncestor(getById(ancestorId), departmentHierarchy.getDepth(id) - depth, departmentHierarchy.getDepth(otherId) - depth);
     }
 
     @Override
+    @Transactional
     public Department update(final Department department) {
         Validate.notNull(department, "department cannot be null");
         final Long managerId = department.getManagerId();
         if (null != managerId) {
-            final Employee employee = employeeRepository.findOne(managerId);
-            if (null == employee) {
-                throw new EntityNotFoundException("Manager with id [" + managerId + "] cannot be found");
-            }
+            checkManagersExist(Collections.singletonList(managerId));
         }
 
-        final Long id = department.getId();
         final Long parentId = department.getParentDepartmentId();
         if (null != parentId) {
-            if (id.equals(parentId)) {
-                throw new InvalidEntityException("Department cannot be it's own parent");
-            }
-            final Department parent = getById(parentId);
-            if (null == parent) {
-                throw new EntityNotFoundException("Parent department with id [" + parentId + "] cannot be found");
-            }
-            if (childOf(id, parentId)) {
-                throw new InvalidEntityException("Parent of a department cannot be it's child");
-            }
+            checkParent(department.getId(), parentId);
+        }
+        return saveUpdated(department);
+    }
+
+    @Override
+    @Transactional
+    public Department patch(final long id, final DepartmentPatch patch) {
+        Validate.notNull(patch, "patch cannot be null");
+        final Department department = departmentRepository.findOne(id);
+        if (null == department) {
+            return null;
+        }
+        final int openPositions = patch.openPositionsOf(department);
+        final String location = patch.locationOf(department);
+        final Long managerId = patch.managerIdOf(department);
+        final Long parentId = patch.parentDepartmentIdOf(department);
+        final boolean managerChanged = ObjectUtils.notEqual(managerId, department.getManagerId());
+        final boolean parentChanged = ObjectUtils.notEqual(parentId, department.getParentDepartmentId());
+        // a patch that changes nothing writes nothing
+        if (!managerChanged && !parentChanged && openPositions == department.getOpenPositions() && Objects.equals(location, department.getLocation())) {
+            return department;
+        }
+        if (managerChanged && null != managerId) {
+            checkManagersExist(Collections.singletonList(managerId));
+        }
+        if (parentChanged && null != parentId) {
+            checkParent(id, parentId);
         }
-        return departmentRepository.save(department);
+        // the department is managed, the flush writes the columns that changed and nothing else
+        department.update(openPositions, location, managerId, parentId);
+        return saveUpdated(department);
     }
 
     @Override
+    @Transactional
     public void removeById(final long id) {
-        final Department existDepartment = getById(id);
-        if (null == existDepartment) {
+        if (!departmentHierarchy.contains(id)) {
             throw new EntityNotFoundException("No such department can be found, department id: [" + id + "]");
         }
-        final List<Department> subDepartments = getSubDepartmentsById(id);
-        if (!subDepartments.isEmpty()) {
+        if (!departmentHierarchy.getChildIds(id).isEmpty()) {
             throw new EntityExistsException("Sub-departments exist, cannot remove");
         }
+        final Long parentId = departmentHierarchy.getParentId(id);
         departmentRepository.delete(id);
+        departmentClosureRepository.deleteLeaf(id);
+        departmentHierarchy.remove(id);
+        departmentRollups.removeDepartment(id);
+        reportingChains.departmentRemoved(id);
+        tableVersions.changed(Department.class);
+        final List<String> tags = createdTags(id, parentId);
+        tags.add(RelationTags.department(id));
+        relationCache.evict(tags);
+        encodedEntities.evict(Department.class, id);
+        orgSnapshots.departmentRemoved(id);
     }
 
-    private boolean childOf(final Long id, final Long parentId) {
+    private List<DepartmentNode> toDepartmentNodes(final List<Object[]> rows) {
+        final List<DepartmentNode> result = new ArrayList<>();
+        for (final Object[] row : rows) {
+            result.add(new DepartmentNode((Department) row[0], ((Number) row[1]).intValue()));
+        }
+        return result;
+    }
+
+    private static List<Department> departmentsOf(final OrgSnapshot snapshot, final Set<Long> ids) {
+        final List<Department> result = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            final Department department = snapshot.getDepartment(id);
+            if (null != department) {
+                result.add(department);
+            }
+        }
+        return result;
+    }
+
+    // level by level and in id order within a level, the order the closure table query returns them in
+    private static List<DepartmentNode> descendantsOf(final OrgSnapshot snapshot, final long id, final int maxDepth) {
+        final List<DepartmentNode> result = new ArrayList<>();
+        List<Department> level = snapshot.getSubDepartments(id);
+        for (int depth = 1; depth <= maxDepth && !level.isEmpty(); depth++) {
+            final List<Department> next = new ArrayList<>();
+            for (final Department department : level) {
+                result.add(new DepartmentNode(department, depth));
+                next.addAll(snapshot.getSubDepartments(department.getId()));
+            }
+            next.sort(Comparator.comparing(Department::getId));
+            level = next;
+        }
+        return result;
+    }
+
+    // the parent first and the top level department last
+    private static List<DepartmentNode> ancestorsOf(final OrgSnapshot snapshot, final long id) {
+        final List<DepartmentNode> result = new ArrayList<>();
+        Department department = snapshot.getDepartment(id);
+        while (null != department && null != department.getParentDepartmentId()) {
+            department = snapshot.getDepartment(department.getParentDepartmentId());
+            if (null != department) {
+                result.add(new DepartmentNode(department, result.size() + 1));
+            }
+        }
+        return result;
+    }
+
+    // an empty result may have been cached for an id before it was taken
+    private static List<String> createdTags(final long id, final Long parentId) {
+        final List<String> tags = new ArrayList<>(Arrays.asList(RelationTags.subDepartmentsOf(id), RelationTags.employeesOf(id)));
+        if (null != parentId) {
+            tags.add(RelationTags.subDepartmentsOf(parentId));
+        }
+        return tags;
+    }
+
+    private void checkManagersExist(final Collection<Long> managerIds) {
+        final Set<Long> missing = References.missing(managerIds, employeeRepository::countByIdIn, employeeRepository::findIdsIn);
+        if (!missing.isEmpty()) {
+            throw new EntityNotFoundException("Manager with id [" + missing.iterator().next() + "] cannot be found");
+        }
+    }
+
+    private void checkParent(final Long id, final Long parentId) {
         if (id.equals(parentId)) {
-            return true;
+            throw new InvalidEntityException("Department cannot be it's own parent");
+        }
+        if (!departmentHierarchy.contains(parentId)) {
+            throw new EntityNotFoundException("Parent department with id [" + parentId + "] cannot be found");
+        }
+        if (childOf(id, parentId)) {
+            throw new InvalidEntityException("Parent of a department cannot be it's child");
+        }
+    }
+
+    private Department saveUpdated(final Department department) {
+        final Long id = department.getId();
+        final Long parentId = department.getParentDepartmentId();
+        final Long oldParentId = departmentHierarchy.getParentId(id);
+        final Department updated = departmentRepository.save(department);
+        takenNames.taken(Department.class, updated.getName());
+        if (ObjectUtils.notEqual(parentId, oldParentId)) {
+            departmentClosureRepository.detachSubtree(id);
+            if (null != parentId) {
+                departmentClosureRepository.attachSubtree(id, parentId);
+            }
+        }
+        departmentHierarchy.put(id, parentId);
+        departmentRollups.updateDepartment(id, parentId, updated.getOpenPositions());
+        reportingChains.departmentUpdated(id, updated.getManagerId(), parentId);
+        tableVersions.changed(Department.class);
+        // the department itself, and the sub-departments of where it was and of where it is now
+        final List<String> tags = new ArrayList<>(Collections.singletonList(RelationTags.department(id)));
+        for (final Long affectedId : Arrays.asList(oldParentId, parentId)) {
+            if (null != affectedId) {
+                tags.add(RelationTags.subDepartmentsOf(affectedId));
+            }
+        }
+        relationCache.evict(tags);
+        encodedEntities.evict(Department.class, id);
+        orgSnapshots.departmentsSaved(Collections.singletonList(updated));
+        return updated;
+    }
+
+    private boolean childOf(final Long id, final Long parentId) {
+        return departmentHierarchy.isDescendantOf(parentId, id);
+    }
+
+    // rows grouped by their depth within the import, roots first and every row one level below the row of its parent
+    private static List<List<Integer>> levelsOf(final int[] parents, final List<DepartmentImport> imports) {
+        final List<List<Integer>> children = new ArrayList<>(parents.length);
+        for (int index = 0; index < parents.length; index++) {
+            children.add(new ArrayList<Integer>());
+        }
+        List<Integer> level = new ArrayList<>();
+        for (int index = 0; index < parents.length; index++) {
+            if (-1 == parents[index]) {
+                level.add(index);
+            } else {
+                children.get(parents[index]).add(index);
+            }
+        }
+        final List<List<Integer>> levels = new ArrayList<>();
+        final boolean[] placed = new boolean[parents.length];
+        int remaining = parents.length;
+        while (!level.isEmpty()) {
+            levels.add(level);
+            final List<Integer> next = new ArrayList<>();
+            for (final Integer index : level) {
+                placed[index] = true;
+                remaining--;
+                next.addAll(children.get(index));
+            }
+            level = next;
+        }
+        if (0 != remaining) {
+            throw new InvalidEntityException("Departments " + cycleOf(parents, placed, imports) + " form a cycle");
         }
-        final Department department = getById(parentId);
-        final Long parent = department.getParentDepartmentId();
-        if (null == parent) {
-            return false;
+        return levels;
+    }
+
+    // every row has at most one parent, so following the parents of a row that never got a level always ends up going round a cycle
+    private static List<String> cycleOf(final int[] parents, final boolean[] placed, final List<DepartmentImport> imports) {
+        int index = 0;
+        while (placed[index]) {
+            index++;
+        }
+        final Set<Integer> path = new LinkedHashSet<>();
+        while (path.add(index)) {
+            index = parents[index];
+        }
+        final List<String> result = new ArrayList<>();
+        boolean inCycle = false;
+        for (final Integer member : path) {
+            inCycle = inCycle || member == index;
+            if (inCycle) {
+                result.add(imports.get(member).getDepartment().getName());
+            }
         }
-        return childOf(id, parent);
+        return result;
     }
 }
\ No newline at end of file
@@ -1,73 +1,423 @@
 package anz.core.application.impls;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.Validate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import anz.core.application.DepartmentHierarchy;
+import anz.core.application.DepartmentRollups;
 import anz.core.application.EmployeeService;
+import anz.core.application.EncodedEntities;
+import anz.core.application.EntityStreams;
+import anz.core.application.MissingIds;
+import anz.core.application.OrgSnapshot;
+import anz.core.application.OrgSnapshots;
+import anz.core.application.RelationCache;
+import anz.core.application.ReportingChains;
+import anz.core.application.TableVersions;
+import anz.core.application.TakenNames;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EmployeePatch;
+import anz.core.domain.models.Gender;
+import anz.core.domain.models.ImportResult;
 import anz.core.repositories.DepartmentRepository;
 import anz.core.repositories.EmployeeRepository;
 
 @Service
 class EmployeeServiceImpl implements EmployeeService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private static final int MAX_IMPORT_SIZE = 10000;
+
     private final DepartmentRepository departmentRepository;
 
     private final EmployeeRepository employeeRepository;
 
+    private final DepartmentHierarchy departmentHierarchy;
+
+    private final DepartmentRollups departmentRollups;
+
+    private final ReportingChains reportingChains;
+
+    private final EntityStreams entityStreams;
+
+    private final TableVersions tableVersions;
+
+    private final RelationCache relationCache;
+
+    private final MissingIds missingIds;
+
+    private final TakenNames takenNames;
+
+    private final EncodedEntities encodedEntities;
+
+    private final OrgSnapshots orgSnapshots;
+
     @Autowired(required = true)
-    EmployeeServiceImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository) {
+    EmployeeServiceImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository, final DepartmentHierarchy departmentHierarchy,
+                        final DepartmentRollups departmentRollups, final ReportingChains reportingChains, final EntityStreams entityStreams,
+                        final TableVersions tableVersions, final RelationCache relationCache, final MissingIds missingIds, final TakenNames takenNames,
+                        final EncodedEntities encodedEntities, final OrgSnapshots orgSnapshots) {
         this.departmentRepository = departmentRepository;
         this.employeeRepository = employeeRepository;
+        this.departmentHierarchy = departmentHierarchy;
+        this.departmentRollups = departmentRollups;
+        this.reportingChains = reportingChains;
+        this.entityStreams = entityStreams;
+        this.tableVersions = tableVersions;
+        this.relationCache = relationCache;
+        this.missingIds = missingIds;
+        this.takenNames = takenNames;
+        this.encodedEntities = encodedEntities;
+        this.orgSnapshots = orgSnapshots;
     }
 
     @Override
+    @Transactional
     public Employee create(final Employee employee) {
         Validate.notNull(employee, "employee cannot be null");
         final Long departmentId = employee.getDepartmentId();
         if (null != departmentId) {
-            if (null == departmentRepository.findOne(departmentId)) {
+            if (!References.missing(Collections.singletonList(departmentId), departmentRepository::countByIdIn, departmentRepository::findIdsIn).isEmpty()) {
                 throw new EntityNotFoundException("Parent department with id [" + departmentId + "] cannot be found");
             }
         }
         final String ldapUsername = employee.getLdapUsername();
-        final Employee existEmployee = employeeRepository.findByLdapUsername(ldapUsername);
-        if (null != existEmployee) {
-            throw new EntityExistsException("Employee with ldap username [" + ldapUsername + "] already exists");
+        final Employee created;
+        try {
+            created = employeeRepository.save(employee);
+        } catch (final DataAccessException ex) {
+            if (UniqueConstraints.isViolated(ex, UniqueConstraints.EMPLOYEE_LDAP_USERNAME)) {
+                throw new EntityExistsException("Employee with ldap username [" + ldapUsername + "] already exists");
+            }
+            throw ex;
+        }
+        takenNames.taken(Employee.class, ldapUsername);
+        missingIds.created(Employee.class, Collections.singletonList(created.getId()));
+        departmentRollups.addEmployee(created.getDepartmentId());
+        tableVersions.changed(Employee.class);
+        if (null != departmentId) {
+            relationCache.evict(Collections.singletonList(RelationTags.employeesOf(departmentId)));
+        }
+        orgSnapshots.employeesSaved(Collections.singletonList(created));
+        return created;
+    }
+
+    @Override
+    @Transactional
+    public List<ImportResult> createAll(final List<Employee> employees) {
+        Validate.notNull(employees, "employees cannot be null");
+        Validate.noNullElements(employees, "employees cannot contain null");
+        Validate.isTrue(employees.size() <= MAX_IMPORT_SIZE, "cannot import more than " + MAX_IMPORT_SIZE + " employees at once");
+        // in the order of the rows, only the ldap usernames the filter cannot rule out are looked up
+        final Set<Long> departmentIds = new LinkedHashSet<>();
+        final Set<String> ldapUsernames = new LinkedHashSet<>();
+        for (final Employee employee : employees) {
+            if (null != employee.getDepartmentId()) {
+                departmentIds.add(employee.getDepartmentId());
+            }
+            if (takenNames.mightBeTaken(Employee.class, employee.getLdapUsername())) {
+                ldapUsernames.add(employee.getLdapUsername());
+            }
+        }
+        final Set<Long> missingDepartmentIds = References.missing(departmentIds, departmentRepository::countByIdIn, departmentRepository::findIdsIn);
+        // taken grows with every accepted row, so the second of two rows with the same ldap username is a conflict too
+        final Set<String> takenLdapUsernames = new HashSet<>();
+        for (final List<String> chunk : Chunks.of(ldapUsernames)) {
+            takenLdapUsernames.addAll(employeeRepository.findLdapUsernamesIn(chunk));
+        }
+        final List<ImportResult> results = new ArrayList<>(employees.size());
+        final List<Employee> accepted = new ArrayList<>();
+        for (final Employee employee : employees) {
+            final Long departmentId = employee.getDepartmentId();
+            final String ldapUsername = employee.getLdapUsername();
+            if (null != departmentId && missingDepartmentIds.contains(departmentId)) {
+                results.add(ImportResult.rejected(ImportResult.Status.NOT_FOUND, "Parent department with id [" + departmentId + "] cannot be found"));
+            } else if (!takenLdapUsernames.add(ldapUsername)) {
+                results.add(ImportResult.rejected(ImportResult.Status.CONFLICT, "Employee with ldap username [" + ldapUsername + "] already exists"));
+            } else {
+                results.add(null);
+                accepted.add(employee);
+            }
+        }
+        final List<Long> ids;
+        try {
+            ids = employeeRepository.insertAll(accepted);
+        } catch (final DataAccessException ex) {
+            // only when another request took one of the ldap usernames after they were looked up
+            if (UniqueConstraints.isViolated(ex, UniqueConstraints.EMPLOYEE_LDAP_USERNAME)) {
+                throw new EntityExistsException("An employee with one of the ldap usernames already exists");
+            }
+            throw ex;
+        }
+        for (final Employee employee : accepted) {
+            takenNames.taken(Employee.class, employee.getLdapUsername());
         }
-        return employeeRepository.save(employee);
+        missingIds.created(Employee.class, ids);
+        final Set<String> tags = new HashSet<>();
+        final List<Employee> created = new ArrayList<>(accepted.size());
+        int next = 0;
+        for (int index = 0; index < results.size(); index++) {
+            if (null == results.get(index)) {
+                final Employee employee = accepted.get(next);
+                final Long id = ids.get(next++);
+                results.set(index, ImportResult.created(id));
+                created.add(Employee.Builder.newInstance(id, employee.getFirstname(), employee.getLastname(), employee.getLdapUsername(), employee.getTitle(),
+                                                         employee.getGrade())
+                                            .gender(employee.getGender()).birthdate(employee.getBirthdate()).departmentId(employee.getDepartmentId()).build());
+                departmentRollups.addEmployee(employee.getDepartmentId());
+                if (null != employee.getDepartmentId()) {
+                    tags.add(RelationTags.employeesOf(employee.getDepartmentId()));
+                }
+            }
+        }
+        if (!accepted.isEmpty()) {
+            tableVersions.changed(Employee.class);
+            relationCache.evict(tags);
+            orgSnapshots.employeesSaved(created);
+        }
+        return results;
     }
 
     @Override
     public List<Employee> getAll() {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getEmployees(null, 0);
+        }
         return employeeRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public void forEach(final Consumer<Employee> consumer) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            snapshot.getEmployees(null, 0).forEach(consumer);
+            return;
+        }
+        entityStreams.forEach(employeeRepository.streamAll(), consumer);
+    }
+
+    @Override
+    public List<Employee> getPage(final Long after, final int limit) {
+        Validate.isTrue(limit > 0 && limit <= MAX_PAGE_SIZE, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getEmployees(after, limit);
+        }
+        return employeeRepository.findByIdGreaterThan(null == after ? Long.MIN_VALUE : after, new PageRequest(0, limit, Sort.Direction.ASC, "id"));
+    }
+
+    @Override
+    public List<Map<String, Object>> getAll(final List<String> fields) {
+        Validate.notNull(fields, "fields cannot be null");
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Employee.class, snapshot.getEmployees(null, 0), fields);
+        }
+        return employeeRepository.findAttributes(fields, null, 0);
+    }
+
+    @Override
+    public List<Map<String, Object>> getPage(final List<String> fields, final Long after, final int limit) {
+        Validate.notNull(fields, "fields cannot be null");
+        Validate.isTrue(limit > 0 && limit <= MAX_PAGE_SIZE, "limit must be between 1 and " + MAX_PAGE_SIZE);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Employee.class, snapshot.getEmployees(after, limit), fields);
+        }
+        return employeeRepository.findAttributes(fields, after, limit);
+    }
+
     @Override
     public Employee getById(final long id) {
-        return employeeRepository.findOne(id);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return snapshot.getEmployee(id);
+        }
+        return missingIds.get(Employee.class, id, () -> employeeRepository.findOne(id));
+    }
+
+    @Override
+    public Long getVersionById(final long id) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            final Employee employee = snapshot.getEmployee(id);
+            return null == employee ? null : employee.getVersion();
+        }
+        return missingIds.get(Employee.class, id, () -> employeeRepository.findVersionById(id));
+    }
+
+    @Override
+    public String getTableVersion() {
+        return tableVersions.get(Employee.class);
+    }
+
+    @Override
+    public List<Employee> getByIds(final List<Long> ids) {
+        final Set<Long> uniqueIds = Ids.uniqueOf(ids, MAX_PAGE_SIZE);
+        if (uniqueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return employeesOf(snapshot, uniqueIds);
+        }
+        return Ids.inOrder(uniqueIds, employeeRepository.findAll(uniqueIds), Employee::getId);
+    }
+
+    @Override
+    public List<Map<String, Object>> getByIds(final List<String> fields, final List<Long> ids) {
+        Validate.notNull(fields, "fields cannot be null");
+        final Set<Long> uniqueIds = Ids.uniqueOf(ids, MAX_PAGE_SIZE);
+        if (uniqueIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return EntityRows.of(Employee.class, employeesOf(snapshot, uniqueIds), fields);
+        }
+        return Ids.inOrder(uniqueIds, employeeRepository.findAttributesByIds(fields, uniqueIds), row -> (Long) row.get("id"));
     }
 
     @Override
     public Department getDepartmentOf(final long id) {
-        final Employee employee = employeeRepository.findOne(id);
-        if (null == employee) {
-            throw new EntityNotFoundException("No such employee can be found, employee id: [" + id + "]");
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            final Long departmentId = departmentIdOf(id);
+            return null == departmentId ? null : snapshot.getDepartment(departmentId);
         }
-        final Long departmentId = employee.getDepartmentId();
+        // only removing the employee, moving them to another department or changing the department evicts the result
+        return relationCache.get(RelationTags.departmentOf(id), () -> {
+            final Long departmentId = departmentIdOf(id);
+            if (null == departmentId) {
+                return null;
+            }
+            return departmentRepository.findOne(departmentId);
+        }, department -> null == department ? Collections.<String> emptyList() : Collections.singletonList(RelationTags.department(department.getId())));
+    }
+
+    @Override
+    public List<Employee> getReportingChain(final long id) {
+        final Long departmentId = departmentIdOf(id);
         if (null == departmentId) {
+            return new ArrayList<>();
+        }
+        // a manager of several levels is listed once, and nobody reports to themselves
+        final Set<Long> managerIds = new LinkedHashSet<>(reportingChains.getManagerIds(departmentId));
+        managerIds.remove(id);
+        if (managerIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        if (null != snapshot) {
+            return employeesOf(snapshot, managerIds);
+        }
+        final Map<Long, Employee> managers = new HashMap<>();
+        for (final Employee manager : employeeRepository.findAll(managerIds)) {
+            managers.put(manager.getId(), manager);
+        }
+        final List<Employee> result = new ArrayList<>();
+        for (final Long managerId : managerIds) {
+            final Employee manager = managers.get(managerId);
+            if (null != manager) {
+                result.add(manager);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CommonAncestor getLowestCommonDepartment(final long id, final long otherId) {
+        final Long departmentId = departmentIdOf(id);
+        final Long otherDepartmentId = departmentIdOf(otherId);
+        if (null == departmentId || null == otherDepartmentId) {
+            return null;
+        }
+        final Long ancestorId = departmentHierarchy.getLowestCommonAncestorId(departmentId, otherDepartmentId);
+        if (null == ancestorId) {
             return null;
         }
-        return departmentRepository.findOne(departmentId);
+        final int depth = departmentHierarchy.getDepth(ancestorId);
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        final Department ancestor = null == snapshot ? departmentRepository.findOne(ancestorId) : snapshot.getDepartment(ancestorId);
+        return new CommonAncestor(ancestor, departmentHierarchy.getDepth(departmentId) - depth, departmentHierarchy.getDepth(otherDepartmentId) - depth);
     }
 
     @Override
+    @Transactional
+    public Employee patch(final long id, final EmployeePatch patch) {
+        Validate.notNull(patch, "patch cannot be null");
+        final Employee employee = employeeRepository.findOne(id);
+        if (null == employee) {
+            return null;
+        }
+        final String firstname = patch.firstnameOf(employee);
+        final String lastname = patch.lastnameOf(employee);
+        final Gender gender = patch.genderOf(employee);
+        final long birthdate = patch.birthdateOf(employee);
+        final String title = patch.titleOf(employee);
+        final String grade = patch.gradeOf(employee);
+        final Long oldDepartmentId = employee.getDepartmentId();
+        final Long departmentId = patch.departmentIdOf(employee);
+        final boolean moved = ObjectUtils.notEqual(departmentId, oldDepartmentId);
+        // a patch that changes nothing writes nothing
+        if (!moved && Objects.equals(firstname, employee.getFirstname()) && Objects.equals(lastname, employee.getLastname()) && gender == employee.getGender()
+            && birthdate == employee.getBirthdate() && Objects.equals(title, employee.getTitle()) && Objects.equals(grade, employee.getGrade())) {
+            return employee;
+        }
+        if (moved && null != departmentId) {
+            if (!References.missing(Collections.singletonList(departmentId), departmentRepository::countByIdIn, departmentRepository::findIdsIn).isEmpty()) {
+                throw new EntityNotFoundException("Parent department with id [" + departmentId + "] cannot be found");
+            }
+        }
+        // the employee is managed, the flush writes the columns that changed and nothing else
+        employee.update(firstname, lastname, gender, birthdate, title, grade, departmentId);
+        final Employee updated = employeeRepository.save(employee);
+        tableVersions.changed(Employee.class);
+        // the employees of its old and new department hold the employee, and its department is cached on its own
+        final List<String> tags = new ArrayList<>();
+        if (moved) {
+            departmentRollups.removeEmployee(oldDepartmentId);
+            departmentRollups.addEmployee(departmentId);
+            tags.add(RelationTags.departmentOf(id));
+            if (null != departmentId) {
+                tags.add(RelationTags.employeesOf(departmentId));
+            }
+        }
+        if (null != oldDepartmentId) {
+            tags.add(RelationTags.employeesOf(oldDepartmentId));
+        }
+        relationCache.evict(tags);
+        encodedEntities.evict(Employee.class, id);
+        orgSnapshots.employeesSaved(Collections.singletonList(updated));
+        return updated;
+    }
+
+    @Override
+    @Transactional
     public void removeById(final long id) {
         final Employee existEmployee = getById(id);
         if (null == existEmployee) {
@@ -78,6 +428,36 @@ class EmployeeServiceImpl implements EmployeeService {
             throw new EntityExistsException("Manager of some departments, cannot be removed");
         }
         employeeRepository.delete(id);
+        departmentRollups.removeEmployee(existEmployee.getDepartmentId());
+        tableVersions.changed(Employee.class);
+        final List<String> tags = new ArrayList<>(Collections.singletonList(RelationTags.departmentOf(id)));
+        if (null != existEmployee.getDepartmentId()) {
+            tags.add(RelationTags.employeesOf(existEmployee.getDepartmentId()));
+        }
+        relationCache.evict(tags);
+        encodedEntities.evict(Employee.class, id);
+        orgSnapshots.employeeRemoved(id);
+    }
+
+    private Long departmentIdOf(final long id) {
+        final OrgSnapshot snapshot = orgSnapshots.current();
+        final Employee employee = null == snapshot ? employeeRepository.findOne(id) : snapshot.getEmployee(id);
+        if (null == employee) {
+            throw new EntityNotFoundException("No such employee can be found, employee id: [" + id + "]");
+        }
+        return employee.getDepartmentId();
+    }
+
+    // in the order of the ids, ids that match no employee are left out
+    private static List<Employee> employeesOf(final OrgSnapshot snapshot, final Set<Long> ids) {
+        final List<Employee> result = new ArrayList<>(ids.size());
+        for (final Long id : ids) {
+            final Employee employee = snapshot.getEmployee(id);
+            if (null != employee) {
+                result.add(employee);
+            }
+        }
+        return result;
     }
 
 }
\ No newline at end of file
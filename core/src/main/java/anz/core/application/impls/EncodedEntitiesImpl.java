@@ -0,0 +1,111 @@
+package anz.core.application.impls;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import anz.core.application.EncodedEntities;
+import anz.core.domain.models.EncodedEntity;
+
+// the least recently read rows are dropped first once the bytes of all cached variants pass the cap
+@Component
+class EncodedEntitiesImpl implements EncodedEntities {
+    static final long MAX_BYTES = 32L * 1024 * 1024;
+
+    // a guess at what the map entries, the key and the entity cost on top of the bytes themselves
+    static final int OVERHEAD = 160;
+
+    private final long maxBytes;
+
+    // row to its variants, least recently read row first
+    private final LinkedHashMap<String, Map<String, EncodedEntity>> rows = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    private long bytes;
+
+    EncodedEntitiesImpl() {
+        this(MAX_BYTES);
+    }
+
+    EncodedEntitiesImpl(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public synchronized EncodedEntity get(final Class<?> entityType, final long id, final String variant) {
+        final Map<String, EncodedEntity> variants = rows.get(keyOf(entityType, id));
+        return null == variants ? null : variants.get(variant);
+    }
+
+    @Override
+    public EncodedEntity get(final Class<?> entityType, final long id, final String variant, final Supplier<EncodedEntity> loader) {
+        final EncodedEntity cached = get(entityType, id, variant);
+        if (null != cached) {
+            return cached;
+        }
+        final long startedAt = evictions.get();
+        final EncodedEntity loaded = loader.get();
+        if (null != loaded) {
+            put(keyOf(entityType, id), variant, loaded, startedAt);
+        }
+        return loaded;
+    }
+
+    @Override
+    public void evict(final Class<?> entityType, final long id) {
+        final String key = keyOf(entityType, id);
+        remove(key);
+        // a read before the commit still loads the old row and may cache it again
+        Transactions.afterCompletion(status -> remove(key));
+    }
+
+    synchronized long size() {
+        return bytes;
+    }
+
+    // any eviction since the load started may have been of this row, so the loaded bytes are returned but not kept
+    private synchronized void put(final String key, final String variant, final EncodedEntity entity, final long startedAt) {
+        final long cost = costOf(entity);
+        if (evictions.get() != startedAt || cost > maxBytes) {
+            return;
+        }
+        Map<String, EncodedEntity> variants = rows.get(key);
+        if (null == variants) {
+            variants = new HashMap<>(4);
+            rows.put(key, variants);
+        }
+        final EncodedEntity replaced = variants.put(variant, entity);
+        bytes += cost - (null == replaced ? 0 : costOf(replaced));
+        final Iterator<Map<String, EncodedEntity>> eldest = rows.values().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            for (final EncodedEntity evicted : eldest.next().values()) {
+                bytes -= costOf(evicted);
+            }
+            eldest.remove();
+        }
+    }
+
+    private synchronized void remove(final String key) {
+        evictions.incrementAndGet();
+        final Map<String, EncodedEntity> variants = rows.remove(key);
+        if (null != variants) {
+            for (final EncodedEntity evicted : variants.values()) {
+                bytes -= costOf(evicted);
+            }
+        }
+    }
+
+    private static long costOf(final EncodedEntity entity) {
+        return entity.getBytes().length + OVERHEAD;
+    }
+
+    private static String keyOf(final Class<?> entityType, final long id) {
+        return entityType.getSimpleName() + ":" + id;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package anz.core.application.impls;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ReflectionUtils;
+
+// the rows of a sparse read built from entities that are already in memory, laid out like the ones the repositories select
+final class EntityRows {
+    private EntityRows() {
+    }
+
+    // throws IllegalArgumentException for an attribute the type has no getter for, just like the query would
+    static <T> List<Map<String, Object>> of(final Class<T> type, final List<T> entities, final List<String> attributes) {
+        final List<String> selected = new ArrayList<>(new LinkedHashSet<>(attributes));
+        selected.remove("id");
+        final Method idGetter = getterOf(type, "id");
+        final List<Method> getters = new ArrayList<>(selected.size());
+        for (final String attribute : selected) {
+            getters.add(getterOf(type, attribute));
+        }
+        final List<Map<String, Object>> result = new ArrayList<>(entities.size());
+        for (final T entity : entities) {
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("id", ReflectionUtils.invokeMethod(idGetter, entity));
+            for (int index = 0; index < selected.size(); index++) {
+                fields.put(selected.get(index), ReflectionUtils.invokeMethod(getters.get(index), entity));
+            }
+            result.add(fields);
+        }
+        return result;
+    }
+
+    private static Method getterOf(final Class<?> type, final String attribute) {
+        final PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(type, attribute);
+        if (null == descriptor || null == descriptor.getReadMethod() || Object.class == descriptor.getReadMethod().getDeclaringClass()) {
+            throw new IllegalArgumentException("Unable to locate attribute with the given name [" + attribute + "] on " + type.getSimpleName());
+        }
+        return descriptor.getReadMethod();
+    }
+}
\ No newline at end of file
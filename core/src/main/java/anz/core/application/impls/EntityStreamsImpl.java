@@ -0,0 +1,34 @@
+package anz.core.application.impls;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.stereotype.Component;
+
+import anz.core.application.EntityStreams;
+
+@Component
+class EntityStreamsImpl implements EntityStreams {
+    private EntityManager entityManager;
+
+    @PersistenceContext
+    void setEntityManager(final EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public <T> void forEach(final Stream<T> entities, final Consumer<? super T> consumer) {
+        try (final Stream<T> stream = entities) {
+            final Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                final T entity = iterator.next();
+                consumer.accept(entity);
+                entityManager.detach(entity);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,101 @@
+package anz.core.application.impls;
+
+import java.lang.reflect.Method;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+import javax.persistence.Table;
+
+import org.hibernate.Session;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.stereotype.Component;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// startup fails when a finder of the employee or department repository would scan the whole table: the first column it filters on
+// has to be the first column of some index, and it cannot ignore case, since a lower() or upper() around the column defeats the index
+@Component
+class FinderIndexCheck {
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceUnit
+    void setEntityManagerFactory(final EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @PostConstruct
+    void check() {
+        final List<String> unsupported = new ArrayList<>();
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.unwrap(Session.class).doWork(connection -> {
+                final DatabaseMetaData metaData = connection.getMetaData();
+                unsupported.addAll(unsupportedFinders(EmployeeRepository.class, Employee.class, leadingColumnsOf(metaData, tableOf(Employee.class))));
+                unsupported.addAll(unsupportedFinders(DepartmentRepository.class, Department.class, leadingColumnsOf(metaData, tableOf(Department.class))));
+            });
+        } finally {
+            entityManager.close();
+        }
+        if (!unsupported.isEmpty()) {
+            throw new IllegalStateException("Finders without a supporting index: " + unsupported);
+        }
+    }
+
+    // finders are the find...By... methods of the repository itself, derived or with a query of their own, their name says what they filter on
+    static List<String> unsupportedFinders(final Class<?> repository, final Class<?> domainType, final Set<String> leadingColumns) {
+        final List<String> result = new ArrayList<>();
+        for (final Method method : repository.getDeclaredMethods()) {
+            final String name = method.getName();
+            if (!name.startsWith("find") || !name.contains("By")) {
+                continue;
+            }
+            final PartTree tree = new PartTree(name, domainType);
+            final Part leading = tree.iterator().next().iterator().next();
+            if (Part.IgnoreCaseType.NEVER != leading.shouldIgnoreCase()
+                || !leadingColumns.contains(leading.getProperty().getSegment().toLowerCase(Locale.ROOT))) {
+                result.add(repository.getSimpleName() + "." + name);
+            }
+        }
+        return result;
+    }
+
+    private static String tableOf(final Class<?> domainType) {
+        return domainType.getAnnotation(Table.class).name();
+    }
+
+    // lower case, the primary key counts as an index too
+    private static Set<String> leadingColumnsOf(final DatabaseMetaData metaData, final String table) throws SQLException {
+        final String stored = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                                                                    : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+        final Set<String> result = new HashSet<>();
+        try (ResultSet rows = metaData.getIndexInfo(null, null, stored, false, true)) {
+            while (rows.next()) {
+                if (1 == rows.getShort("ORDINAL_POSITION")) {
+                    result.add(rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        try (ResultSet rows = metaData.getPrimaryKeys(null, null, stored)) {
+            while (rows.next()) {
+                if (1 == rows.getShort("KEY_SEQ")) {
+                    result.add(rows.getString("COLUMN_NAME").toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.apache.commons.lang3.Validate;
+
+// lookups by a list of ids, which are answered in the order of the list whatever order the database returns the rows in
+final class Ids {
+    private Ids() {
+    }
+
+    static Set<Long> uniqueOf(final List<Long> ids, final int max) {
+        Validate.notNull(ids, "ids cannot be null");
+        Validate.noNullElements(ids, "ids cannot contain null");
+        Validate.isTrue(ids.size() <= max, "cannot get more than " + max + " rows at once");
+        return new LinkedHashSet<>(ids);
+    }
+
+    // rows whose id is not among the ids are dropped, ids without a row are skipped
+    static <T> List<T> inOrder(final Collection<Long> ids, final Iterable<T> rows, final Function<T, Long> idOf) {
+        final Map<Long, T> found = new HashMap<>();
+        for (final T row : rows) {
+            found.put(idOf.apply(row), row);
+        }
+        final List<T> result = new ArrayList<>(found.size());
+        for (final Long id : ids) {
+            final T row = found.get(id);
+            if (null != row) {
+                result.add(row);
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
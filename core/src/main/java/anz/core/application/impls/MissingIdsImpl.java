@@ -0,0 +1,106 @@
+package anz.core.application.impls;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import anz.core.application.MissingIds;
+
+// the most recently asked missing ids of every table. an id is forgotten when a row takes it, or at the latest after a while,
+// which bounds how long a row written around the services stays invisible
+@Component
+class MissingIdsImpl implements MissingIds {
+    static final int MAX_IDS = 10000;
+
+    static final long TIME_TO_LIVE = TimeUnit.MINUTES.toNanos(1);
+
+    private final ConcurrentMap<Class<?>, Table> tables = new ConcurrentHashMap<>();
+
+    @Override
+    public <T> T get(final Class<?> entityType, final long id, final Supplier<T> loader) {
+        final Table table = tableOf(entityType);
+        if (table.isMissing(id)) {
+            return null;
+        }
+        final long startedAt = table.creations.get();
+        final T result = loader.get();
+        if (null == result) {
+            table.remember(id);
+            // a row created while the lookup ran may have taken the id, it is forgotten again rather than trusted
+            if (table.creations.get() != startedAt) {
+                table.remove(id);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void created(final Class<?> entityType, final Collection<Long> ids) {
+        final Table table = tableOf(entityType);
+        table.forget(ids);
+        // a lookup before the commit does not see the new rows yet and may remember their ids again
+        Transactions.afterCompletion(status -> table.forget(ids));
+    }
+
+    int size(final Class<?> entityType) {
+        return tableOf(entityType).size();
+    }
+
+    private Table tableOf(final Class<?> entityType) {
+        return tables.computeIfAbsent(entityType, key -> new Table());
+    }
+
+    private static final class Table {
+        private final AtomicLong creations = new AtomicLong();
+
+        // id to when it was found missing, least recently asked first
+        private final Map<Long, Long> missingSince = new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Long, Long> eldest) {
+                return size() > MAX_IDS;
+            }
+        };
+
+        synchronized boolean isMissing(final long id) {
+            final Long since = missingSince.get(id);
+            if (null == since) {
+                return false;
+            }
+            if (System.nanoTime() - since > TIME_TO_LIVE) {
+                missingSince.remove(id);
+                return false;
+            }
+            return true;
+        }
+
+        synchronized void remember(final long id) {
+            missingSince.put(id, System.nanoTime());
+        }
+
+        synchronized void remove(final long id) {
+            missingSince.remove(id);
+        }
+
+        void forget(final Collection<Long> ids) {
+            creations.incrementAndGet();
+            synchronized (this) {
+                for (final Long id : ids) {
+                    missingSince.remove(id);
+                }
+            }
+        }
+
+        synchronized int size() {
+            return missingSince.size();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,161 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import anz.core.application.OrgSnapshot;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+
+// every change returns a new snapshot that shares all the nodes it did not touch with this one.
+// entities are copied on the way in and on the way out, so nobody changing their own instance changes a published snapshot
+final class OrgSnapshotImpl implements OrgSnapshot {
+    static final OrgSnapshotImpl EMPTY = new OrgSnapshotImpl(0L, PersistentIdMap.<Department> empty(), PersistentIdMap.<Employee> empty(),
+                                                             PersistentIdMap.<PersistentIdMap<Department>> empty(),
+                                                             PersistentIdMap.<PersistentIdMap<Employee>> empty());
+
+    private final long version;
+
+    private final PersistentIdMap<Department> departments;
+
+    private final PersistentIdMap<Employee> employees;
+
+    // by the id of the parent department
+    private final PersistentIdMap<PersistentIdMap<Department>> subDepartments;
+
+    // by the id of the department
+    private final PersistentIdMap<PersistentIdMap<Employee>> departmentEmployees;
+
+    private OrgSnapshotImpl(final long version, final PersistentIdMap<Department> departments, final PersistentIdMap<Employee> employees,
+                            final PersistentIdMap<PersistentIdMap<Department>> subDepartments, final PersistentIdMap<PersistentIdMap<Employee>> departmentEmployees) {
+        this.version = version;
+        this.departments = departments;
+        this.employees = employees;
+        this.subDepartments = subDepartments;
+        this.departmentEmployees = departmentEmployees;
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    @Override
+    public Department getDepartment(final long id) {
+        final Department department = departments.get(id);
+        return null == department ? null : copyOf(department);
+    }
+
+    @Override
+    public Employee getEmployee(final long id) {
+        final Employee employee = employees.get(id);
+        return null == employee ? null : copyOf(employee);
+    }
+
+    @Override
+    public List<Department> getDepartments(final Long after, final int limit) {
+        return copiesOf(departments.values(after, limit), OrgSnapshotImpl::copyOf);
+    }
+
+    @Override
+    public List<Employee> getEmployees(final Long after, final int limit) {
+        return copiesOf(employees.values(after, limit), OrgSnapshotImpl::copyOf);
+    }
+
+    @Override
+    public List<Department> getSubDepartments(final long id) {
+        return copiesOf(valuesOf(subDepartments.get(id)), OrgSnapshotImpl::copyOf);
+    }
+
+    @Override
+    public List<Employee> getEmployeesOf(final long departmentId) {
+        return copiesOf(valuesOf(departmentEmployees.get(departmentId)), OrgSnapshotImpl::copyOf);
+    }
+
+    // a change that committed earlier but is applied later than another change of the same row is dropped
+    OrgSnapshotImpl with(final Department department) {
+        final Department copy = copyOf(department);
+        final long id = copy.getId();
+        final Department old = departments.get(id);
+        if (null != old && old.getVersion() > copy.getVersion()) {
+            return this;
+        }
+        final PersistentIdMap<PersistentIdMap<Department>> unlinked = null == old ? subDepartments : unlink(subDepartments, old.getParentDepartmentId(), id);
+        return new OrgSnapshotImpl(version + 1, departments.put(id, copy), employees, link(unlinked, copy.getParentDepartmentId(), id, copy), departmentEmployees);
+    }
+
+    // the employees of the department keep pointing at it, just like their rows do
+    OrgSnapshotImpl withoutDepartment(final long id) {
+        final Department old = departments.get(id);
+        if (null == old) {
+            return this;
+        }
+        return new OrgSnapshotImpl(version + 1, departments.remove(id), employees, unlink(subDepartments, old.getParentDepartmentId(), id), departmentEmployees);
+    }
+
+    OrgSnapshotImpl with(final Employee employee) {
+        final Employee copy = copyOf(employee);
+        final long id = copy.getId();
+        final Employee old = employees.get(id);
+        if (null != old && old.getVersion() > copy.getVersion()) {
+            return this;
+        }
+        final PersistentIdMap<PersistentIdMap<Employee>> unlinked = null == old ? departmentEmployees : unlink(departmentEmployees, old.getDepartmentId(), id);
+        return new OrgSnapshotImpl(version + 1, departments, employees.put(id, copy), subDepartments, link(unlinked, copy.getDepartmentId(), id, copy));
+    }
+
+    OrgSnapshotImpl withoutEmployee(final long id) {
+        final Employee old = employees.get(id);
+        if (null == old) {
+            return this;
+        }
+        return new OrgSnapshotImpl(version + 1, departments, employees.remove(id), subDepartments, unlink(departmentEmployees, old.getDepartmentId(), id));
+    }
+
+    static Department copyOf(final Department department) {
+        return Department.Builder.newInstance(department.getId(), department.getName(), department.getOpenPositions()).location(department.getLocation())
+                                 .managerId(department.getManagerId()).parentDepartment(department.getParentDepartmentId()).version(department.getVersion())
+                                 .build();
+    }
+
+    static Employee copyOf(final Employee employee) {
+        return Employee.Builder.newInstance(employee.getId(), employee.getFirstname(), employee.getLastname(), employee.getLdapUsername(), employee.getTitle(),
+                                            employee.getGrade())
+                               .gender(employee.getGender()).birthdate(employee.getBirthdate()).departmentId(employee.getDepartmentId())
+                               .version(employee.getVersion()).build();
+    }
+
+    private static <V> List<V> valuesOf(final PersistentIdMap<V> group) {
+        return null == group ? Collections.<V> emptyList() : group.values(null, 0);
+    }
+
+    private static <V> List<V> copiesOf(final List<V> values, final UnaryOperator<V> copyOf) {
+        final List<V> result = new ArrayList<>(values.size());
+        for (final V value : values) {
+            result.add(copyOf.apply(value));
+        }
+        return result;
+    }
+
+    private static <V> PersistentIdMap<PersistentIdMap<V>> link(final PersistentIdMap<PersistentIdMap<V>> groups, final Long groupId, final long id, final V value) {
+        if (null == groupId) {
+            return groups;
+        }
+        final PersistentIdMap<V> group = groups.get(groupId);
+        return groups.put(groupId, (null == group ? PersistentIdMap.<V> empty() : group).put(id, value));
+    }
+
+    private static <V> PersistentIdMap<PersistentIdMap<V>> unlink(final PersistentIdMap<PersistentIdMap<V>> groups, final Long groupId, final long id) {
+        if (null == groupId) {
+            return groups;
+        }
+        final PersistentIdMap<V> group = groups.get(groupId);
+        if (null == group) {
+            return groups;
+        }
+        final PersistentIdMap<V> rest = group.remove(id);
+        return 0 == rest.size() ? groups.remove(groupId) : groups.put(groupId, rest);
+    }
+}
\ No newline at end of file
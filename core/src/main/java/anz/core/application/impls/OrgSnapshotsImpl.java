@@ -0,0 +1,121 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import anz.core.application.OrgSnapshot;
+import anz.core.application.OrgSnapshots;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// turned on with -Danz.snapshotReads=true. readers only follow a volatile reference, writers swap it for a new snapshot under
+// the write lock, and only the first read waits for every row to be loaded
+@Component
+class OrgSnapshotsImpl implements OrgSnapshots {
+    private final DepartmentRepository departmentRepository;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final boolean enabled;
+
+    private final Object writeLock = new Object();
+
+    private volatile OrgSnapshotImpl snapshot;
+
+    @Autowired(required = true)
+    OrgSnapshotsImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository,
+                     @Value("#{systemProperties['anz.snapshotReads'] == 'true'}") final boolean enabled) {
+        this.departmentRepository = departmentRepository;
+        this.employeeRepository = employeeRepository;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public OrgSnapshot current() {
+        if (!enabled) {
+            return null;
+        }
+        final OrgSnapshotImpl current = snapshot;
+        if (null != current) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (null == snapshot) {
+                snapshot = load();
+            }
+            return snapshot;
+        }
+    }
+
+    @Override
+    public void departmentsSaved(final Collection<Department> departments) {
+        final List<Department> saved = new ArrayList<>(departments);
+        publish(current -> {
+            OrgSnapshotImpl next = current;
+            for (final Department department : saved) {
+                next = next.with(department);
+            }
+            return next;
+        });
+    }
+
+    @Override
+    public void departmentRemoved(final long id) {
+        publish(current -> current.withoutDepartment(id));
+    }
+
+    @Override
+    public void employeesSaved(final Collection<Employee> employees) {
+        final List<Employee> saved = new ArrayList<>(employees);
+        publish(current -> {
+            OrgSnapshotImpl next = current;
+            for (final Employee employee : saved) {
+                next = next.with(employee);
+            }
+            return next;
+        });
+    }
+
+    @Override
+    public void employeeRemoved(final long id) {
+        publish(current -> current.withoutEmployee(id));
+    }
+
+    private OrgSnapshotImpl load() {
+        OrgSnapshotImpl loaded = OrgSnapshotImpl.EMPTY;
+        for (final Department department : departmentRepository.findAll()) {
+            loaded = loaded.with(department);
+        }
+        for (final Employee employee : employeeRepository.findAll()) {
+            loaded = loaded.with(employee);
+        }
+        return loaded;
+    }
+
+    // the entities are copied when the change is applied, by then hibernate has flushed them and their versions are the saved ones
+    private void publish(final UnaryOperator<OrgSnapshotImpl> change) {
+        if (!enabled) {
+            return;
+        }
+        Transactions.afterCommit(() -> apply(change));
+    }
+
+    // nothing to do before the first read, which loads the committed rows anyway. a load that raced with a commit has maybe
+    // seen the change already, applying it once more leaves the snapshot as it is
+    private void apply(final UnaryOperator<OrgSnapshotImpl> change) {
+        synchronized (writeLock) {
+            final OrgSnapshotImpl current = snapshot;
+            if (null != current) {
+                snapshot = change.apply(current);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,139 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.Validate;
+
+// an immutable map from non-negative ids to values, kept as a trie of 32 slot nodes picked by 5 bits of the id at a time.
+// a put or a remove copies only the nodes on the path to its id and shares every other node with the map it was made from
+final class PersistentIdMap<V> {
+    private static final int BITS = 5;
+
+    private static final int WIDTH = 1 << BITS;
+
+    private static final int MASK = WIDTH - 1;
+
+    private static final PersistentIdMap<Object> EMPTY = new PersistentIdMap<>(new Object[WIDTH], 0, 0);
+
+    private final Object[] root;
+
+    // how far an id is shifted to pick its slot in the root, 0 when the root holds the values themselves
+    private final int shift;
+
+    private final int size;
+
+    private PersistentIdMap(final Object[] root, final int shift, final int size) {
+        this.root = root;
+        this.shift = shift;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentIdMap<V> empty() {
+        return (PersistentIdMap<V>) EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(final long id) {
+        if (id < 0 || !fits(id, shift)) {
+            return null;
+        }
+        Object[] node = root;
+        for (int level = shift; level > 0; level -= BITS) {
+            node = (Object[]) node[slot(id, level)];
+            if (null == node) {
+                return null;
+            }
+        }
+        return (V) node[slot(id, 0)];
+    }
+
+    PersistentIdMap<V> put(final long id, final V value) {
+        Validate.isTrue(id >= 0, "id cannot be negative");
+        Validate.notNull(value, "value cannot be null");
+        final boolean added = null == get(id);
+        // an id past what the trie can hold puts the current root under a new one, as its first slot
+        Object[] grown = root;
+        int grownShift = shift;
+        while (!fits(id, grownShift)) {
+            final Object[] parent = new Object[WIDTH];
+            parent[0] = grown;
+            grown = parent;
+            grownShift += BITS;
+        }
+        return new PersistentIdMap<>(put(grown, grownShift, id, value), grownShift, added ? size + 1 : size);
+    }
+
+    PersistentIdMap<V> remove(final long id) {
+        if (null == get(id)) {
+            return this;
+        }
+        final Object[] removed = remove(root, shift, id);
+        return new PersistentIdMap<>(null == removed ? new Object[WIDTH] : removed, shift, size - 1);
+    }
+
+    // the values with an id greater than after in id order, at most limit of them and all of them when limit is 0
+    List<V> values(final Long after, final int limit) {
+        final List<V> result = new ArrayList<>(0 == limit ? size : Math.min(size, limit));
+        collect(root, shift, 0L, null == after ? -1L : after, 0 == limit ? Integer.MAX_VALUE : limit, result);
+        return result;
+    }
+
+    private static boolean fits(final long id, final int shift) {
+        return shift + BITS >= Long.SIZE - 1 || 0 == id >>> (shift + BITS);
+    }
+
+    private static int slot(final long id, final int level) {
+        return (int) (id >>> level) & MASK;
+    }
+
+    private static Object[] put(final Object[] node, final int level, final long id, final Object value) {
+        final Object[] copy = null == node ? new Object[WIDTH] : node.clone();
+        final int slot = slot(id, level);
+        copy[slot] = 0 == level ? value : put((Object[]) copy[slot], level - BITS, id, value);
+        return copy;
+    }
+
+    // null when nothing is left in the node, so a removed id does not leave a path of empty nodes behind
+    private static Object[] remove(final Object[] node, final int level, final long id) {
+        final Object[] copy = node.clone();
+        final int slot = slot(id, level);
+        copy[slot] = 0 == level ? null : remove((Object[]) copy[slot], level - BITS, id);
+        for (final Object entry : copy) {
+            if (null != entry) {
+                return copy;
+            }
+        }
+        return null;
+    }
+
+    // false once limit values are collected, which stops the walk
+    @SuppressWarnings("unchecked")
+    private static <V> boolean collect(final Object[] node, final int level, final long base, final long after, final int limit, final List<V> result) {
+        for (int slot = 0; slot < WIDTH; slot++) {
+            final Object entry = node[slot];
+            if (null == entry) {
+                continue;
+            }
+            final long first = base | (long) slot << level;
+            // every id under this slot is at most after, so the whole subtree is skipped
+            if ((first | (1L << level) - 1) <= after) {
+                continue;
+            }
+            if (0 == level) {
+                result.add((V) entry);
+                if (result.size() == limit) {
+                    return false;
+                }
+            } else if (!collect((Object[]) entry, level - BITS, first, after, limit, result)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
\ No newline at end of file
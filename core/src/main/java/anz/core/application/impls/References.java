@@ -0,0 +1,36 @@
+package anz.core.application.impls;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+// checks the ids a request refers to without loading a single entity: a count over the primary key answers the usual case where
+// they all exist, and only when some of several are missing are the existing ones selected to tell which
+final class References {
+    private References() {
+    }
+
+    static Set<Long> missing(final Collection<Long> ids, final Function<Collection<Long>, Long> countIn, final Function<Collection<Long>, List<Long>> idsIn) {
+        final Set<Long> result = new LinkedHashSet<>();
+        for (final List<Long> chunk : Chunks.of(new LinkedHashSet<>(ids))) {
+            final long found = countIn.apply(chunk);
+            if (chunk.size() == found) {
+                continue;
+            }
+            if (0 == found) {
+                result.addAll(chunk);
+                continue;
+            }
+            final Set<Long> existing = new HashSet<>(idsIn.apply(chunk));
+            for (final Long id : chunk) {
+                if (!existing.contains(id)) {
+                    result.add(id);
+                }
+            }
+        }
+        return result;
+    }
+}
\ No newline at end of file
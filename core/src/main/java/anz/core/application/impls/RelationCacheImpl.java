@@ -0,0 +1,151 @@
+package anz.core.application.impls;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import anz.core.application.RelationCache;
+
+// results of relationship lookups, each tagged with the ids it was built from so a write only drops the results that read those ids
+@Component
+class RelationCacheImpl implements RelationCache {
+    static final int MAX_ENTRIES = 100000;
+
+    private final Object lock = new Object();
+
+    // least recently used first, the eldest makes room for a new one once the cache is full
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+            if (size() <= MAX_ENTRIES) {
+                return false;
+            }
+            unindex(eldest.getKey(), eldest.getValue());
+            return true;
+        }
+    };
+
+    // the keys of the entries built from every tag, a tag goes away with the last of its keys
+    private final Map<String, Set<String>> keysByTag = new HashMap<>();
+
+    // the loads running right now, each collecting the tags evicted while it ran
+    private final Set<Load> loads = new HashSet<>();
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(final String key, final Supplier<T> loader, final Function<T, Collection<String>> tagsOf) {
+        final Load load = new Load();
+        synchronized (lock) {
+            final Entry cached = entries.get(key);
+            if (null != cached) {
+                return (T) cached.value;
+            }
+            loads.add(load);
+        }
+        final T value;
+        final Set<String> tags;
+        try {
+            value = loader.get();
+            tags = new HashSet<>(tagsOf.apply(value));
+        } finally {
+            synchronized (lock) {
+                loads.remove(load);
+            }
+        }
+        tags.add(key);
+        synchronized (lock) {
+            // the value may have been read before a write that is already evicted
+            for (final String tag : tags) {
+                if (load.evicted.contains(tag)) {
+                    return value;
+                }
+            }
+            final Entry entry = new Entry(value, tags);
+            final Entry replaced = entries.put(key, entry);
+            if (null != replaced) {
+                unindex(key, replaced);
+            }
+            for (final String tag : tags) {
+                keysByTag.computeIfAbsent(tag, ignored -> new HashSet<>()).add(key);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public void evict(final Collection<String> tags) {
+        final Set<String> evicted = new HashSet<>(tags);
+        evictNow(evicted);
+        // a reader between the write and the commit still sees the old rows and may cache them again
+        Transactions.afterCompletion(status -> evictNow(evicted));
+    }
+
+    int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    int tagCount() {
+        synchronized (lock) {
+            return keysByTag.size();
+        }
+    }
+
+    private void evictNow(final Set<String> tags) {
+        synchronized (lock) {
+            for (final Load load : loads) {
+                load.evicted.addAll(tags);
+            }
+            for (final String tag : tags) {
+                // every entry is indexed under its own key as well
+                final Set<String> keys = keysByTag.remove(tag);
+                if (null != keys) {
+                    for (final String key : keys) {
+                        final Entry entry = entries.remove(key);
+                        if (null != entry) {
+                            unindex(key, entry);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // called with the lock held
+    private void unindex(final String key, final Entry entry) {
+        for (final String tag : entry.tags) {
+            final Set<String> keys = keysByTag.get(tag);
+            if (null != keys) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTag.remove(tag);
+                }
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Object value;
+
+        private final Set<String> tags;
+
+        private Entry(final Object value, final Set<String> tags) {
+            this.value = value;
+            this.tags = tags;
+        }
+    }
+
+    private static final class Load {
+        private final Set<String> evicted = new HashSet<>();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import anz.core.domain.models.Department;
+
+// keys and tags of the relation cache, a key is a tag of its own result as well
+final class RelationTags {
+    private RelationTags() {
+    }
+
+    // the sub-departments of a department, evicted when a department moves under or away from it
+    static String subDepartmentsOf(final long departmentId) {
+        return "department.subDepartments:" + departmentId;
+    }
+
+    // the employees of a department, evicted when one of them is created, changed or removed
+    static String employeesOf(final long departmentId) {
+        return "department.employees:" + departmentId;
+    }
+
+    static String departmentOf(final long employeeId) {
+        return "employee.department:" + employeeId;
+    }
+
+    // every result holding the department itself
+    static String department(final long departmentId) {
+        return "department:" + departmentId;
+    }
+
+    static List<String> departments(final Collection<Department> departments) {
+        final List<String> result = new ArrayList<>(departments.size());
+        for (final Department department : departments) {
+            result.add(department(department.getId()));
+        }
+        return result;
+    }
+}
\ No newline at end of file
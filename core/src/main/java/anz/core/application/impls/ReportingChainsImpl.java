@@ -0,0 +1,148 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+
+import anz.core.application.DepartmentHierarchy;
+import anz.core.application.ReportingChains;
+import anz.core.domain.models.Department;
+import anz.core.repositories.DepartmentRepository;
+
+// a chain is built on top of its parent's chain, so whenever a department is cached all of its ancestors are too,
+// and a manager or parent change only has to drop the subtree below the changed department
+@Component
+class ReportingChainsImpl implements ReportingChains {
+    private final DepartmentRepository departmentRepository;
+
+    private final DepartmentHierarchy departmentHierarchy;
+
+    private final ConcurrentMap<Long, Chain> chains = new ConcurrentHashMap<>();
+
+    private final Object writeLock = new Object();
+
+    // bumped by every change, chains loaded while a change happened are returned but not kept
+    private final AtomicLong version = new AtomicLong();
+
+    @Autowired(required = true)
+    ReportingChainsImpl(final DepartmentRepository departmentRepository, final DepartmentHierarchy departmentHierarchy) {
+        this.departmentRepository = departmentRepository;
+        this.departmentHierarchy = departmentHierarchy;
+    }
+
+    @Override
+    public List<Long> getManagerIds(final long departmentId) {
+        final Chain cached = chains.get(departmentId);
+        if (null != cached) {
+            return cached.managerIds;
+        }
+        if (!departmentHierarchy.contains(departmentId)) {
+            return Collections.emptyList();
+        }
+        final long expectedVersion = version.get();
+        // everything below the first cached ancestor is loaded with a single query
+        final List<Long> missingIds = new ArrayList<>();
+        Chain chain = null;
+        Long current = departmentId;
+        while (null != current) {
+            chain = chains.get(current);
+            if (null != chain) {
+                break;
+            }
+            missingIds.add(current);
+            current = departmentHierarchy.getParentId(current);
+        }
+        final Map<Long, Department> departments = new HashMap<>();
+        for (final Department department : departmentRepository.findAll(missingIds)) {
+            departments.put(department.getId(), department);
+        }
+        final Map<Long, Chain> loaded = new HashMap<>();
+        for (int index = missingIds.size() - 1; index >= 0; index--) {
+            final Department department = departments.get(missingIds.get(index));
+            if (null == department) {
+                // removed while the chain was being loaded
+                return Collections.emptyList();
+            }
+            chain = new Chain(department.getManagerId(), department.getParentDepartmentId(), chain);
+            loaded.put(department.getId(), chain);
+        }
+        synchronized (writeLock) {
+            if (version.get() == expectedVersion) {
+                chains.putAll(loaded);
+            }
+        }
+        return chain.managerIds;
+    }
+
+    @Override
+    public void departmentUpdated(final long id, final Long managerId, final Long parentId) {
+        dropIfChanged(id, managerId, parentId);
+        // a reader between the write and the commit still sees the old row and may cache the old chain again
+        Transactions.afterCompletion(status -> {
+            if (TransactionSynchronization.STATUS_COMMITTED == status) {
+                dropIfChanged(id, managerId, parentId);
+            }
+        });
+    }
+
+    @Override
+    public void departmentRemoved(final long id) {
+        drop(id);
+        Transactions.afterCompletion(status -> {
+            if (TransactionSynchronization.STATUS_COMMITTED == status) {
+                drop(id);
+            }
+        });
+    }
+
+    private void dropIfChanged(final long id, final Long managerId, final Long parentId) {
+        synchronized (writeLock) {
+            version.incrementAndGet();
+            final Chain cached = chains.get(id);
+            if (null == cached || (!ObjectUtils.notEqual(cached.managerId, managerId) && !ObjectUtils.notEqual(cached.parentId, parentId))) {
+                return;
+            }
+            for (final Long subtreeId : departmentHierarchy.getSubtreeIds(id)) {
+                chains.remove(subtreeId);
+            }
+        }
+    }
+
+    private void drop(final long id) {
+        synchronized (writeLock) {
+            version.incrementAndGet();
+            chains.remove(id);
+        }
+    }
+
+    private static final class Chain {
+        private final Long managerId;
+
+        private final Long parentId;
+
+        private final List<Long> managerIds;
+
+        Chain(final Long managerId, final Long parentId, final Chain parent) {
+            this.managerId = managerId;
+            this.parentId = parentId;
+            final List<Long> ids = new ArrayList<>();
+            if (null != managerId) {
+                ids.add(managerId);
+            }
+            if (null != parent) {
+                ids.addAll(parent.managerIds);
+            }
+            managerIds = Collections.unmodifiableList(ids);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package anz.core.application.impls;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+import anz.core.application.TableVersions;
+
+// one counter per table, only writes through the services move it.
+// the boot time keeps a counter from repeating a value it had before a restart
+@Component
+class TableVersionsImpl implements TableVersions {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ConcurrentMap<Class<?>, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public String get(final Class<?> entityType) {
+        return epoch + "." + counterOf(entityType).get();
+    }
+
+    @Override
+    public void changed(final Class<?> entityType) {
+        final AtomicLong counter = counterOf(entityType);
+        // moving it before the commit would let a reader tag the old rows with the new version and keep them forever,
+        // after the commit the worst case is a reader tagging the new rows with the old version and fetching them once more
+        Transactions.afterCompletion(status -> counter.incrementAndGet());
+    }
+
+    private AtomicLong counterOf(final Class<?> entityType) {
+        return counters.computeIfAbsent(entityType, key -> new AtomicLong());
+    }
+}
\ No newline at end of file
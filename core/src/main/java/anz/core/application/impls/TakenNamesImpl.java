@@ -0,0 +1,109 @@
+package anz.core.application.impls;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import anz.core.application.TakenNames;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// one chain of bloom filters per table, loaded from the table once and then fed by the services.
+// a full filter is never rebuilt, as a rebuild could miss a name whose insert has not committed yet,
+// a new filter twice its size is chained behind it instead
+@Component
+class TakenNamesImpl implements TakenNames {
+    private static final int MIN_CAPACITY = 1024;
+
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    private final DepartmentRepository departmentRepository;
+
+    private final EmployeeRepository employeeRepository;
+
+    private final Object writeLock = new Object();
+
+    private final ConcurrentMap<Class<?>, List<BloomFilter>> filters = new ConcurrentHashMap<>();
+
+    @Autowired(required = true)
+    TakenNamesImpl(final DepartmentRepository departmentRepository, final EmployeeRepository employeeRepository) {
+        this.departmentRepository = departmentRepository;
+        this.employeeRepository = employeeRepository;
+    }
+
+    @Override
+    public boolean mightBeTaken(final Class<?> entityType, final String name) {
+        if (null == name) {
+            return true;
+        }
+        final String key = keyOf(entityType, name);
+        for (final BloomFilter filter : filtersOf(entityType)) {
+            if (filter.mightContain(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void taken(final Class<?> entityType, final String name) {
+        if (null == name) {
+            return;
+        }
+        final List<BloomFilter> chain = filtersOf(entityType);
+        synchronized (writeLock) {
+            BloomFilter last = chain.get(chain.size() - 1);
+            if (last.isFull()) {
+                last = new BloomFilter(last.getCapacity() * 2, FALSE_POSITIVE_RATE);
+                chain.add(last);
+            }
+            last.add(keyOf(entityType, name));
+        }
+    }
+
+    private List<BloomFilter> filtersOf(final Class<?> entityType) {
+        final List<BloomFilter> loaded = filters.get(entityType);
+        if (null != loaded) {
+            return loaded;
+        }
+        synchronized (writeLock) {
+            List<BloomFilter> result = filters.get(entityType);
+            if (null == result) {
+                result = load(entityType);
+                filters.put(entityType, result);
+            }
+            return result;
+        }
+    }
+
+    private List<BloomFilter> load(final Class<?> entityType) {
+        final List<String> names;
+        if (Employee.class.equals(entityType)) {
+            names = employeeRepository.findAllLdapUsernames();
+        } else if (Department.class.equals(entityType)) {
+            names = departmentRepository.findAllLowerNames();
+        } else {
+            throw new IllegalArgumentException("No names are kept for " + entityType.getSimpleName());
+        }
+        final BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, names.size() * 2), FALSE_POSITIVE_RATE);
+        for (final String name : names) {
+            if (null != name) {
+                filter.add(name);
+            }
+        }
+        final List<BloomFilter> result = new CopyOnWriteArrayList<>();
+        result.add(filter);
+        return result;
+    }
+
+    private static String keyOf(final Class<?> entityType, final String name) {
+        return Department.class.equals(entityType) ? name.toLowerCase(Locale.ROOT) : name;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,41 @@
+package anz.core.application.impls;
+
+import java.util.function.IntConsumer;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// work that has to wait for the current transaction. outside a transaction it runs right away, as if it had committed
+final class Transactions {
+    private Transactions() {
+    }
+
+    // in the order of registration, and all of them before any afterCompletion of the same transaction
+    static void afterCommit(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // called with one of the TransactionSynchronization.STATUS_ values, whether the transaction committed or not
+    static void afterCompletion(final IntConsumer action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(final int status) {
+                    action.accept(status);
+                }
+            });
+        } else {
+            action.accept(TransactionSynchronization.STATUS_COMMITTED);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,30 @@
+package anz.core.application.impls;
+
+import java.sql.SQLException;
+import java.util.Locale;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+// the unique constraints the entities declare, an insert that breaks one of them fails in the database and is reported as
+// an EntityExistsException, so the usual insert is a single statement without a lookup before it
+final class UniqueConstraints {
+    static final String EMPLOYEE_LDAP_USERNAME = "UK_Employee_ldapUsername";
+
+    static final String DEPARTMENT_LOWER_NAME = "UK_Department_lowerName";
+
+    private UniqueConstraints() {
+    }
+
+    // databases report the name in their own case, and when hibernate cannot pick it out the message of the driver still has it
+    static boolean isViolated(final Throwable exception, final String name) {
+        for (Throwable cause = exception; null != cause; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof ConstraintViolationException && name.equalsIgnoreCase(((ConstraintViolationException) cause).getConstraintName())) {
+                return true;
+            }
+            if (cause instanceof SQLException && null != cause.getMessage() && cause.getMessage().toUpperCase(Locale.ROOT).contains(name.toUpperCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
\ No newline at end of file
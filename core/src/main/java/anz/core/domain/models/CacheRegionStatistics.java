@@ -0,0 +1,42 @@
+package anz.core.domain.models;
+
+// counters of one second level cache region since startup, entries is what the region holds right now
+public class CacheRegionStatistics {
+    private final String name;
+
+    private final long hits;
+
+    private final long misses;
+
+    private final long puts;
+
+    private final long entries;
+
+    public CacheRegionStatistics(final String name, final long hits, final long misses, final long puts, final long entries) {
+        this.name = name;
+        this.hits = hits;
+        this.misses = misses;
+        this.puts = puts;
+        this.entries = entries;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getPuts() {
+        return puts;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,36 @@
+package anz.core.domain.models;
+
+import org.apache.commons.lang3.Validate;
+
+// the lowest department two departments share, with how many levels each of them sits below it
+public class CommonAncestor {
+    private final Department department;
+
+    private final int distanceFromA;
+
+    private final int distanceFromB;
+
+    public CommonAncestor(final Department department, final int distanceFromA, final int distanceFromB) {
+        Validate.notNull(department, "department cannot be null");
+        this.department = department;
+        this.distanceFromA = distanceFromA;
+        this.distanceFromB = distanceFromB;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public int getDistanceFromA() {
+        return distanceFromA;
+    }
+
+    public int getDistanceFromB() {
+        return distanceFromB;
+    }
+
+    // number of parent links on the path from A up to the common department and down to B
+    public int getDistance() {
+        return distanceFromA + distanceFromB;
+    }
+}
\ No newline at end of file
@@ -1,15 +1,30 @@
 package anz.core.domain.models;
 
+import java.util.Locale;
+
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 import org.apache.commons.lang3.Validate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "Department")
+@Table(name = "Department", uniqueConstraints = @UniqueConstraint(name = "UK_Department_lowerName", columnNames = "lowerName"),
+       indexes = { @Index(name = "IDX_Department_parentDepartmentId", columnList = "parentDepartmentId"),
+                   @Index(name = "IDX_Department_managerId", columnList = "managerId") })
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Department {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -17,6 +32,9 @@ public class Department {
 
     private String name;
 
+    // the name in lower case, what case insensitive lookups go through so they can use an index
+    private String lowerName;
+
     private String location;
 
     private Long managerId;
@@ -25,22 +43,34 @@ public class Department {
 
     private Long parentDepartmentId;
 
+    // bumped by hibernate on every update, it is what the ETag of a single department is built from.
+    // the default lets the column be added to a table that already has rows
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     Department() {
     }
 
     private Department(final Builder builder) {
         id = builder.id;
         name = builder.name;
+        lowerName = builder.name.toLowerCase(Locale.ROOT);
         location = builder.location;
         managerId = builder.managerId;
         openPositions = builder.openPositions;
         parentDepartmentId = builder.parentDepartmentId;
+        version = builder.version;
     }
 
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getName() {
         return name;
     }
@@ -81,6 +111,8 @@ public class Department {
 
         private Long parentDepartmentId;
 
+        private long version;
+
         private Builder(final Long id, final String name, final int openPositions) {
             this.id = id;
             this.name = name;
@@ -113,6 +145,12 @@ public class Department {
             return this;
         }
 
+        // only for copies of rows that were already saved, a new row always starts at 0
+        public Builder version(final long version) {
+            this.version = version;
+            return this;
+        }
+
         public Department build() {
             return new Department(this);
         }
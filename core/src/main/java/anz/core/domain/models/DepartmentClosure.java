@@ -0,0 +1,78 @@
+package anz.core.domain.models;
+
+import java.io.Serializable;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.Index;
+import javax.persistence.Table;
+
+// one row per (ancestor, descendant) pair of the department tree, including the zero depth row of every department to itself
+@Entity
+@IdClass(DepartmentClosure.Key.class)
+@Table(name = "DepartmentClosure", indexes = { @Index(name = "IDX_DepartmentClosure_ancestor", columnList = "ancestorId, depth"),
+                                                @Index(name = "IDX_DepartmentClosure_descendant", columnList = "descendantId, depth") })
+public class DepartmentClosure {
+    @Id
+    private Long ancestorId;
+
+    @Id
+    private Long descendantId;
+
+    private int depth;
+
+    DepartmentClosure() {
+    }
+
+    public DepartmentClosure(final Long ancestorId, final Long descendantId, final int depth) {
+        this.ancestorId = ancestorId;
+        this.descendantId = descendantId;
+        this.depth = depth;
+    }
+
+    public Long getAncestorId() {
+        return ancestorId;
+    }
+
+    public Long getDescendantId() {
+        return descendantId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public static class Key implements Serializable {
+        private static final long serialVersionUID = 2306478187925871637L;
+
+        private Long ancestorId;
+
+        private Long descendantId;
+
+        Key() {
+        }
+
+        public Key(final Long ancestorId, final Long descendantId) {
+            this.ancestorId = ancestorId;
+            this.descendantId = descendantId;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) obj;
+            return ancestorId.equals(other.ancestorId) && descendantId.equals(other.descendantId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * ancestorId.hashCode() + descendantId.hashCode();
+        }
+    }
+}
\ No newline at end of file
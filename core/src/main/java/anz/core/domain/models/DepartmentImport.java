@@ -0,0 +1,42 @@
+package anz.core.domain.models;
+
+import org.apache.commons.lang3.Validate;
+
+// one row of a department tree import, its parent is an existing department given by the parent id of the department,
+// another row given by its ref, or a department of either kind given by name
+public class DepartmentImport {
+    private final String ref;
+
+    private final Department department;
+
+    private final String parentRef;
+
+    private final String parentName;
+
+    public DepartmentImport(final String ref, final Department department, final String parentRef, final String parentName) {
+        Validate.notNull(department, "department cannot be null");
+        Validate.isTrue(null == department.getId(), "id cannot be set while creating department");
+        final int parents = (null == department.getParentDepartmentId() ? 0 : 1) + (null == parentRef ? 0 : 1) + (null == parentName ? 0 : 1);
+        Validate.isTrue(parents <= 1, "only one of parentDepartmentId, parentRef and parentName can be set");
+        this.ref = ref;
+        this.department = department;
+        this.parentRef = parentRef;
+        this.parentName = parentName;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public String getParentRef() {
+        return parentRef;
+    }
+
+    public String getParentName() {
+        return parentName;
+    }
+}
\ No newline at end of file
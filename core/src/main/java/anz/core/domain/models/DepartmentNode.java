@@ -0,0 +1,24 @@
+package anz.core.domain.models;
+
+import org.apache.commons.lang3.Validate;
+
+// a department together with its distance from the department a hierarchy query started at
+public class DepartmentNode {
+    private final Department department;
+
+    private final int depth;
+
+    public DepartmentNode(final Department department, final int depth) {
+        Validate.notNull(department, "department cannot be null");
+        this.department = department;
+        this.depth = depth;
+    }
+
+    public Department getDepartment() {
+        return department;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+}
\ No newline at end of file
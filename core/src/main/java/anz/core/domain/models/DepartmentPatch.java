@@ -0,0 +1,95 @@
+package anz.core.domain.models;
+
+// the fields a partial update sets, every other field keeps what the department has. a field set to null is cleared,
+// openPositions cannot be, every department has some
+public class DepartmentPatch {
+    private final Integer openPositions;
+
+    private final boolean locationSet;
+
+    private final String location;
+
+    private final boolean managerIdSet;
+
+    private final Long managerId;
+
+    private final boolean parentDepartmentIdSet;
+
+    private final Long parentDepartmentId;
+
+    private DepartmentPatch(final Builder builder) {
+        openPositions = builder.openPositions;
+        locationSet = builder.locationSet;
+        location = builder.location;
+        managerIdSet = builder.managerIdSet;
+        managerId = builder.managerId;
+        parentDepartmentIdSet = builder.parentDepartmentIdSet;
+        parentDepartmentId = builder.parentDepartmentId;
+    }
+
+    public int openPositionsOf(final Department department) {
+        return null == openPositions ? department.getOpenPositions() : openPositions;
+    }
+
+    public String locationOf(final Department department) {
+        return locationSet ? location : department.getLocation();
+    }
+
+    public Long managerIdOf(final Department department) {
+        return managerIdSet ? managerId : department.getManagerId();
+    }
+
+    public Long parentDepartmentIdOf(final Department department) {
+        return parentDepartmentIdSet ? parentDepartmentId : department.getParentDepartmentId();
+    }
+
+    public static class Builder {
+        private Integer openPositions;
+
+        private boolean locationSet;
+
+        private String location;
+
+        private boolean managerIdSet;
+
+        private Long managerId;
+
+        private boolean parentDepartmentIdSet;
+
+        private Long parentDepartmentId;
+
+        private Builder() {
+        }
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        public Builder openPositions(final int openPositions) {
+            this.openPositions = openPositions;
+            return this;
+        }
+
+        public Builder location(final String location) {
+            this.locationSet = true;
+            this.location = location;
+            return this;
+        }
+
+        public Builder managerId(final Long managerId) {
+            this.managerIdSet = true;
+            this.managerId = managerId;
+            return this;
+        }
+
+        public Builder parentDepartment(final Long parentDepartmentId) {
+            this.parentDepartmentIdSet = true;
+            this.parentDepartmentId = parentDepartmentId;
+            return this;
+        }
+
+        public DepartmentPatch build() {
+            return new DepartmentPatch(this);
+        }
+    }
+}
\ No newline at end of file
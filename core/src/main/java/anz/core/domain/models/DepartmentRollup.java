@@ -0,0 +1,27 @@
+package anz.core.domain.models;
+
+// totals over a department and every department below it
+public class DepartmentRollup {
+    public static final DepartmentRollup EMPTY = new DepartmentRollup(0L, 0L);
+
+    private final long headcount;
+
+    private final long openPositions;
+
+    public DepartmentRollup(final long headcount, final long openPositions) {
+        this.headcount = headcount;
+        this.openPositions = openPositions;
+    }
+
+    public long getHeadcount() {
+        return headcount;
+    }
+
+    public long getOpenPositions() {
+        return openPositions;
+    }
+
+    public DepartmentRollup plus(final long headcount, final long openPositions) {
+        return new DepartmentRollup(this.headcount + headcount, this.openPositions + openPositions);
+    }
+}
\ No newline at end of file
@@ -1,17 +1,29 @@
 package anz.core.domain.models;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import javax.persistence.Version;
 
 import org.apache.commons.lang3.Validate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
-@Table(name = "Employee")
+@Table(name = "Employee", uniqueConstraints = @UniqueConstraint(name = "UK_Employee_ldapUsername", columnNames = "ldapUsername"),
+       indexes = @Index(name = "IDX_Employee_departmentId", columnList = "departmentId"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@DynamicUpdate
 public class Employee {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,6 +46,12 @@ public class Employee {
 
     private Long departmentId;
 
+    // bumped by hibernate on every update, it is what the ETag of a single employee is built from.
+    // the default lets the column be added to a table that already has rows
+    @Version
+    @ColumnDefault("0")
+    private long version;
+
     Employee() {
     }
 
@@ -47,12 +65,17 @@ public class Employee {
         title = builder.title;
         grade = builder.grade;
         departmentId = builder.departmentId;
+        version = builder.version;
     }
 
     public Long getId() {
         return id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public String getFirstname() {
         return firstname;
     }
@@ -85,6 +108,17 @@ public class Employee {
         return departmentId;
     }
 
+    public void update(final String firstname, final String lastname, final Gender gender, final long birthdate, final String title, final String grade,
+                       final Long departmentId) {
+        this.firstname = firstname;
+        this.lastname = lastname;
+        this.gender = gender;
+        this.birthdate = birthdate;
+        this.title = title;
+        this.grade = grade;
+        this.departmentId = departmentId;
+    }
+
     public static class Builder {
         private final Long id;
 
@@ -104,6 +138,8 @@ public class Employee {
 
         private Long departmentId;
 
+        private long version;
+
         private Builder(final Long id, final String firstname, final String lastname, final String ldapUsername, final String title, final String grade) {
             this.id = id;
             this.firstname = firstname;
@@ -147,6 +183,12 @@ public class Employee {
             return this;
         }
 
+        // only for copies of rows that were already saved, a new row always starts at 0
+        public Builder version(final long version) {
+            this.version = version;
+            return this;
+        }
+
         public Employee build() {
             return new Employee(this);
         }
@@ -0,0 +1,137 @@
+package anz.core.domain.models;
+
+import org.apache.commons.lang3.Validate;
+
+// the fields a partial update sets, every other field keeps what the employee has. only gender and departmentId can be cleared
+// by setting them to null. the ldap username cannot be changed at all, it is what the employee logs in with
+public class EmployeePatch {
+    private final String firstname;
+
+    private final String lastname;
+
+    private final boolean genderSet;
+
+    private final Gender gender;
+
+    private final Long birthdate;
+
+    private final String title;
+
+    private final String grade;
+
+    private final boolean departmentIdSet;
+
+    private final Long departmentId;
+
+    private EmployeePatch(final Builder builder) {
+        firstname = builder.firstname;
+        lastname = builder.lastname;
+        genderSet = builder.genderSet;
+        gender = builder.gender;
+        birthdate = builder.birthdate;
+        title = builder.title;
+        grade = builder.grade;
+        departmentIdSet = builder.departmentIdSet;
+        departmentId = builder.departmentId;
+    }
+
+    public String firstnameOf(final Employee employee) {
+        return null == firstname ? employee.getFirstname() : firstname;
+    }
+
+    public String lastnameOf(final Employee employee) {
+        return null == lastname ? employee.getLastname() : lastname;
+    }
+
+    public Gender genderOf(final Employee employee) {
+        return genderSet ? gender : employee.getGender();
+    }
+
+    public long birthdateOf(final Employee employee) {
+        return null == birthdate ? employee.getBirthdate() : birthdate;
+    }
+
+    public String titleOf(final Employee employee) {
+        return null == title ? employee.getTitle() : title;
+    }
+
+    public String gradeOf(final Employee employee) {
+        return null == grade ? employee.getGrade() : grade;
+    }
+
+    public Long departmentIdOf(final Employee employee) {
+        return departmentIdSet ? departmentId : employee.getDepartmentId();
+    }
+
+    public static class Builder {
+        private String firstname;
+
+        private String lastname;
+
+        private boolean genderSet;
+
+        private Gender gender;
+
+        private Long birthdate;
+
+        private String title;
+
+        private String grade;
+
+        private boolean departmentIdSet;
+
+        private Long departmentId;
+
+        private Builder() {
+        }
+
+        public static Builder newInstance() {
+            return new Builder();
+        }
+
+        public Builder firstname(final String firstname) {
+            Validate.notEmpty(firstname, "firstname cannot be empty");
+            this.firstname = firstname;
+            return this;
+        }
+
+        public Builder lastname(final String lastname) {
+            Validate.notEmpty(lastname, "lastname cannot be empty");
+            this.lastname = lastname;
+            return this;
+        }
+
+        public Builder gender(final Gender gender) {
+            this.genderSet = true;
+            this.gender = gender;
+            return this;
+        }
+
+        public Builder birthdate(final long birthdate) {
+            this.birthdate = birthdate;
+            return this;
+        }
+
+        public Builder title(final String title) {
+            Validate.notEmpty(title, "title cannot be empty");
+            this.title = title;
+            return this;
+        }
+
+        public Builder grade(final String grade) {
+            Validate.notEmpty(grade, "grade cannot be empty");
+            this.grade = grade;
+            return this;
+        }
+
+        public Builder departmentId(final Long departmentId) {
+            this.departmentIdSet = true;
+            this.departmentId = departmentId;
+            return this;
+        }
+
+        public EmployeePatch build() {
+            return new EmployeePatch(this);
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package anz.core.domain.models;
+
+// one row as it was written to a client, and the @Version of the row it was written from
+public class EncodedEntity {
+    private final long version;
+
+    private final byte[] bytes;
+
+    public EncodedEntity(final long version, final byte[] bytes) {
+        this.version = version;
+        this.bytes = bytes;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public byte[] getBytes() {
+        return bytes;
+    }
+}
\ No newline at end of file
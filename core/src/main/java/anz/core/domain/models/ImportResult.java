@@ -0,0 +1,40 @@
+package anz.core.domain.models;
+
+// outcome of one row of a bulk import, id is only set for a created row and message only for a rejected one
+public class ImportResult {
+    public enum Status {
+        CREATED, INVALID, NOT_FOUND, CONFLICT
+    }
+
+    private final Status status;
+
+    private final Long id;
+
+    private final String message;
+
+    private ImportResult(final Status status, final Long id, final String message) {
+        this.status = status;
+        this.id = id;
+        this.message = message;
+    }
+
+    public static ImportResult created(final long id) {
+        return new ImportResult(Status.CREATED, id, null);
+    }
+
+    public static ImportResult rejected(final Status status, final String message) {
+        return new ImportResult(status, null, message);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
\ No newline at end of file
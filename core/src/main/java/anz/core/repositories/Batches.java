@@ -0,0 +1,97 @@
+package anz.core.repositories;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.action.internal.BulkOperationCleanupAction;
+import org.hibernate.engine.spi.SessionImplementor;
+
+// JDBC batch inserts on the connection of the current transaction, identity ids stop hibernate from batching inserts itself
+final class Batches {
+    private static final int BATCH_SIZE = 500;
+
+    interface Binder<T> {
+        void bind(final PreparedStatement statement, final T row) throws SQLException;
+    }
+
+    private Batches() {
+    }
+
+    // the generated ids in the same order as the rows
+    static <T> List<Long> insert(final EntityManager entityManager, final String table, final String sql, final List<T> rows, final Binder<T> binder) {
+        invalidateCaches(entityManager, table);
+        final List<Long> ids = new ArrayList<>(rows.size());
+        entityManager.unwrap(Session.class).doWork(connection -> ids.addAll(insert(connection, sql, rows, binder)));
+        return ids;
+    }
+
+    // JDBC only promises generated keys for a single statement, a batch is trusted when the driver says it has keys and returns
+    // one key for every row, and a batch that returns any other number fails rather than give rows the ids of other rows
+    static <T> List<Long> insert(final Connection connection, final String sql, final List<T> rows, final Binder<T> binder) throws SQLException {
+        final boolean batched = connection.getMetaData().supportsGetGeneratedKeys();
+        final List<Long> ids = new ArrayList<>(rows.size());
+        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+            final int batchSize = batched ? BATCH_SIZE : 1;
+            for (int from = 0; from < rows.size(); from += batchSize) {
+                final List<T> batch = rows.subList(from, Math.min(from + batchSize, rows.size()));
+                if (batched) {
+                    execute(statement, batch, binder);
+                } else {
+                    binder.bind(statement, batch.get(0));
+                    statement.executeUpdate();
+                }
+                final int keys = readKeys(statement, ids);
+                if (keys != batch.size()) {
+                    throw new SQLException("Insert of " + batch.size() + " rows returned " + keys + " generated keys");
+                }
+            }
+        }
+        return ids;
+    }
+
+    static <T> void insertWithoutKeys(final EntityManager entityManager, final String table, final String sql, final List<T> rows, final Binder<T> binder) {
+        invalidateCaches(entityManager, table);
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                    execute(statement, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())), binder);
+                }
+            }
+        });
+    }
+
+    // hibernate does not see statements on the raw connection, so its caches are told the way a native bulk query tells them:
+    // cached query results on the table are dropped now and once more when the transaction completes, cached rows are evicted
+    private static void invalidateCaches(final EntityManager entityManager, final String table) {
+        final SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        session.getActionQueue().addAction(new BulkOperationCleanupAction(session, Collections.singleton(table)));
+    }
+
+    private static int readKeys(final Statement statement, final List<Long> ids) throws SQLException {
+        int count = 0;
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getLong(1));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static <T> void execute(final PreparedStatement statement, final List<T> batch, final Binder<T> binder) throws SQLException {
+        for (final T row : batch) {
+            binder.bind(statement, row);
+            statement.addBatch();
+        }
+        statement.executeBatch();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,45 @@
+package anz.core.repositories;
+
+import java.util.List;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import anz.core.domain.models.DepartmentClosure;
+
+@Repository
+public interface DepartmentClosureRepository extends CrudRepository<DepartmentClosure, DepartmentClosure.Key>, DepartmentClosureRepositoryCustom {
+    long countByDepth(final int depth);
+
+    // rows are [Department, depth] in breadth-first order
+    @Query("select d, c.depth from DepartmentClosure c, Department d where c.ancestorId = :id and c.depth between 1 and :maxDepth and d.id = c.descendantId order by c.depth, d.id")
+    List<Object[]> findDescendants(@Param("id") final long id, @Param("maxDepth") final int maxDepth);
+
+    // rows are [Department, depth], the parent first and the root last
+    @Query("select d, c.depth from DepartmentClosure c, Department d where c.descendantId = :id and c.depth > 0 and d.id = c.ancestorId order by c.depth")
+    List<Object[]> findAncestors(@Param("id") final long id);
+
+    @Query("select d, c.depth from DepartmentClosure c, Department d where c.descendantId = :id and c.ancestorId = :ancestorId and c.depth > 0 and d.id = c.ancestorId")
+    List<Object[]> findAncestor(@Param("id") final long id, @Param("ancestorId") final long ancestorId);
+
+    @Modifying
+    @Query("insert into DepartmentClosure (ancestorId, descendantId, depth) select d.id, d.id, 0 from Department d where d.id = :id")
+    int insertSelf(@Param("id") final long id);
+
+    @Modifying
+    @Query("insert into DepartmentClosure (ancestorId, descendantId, depth) select a.ancestorId, s.descendantId, a.depth + s.depth + 1 "
+           + "from DepartmentClosure a, DepartmentClosure s where a.descendantId = :parentId and s.ancestorId = :id")
+    int attachSubtree(@Param("id") final long id, @Param("parentId") final long parentId);
+
+    @Modifying
+    @Query("delete from DepartmentClosure c where c.descendantId in (select s.descendantId from DepartmentClosure s where s.ancestorId = :id) "
+           + "and c.ancestorId not in (select s.descendantId from DepartmentClosure s where s.ancestorId = :id)")
+    int detachSubtree(@Param("id") final long id);
+
+    @Modifying
+    @Query("delete from DepartmentClosure c where c.descendantId = :id")
+    int deleteLeaf(@Param("id") final long id);
+}
\ No newline at end of file
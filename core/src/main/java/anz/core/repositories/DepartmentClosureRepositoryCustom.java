@@ -0,0 +1,13 @@
+package anz.core.repositories;
+
+import java.util.List;
+
+import anz.core.domain.models.DepartmentClosure;
+
+public interface DepartmentClosureRepositoryCustom {
+    // plain batched inserts, for closure rows worked out in memory rather than copied from the rows of the parent
+    void insertAll(final List<DepartmentClosure> closures);
+
+    // every row deleted and worked out again from the parent links of the departments, in one transaction so a failure keeps the old rows
+    void rebuildAll();
+}
\ No newline at end of file
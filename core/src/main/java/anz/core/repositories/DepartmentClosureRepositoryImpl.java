@@ -0,0 +1,44 @@
+package anz.core.repositories;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import anz.core.domain.models.DepartmentClosure;
+
+class DepartmentClosureRepositoryImpl implements DepartmentClosureRepositoryCustom {
+    private static final String TABLE = "DepartmentClosure";
+
+    private static final String INSERT = "insert into " + TABLE + " (ancestorId, descendantId, depth) values (?, ?, ?)";
+
+    private static final String DELETE_ALL = "delete from " + TABLE;
+
+    private static final String INSERT_ALL_FROM_DEPARTMENTS = "insert into " + TABLE + " (ancestorId, descendantId, depth)"
+                                                              + " with recursive paths (ancestorId, descendantId, depth) as ("
+                                                              + " select d.id as ancestorId, d.id as descendantId, 0 as depth from Department d"
+                                                              + " union"
+                                                              + " select p.ancestorId, d.id, p.depth + 1 from paths p join Department d on d.parentDepartmentId = p.descendantId)"
+                                                              + " select ancestorId, descendantId, depth from paths";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public void insertAll(final List<DepartmentClosure> closures) {
+        Batches.insertWithoutKeys(entityManager, TABLE, INSERT, closures, (statement, closure) -> {
+            statement.setLong(1, closure.getAncestorId());
+            statement.setLong(2, closure.getDescendantId());
+            statement.setInt(3, closure.getDepth());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void rebuildAll() {
+        entityManager.createNativeQuery(DELETE_ALL).executeUpdate();
+        entityManager.createNativeQuery(INSERT_ALL_FROM_DEPARTMENTS).executeUpdate();
+    }
+}
\ No newline at end of file
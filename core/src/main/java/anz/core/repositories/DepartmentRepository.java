@@ -1,19 +1,62 @@
 package anz.core.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import anz.core.domain.models.Department;
 
 @Repository
-public interface DepartmentRepository extends CrudRepository<Department, Long> {
+public interface DepartmentRepository extends CrudRepository<Department, Long>, DepartmentRepositoryCustom {
+    // a full table read would only push the hot rows out of the second level cache
+    @QueryHints(@QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"))
     List<Department> findAll();
 
-    Department findByNameIgnoreCase(final String name);
+    List<Department> findAll(final Iterable<Long> ids);
 
-    List<Department> findByParentDepartmentId(final Long partentDepartmentId);
+    List<Department> findByIdGreaterThan(final Long id, final Pageable pageable);
 
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Department> findByManagerId(final Long managerId);
+
+    // names must already be lower case
+    @Query("select d from Department d where d.lowerName in :names")
+    List<Department> findByLowerNameIn(@Param("names") final Collection<String> names);
+
+    // only the version column, null when there is no such department
+    @Query("select d.version from Department d where d.id = :id")
+    Long findVersionById(@Param("id") final Long id);
+
+    // the given ids that exist, one query for the whole set
+    @Query("select d.id from Department d where d.id in :ids")
+    List<Long> findIdsIn(@Param("ids") final Collection<Long> ids);
+
+    // how many of the given ids exist, counted on the primary key alone
+    long countByIdIn(final Collection<Long> ids);
+
+    @Query("select d.lowerName from Department d")
+    List<String> findAllLowerNames();
+
+    // rows saved before the lower case name was kept, hbm2ddl adds the column empty
+    @Modifying
+    @Transactional
+    @Query("update Department d set d.lowerName = lower(d.name) where d.lowerName is null")
+    int fillLowerNames();
+
+    // rows are [id, parentDepartmentId, openPositions]
+    @Query("select d.id, d.parentDepartmentId, d.openPositions from Department d")
+    List<Object[]> findAllParentsAndOpenPositions();
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package anz.core.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import anz.core.domain.models.Department;
+
+public interface DepartmentRepositoryCustom {
+    Stream<Department> streamAll();
+
+    // batched like EmployeeRepositoryCustom.insertAll, the generated ids come back in the same order
+    List<Long> insertAll(final List<Department> departments);
+
+    // column projections, see EmployeeRepositoryCustom
+    List<Map<String, Object>> findAttributes(final List<String> attributes, final Long after, final int limit);
+
+    List<Map<String, Object>> findAttributesByIds(final List<String> attributes, final Collection<Long> ids);
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package anz.core.repositories;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import anz.core.domain.models.Department;
+
+class DepartmentRepositoryImpl implements DepartmentRepositoryCustom {
+    private static final String TABLE = "Department";
+
+    private static final String INSERT = "insert into " + TABLE + " (name, lowerName, location, managerId, openPositions, parentDepartmentId, version) values (?, ?, ?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Department> streamAll() {
+        return Streams.of(entityManager, "select d from Department d order by d.id", Department.class);
+    }
+
+    @Override
+    public List<Long> insertAll(final List<Department> departments) {
+        return Batches.insert(entityManager, TABLE, INSERT, departments, (statement, department) -> {
+            statement.setString(1, department.getName());
+            statement.setString(2, department.getName().toLowerCase(Locale.ROOT));
+            statement.setString(3, department.getLocation());
+            statement.setObject(4, department.getManagerId(), Types.BIGINT);
+            statement.setInt(5, department.getOpenPositions());
+            statement.setObject(6, department.getParentDepartmentId(), Types.BIGINT);
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> findAttributes(final List<String> attributes, final Long after, final int limit) {
+        return Projections.select(entityManager, Department.class, attributes, after, limit, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAttributesByIds(final List<String> attributes, final Collection<Long> ids) {
+        return Projections.select(entityManager, Department.class, attributes, null, 0, ids);
+    }
+}
\ No newline at end of file
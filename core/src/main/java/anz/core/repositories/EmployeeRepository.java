@@ -1,17 +1,55 @@
 package anz.core.repositories;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+
+import java.util.Collection;
 import java.util.List;
 
+import javax.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import anz.core.domain.models.Employee;
 
 @Repository
-public interface EmployeeRepository extends CrudRepository<Employee, Long> {
+public interface EmployeeRepository extends CrudRepository<Employee, Long>, EmployeeRepositoryCustom {
+    // a full table read would only push the hot rows out of the second level cache
+    @QueryHints(@QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"))
     List<Employee> findAll();
 
-    Employee findByLdapUsername(final String ldapUsername);
-    
+    List<Employee> findAll(final Iterable<Long> ids);
+
+    // a range scan on the primary key, pageable only supplies the order and the row limit
+    List<Employee> findByIdGreaterThan(final Long id, final Pageable pageable);
+
+    @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
     List<Employee> findByDepartmentId(final Long departmentId);
+
+    // only the version column, null when there is no such employee
+    @Query("select e.version from Employee e where e.id = :id")
+    Long findVersionById(@Param("id") final Long id);
+
+    // the given ids that exist, one query for the whole set
+    @Query("select e.id from Employee e where e.id in :ids")
+    List<Long> findIdsIn(@Param("ids") final Collection<Long> ids);
+
+    // how many of the given ids exist, counted on the primary key alone
+    long countByIdIn(final Collection<Long> ids);
+
+    // the given ldap usernames that are already taken, one query for the whole set
+    @Query("select e.ldapUsername from Employee e where e.ldapUsername in :ldapUsernames")
+    List<String> findLdapUsernamesIn(@Param("ldapUsernames") final Collection<String> ldapUsernames);
+
+    @Query("select e.ldapUsername from Employee e")
+    List<String> findAllLdapUsernames();
+
+    // rows are [departmentId, count]
+    @Query("select e.departmentId, count(e) from Employee e where e.departmentId is not null group by e.departmentId")
+    List<Object[]> countGroupByDepartmentId();
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package anz.core.repositories;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import anz.core.domain.models.Employee;
+
+public interface EmployeeRepositoryCustom {
+    // every employee in id order, the stream holds a database cursor and must be consumed and closed inside a transaction
+    Stream<Employee> streamAll();
+
+    // inserts in JDBC batches on the connection of the current transaction, one by one when the driver has no generated keys,
+    // and returns the generated ids in the same order. the employees are not attached to the persistence context
+    List<Long> insertAll(final List<Employee> employees);
+
+    // the id and the given attributes of the rows with an id greater than after in id order, limit 0 means every such row
+    List<Map<String, Object>> findAttributes(final List<String> attributes, final Long after, final int limit);
+
+    // the id and the given attributes of the rows with the given ids in id order
+    List<Map<String, Object>> findAttributesByIds(final List<String> attributes, final Collection<Long> ids);
+}
\ No newline at end of file
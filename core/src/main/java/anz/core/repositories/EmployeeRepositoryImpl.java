@@ -0,0 +1,50 @@
+package anz.core.repositories;
+
+import java.sql.Types;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import anz.core.domain.models.Employee;
+
+class EmployeeRepositoryImpl implements EmployeeRepositoryCustom {
+    private static final String TABLE = "Employee";
+
+    private static final String INSERT = "insert into " + TABLE + " (firstname, lastname, ldapUsername, gender, birthdate, title, grade, departmentId, version) values (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Employee> streamAll() {
+        return Streams.of(entityManager, "select e from Employee e order by e.id", Employee.class);
+    }
+
+    @Override
+    public List<Long> insertAll(final List<Employee> employees) {
+        return Batches.insert(entityManager, TABLE, INSERT, employees, (statement, employee) -> {
+            statement.setString(1, employee.getFirstname());
+            statement.setString(2, employee.getLastname());
+            statement.setString(3, employee.getLdapUsername());
+            statement.setObject(4, null == employee.getGender() ? null : employee.getGender().name(), Types.VARCHAR);
+            statement.setLong(5, employee.getBirthdate());
+            statement.setString(6, employee.getTitle());
+            statement.setString(7, employee.getGrade());
+            statement.setObject(8, employee.getDepartmentId(), Types.BIGINT);
+        });
+    }
+
+    @Override
+    public List<Map<String, Object>> findAttributes(final List<String> attributes, final Long after, final int limit) {
+        return Projections.select(entityManager, Employee.class, attributes, after, limit, null);
+    }
+
+    @Override
+    public List<Map<String, Object>> findAttributesByIds(final List<String> attributes, final Collection<Long> ids) {
+        return Projections.select(entityManager, Employee.class, attributes, null, 0, ids);
+    }
+}
\ No newline at end of file
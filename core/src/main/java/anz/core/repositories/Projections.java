@@ -0,0 +1,57 @@
+package anz.core.repositories;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+
+// selects the id and the given attributes only, so a sparse read does not load every column of the rows
+final class Projections {
+    private Projections() {
+    }
+
+    // rows are in id order and map the id and then each attribute to its value, ids narrows the rows down when set and limit 0 means no limit
+    static List<Map<String, Object>> select(final EntityManager entityManager, final Class<?> type, final List<String> attributes, final Long after, final int limit,
+                                            final Collection<Long> ids) {
+        final EntityType<?> entityType = entityManager.getMetamodel().entity(type);
+        // the id is always selected first, asking for it or any other attribute twice changes nothing
+        final List<String> selected = new ArrayList<>(new LinkedHashSet<>(attributes));
+        selected.remove("id");
+        final StringBuilder jpql = new StringBuilder("select x.id");
+        for (final String attribute : selected) {
+            // throws IllegalArgumentException for an unknown attribute, which also keeps anything but a plain name out of the query
+            entityType.getAttribute(attribute);
+            jpql.append(", x.").append(attribute);
+        }
+        jpql.append(" from ").append(entityType.getName()).append(" x where x.id > :after");
+        if (null != ids) {
+            jpql.append(" and x.id in :ids");
+        }
+        jpql.append(" order by x.id");
+        final Query query = entityManager.createQuery(jpql.toString()).setParameter("after", null == after ? Long.MIN_VALUE : after);
+        if (null != ids) {
+            query.setParameter("ids", ids);
+        }
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        final List<Map<String, Object>> result = new ArrayList<>();
+        for (final Object row : query.getResultList()) {
+            // a single select item comes back as the value itself rather than an array
+            final Object[] values = row instanceof Object[] ? (Object[]) row : new Object[] { row };
+            final Map<String, Object> fields = new LinkedHashMap<>();
+            fields.put("id", values[0]);
+            for (int index = 0; index < selected.size(); index++) {
+                fields.put(selected.get(index), values[index + 1]);
+            }
+            result.add(fields);
+        }
+        return result;
+    }
+}
\ No newline at end of file
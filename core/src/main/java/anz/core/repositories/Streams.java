@@ -0,0 +1,23 @@
+package anz.core.repositories;
+
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.CacheMode;
+import org.hibernate.query.Query;
+
+// JPA 2.1 has no streaming results, so the query is unwrapped to hibernate and read from a forward-only cursor.
+// the rows bypass the second level cache, a full table read would only push out the rows that are actually hot
+final class Streams {
+    private static final int FETCH_SIZE = 500;
+
+    private Streams() {
+    }
+
+    static <T> Stream<T> of(final EntityManager entityManager, final String jpql, final Class<T> type) {
+        @SuppressWarnings("unchecked")
+        final Query<T> query = entityManager.createQuery(jpql, type).unwrap(Query.class);
+        return query.setFetchSize(FETCH_SIZE).setReadOnly(true).setCacheMode(CacheMode.IGNORE).stream();
+    }
+}
\ No newline at end of file
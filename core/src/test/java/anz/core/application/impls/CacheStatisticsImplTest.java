@@ -0,0 +1,104 @@
+package anz.core.application.impls;
+
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import anz.core.domain.models.CacheRegionStatistics;
+
+public class CacheStatisticsImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private EntityManagerFactory entityManagerFactory = mockery.mock(EntityManagerFactory.class);
+
+    private SessionFactory sessionFactory = mockery.mock(SessionFactory.class);
+
+    private Statistics statistics = mockery.mock(Statistics.class);
+
+    private CacheStatisticsImpl target = new CacheStatisticsImpl(entityManagerFactory);
+
+    @Test
+    public void testGetRegions() {
+        final SecondLevelCacheStatistics employees = mockery.mock(SecondLevelCacheStatistics.class, "employees");
+        final SecondLevelCacheStatistics departments = mockery.mock(SecondLevelCacheStatistics.class, "departments");
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(entityManagerFactory).unwrap(SessionFactory.class);
+                will(returnValue(sessionFactory));
+
+                oneOf(sessionFactory).getStatistics();
+                will(returnValue(statistics));
+
+                oneOf(statistics).getSecondLevelCacheRegionNames();
+                will(returnValue(new String[] { "employee", "department" }));
+
+                oneOf(statistics).getSecondLevelCacheStatistics("department");
+                will(returnValue(departments));
+
+                oneOf(statistics).getSecondLevelCacheStatistics("employee");
+                will(returnValue(employees));
+
+                allowing(departments).getHitCount();
+                will(returnValue(3L));
+                allowing(departments).getMissCount();
+                will(returnValue(1L));
+                allowing(departments).getPutCount();
+                will(returnValue(1L));
+                allowing(departments).getElementCountInMemory();
+                will(returnValue(1L));
+
+                allowing(employees).getHitCount();
+                will(returnValue(0L));
+                allowing(employees).getMissCount();
+                will(returnValue(2L));
+                allowing(employees).getPutCount();
+                will(returnValue(2L));
+                allowing(employees).getElementCountInMemory();
+                will(returnValue(2L));
+            }
+        });
+
+        final List<CacheRegionStatistics> actual = target.getRegions();
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertEquals("department", actual.get(0).getName());
+        Assert.assertEquals(3L, actual.get(0).getHits());
+        Assert.assertEquals(1L, actual.get(0).getMisses());
+        Assert.assertEquals("employee", actual.get(1).getName());
+        Assert.assertEquals(2L, actual.get(1).getEntries());
+    }
+
+    @Test
+    public void testClear() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(entityManagerFactory).unwrap(SessionFactory.class);
+                will(returnValue(sessionFactory));
+
+                oneOf(sessionFactory).getStatistics();
+                will(returnValue(statistics));
+
+                oneOf(statistics).clear();
+            }
+        });
+
+        target.clear();
+
+        mockery.assertIsSatisfied();
+    }
+}
\ No newline at end of file
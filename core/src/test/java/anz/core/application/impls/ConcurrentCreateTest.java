@@ -0,0 +1,117 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.persistence.EntityExistsException;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import anz.core.application.DepartmentService;
+import anz.core.application.EmployeeService;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// many threads create the same few names at once and the unique constraints let one of each through
+public class ConcurrentCreateTest {
+    private static final int THREADS = 32;
+
+    private static final int NAMES = 4;
+
+    private static final int ATTEMPTS = 256;
+
+    private static AnnotationConfigApplicationContext context;
+
+    @BeforeClass
+    public static void setUpClass() {
+        context = new AnnotationConfigApplicationContext(InMemoryDatabaseConfig.class);
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        context.close();
+    }
+
+    @Test
+    public void testNoDuplicateLdapUsernames() throws Exception {
+        final EmployeeService employeeService = context.getBean(EmployeeService.class);
+
+        final Map<String, Integer> created = createConcurrently(index -> {
+            final String ldapUsername = "user" + index % NAMES;
+            employeeService.create(Employee.Builder.newInstance("firstname", "lastname", ldapUsername, "title", "grade").build());
+            return ldapUsername;
+        });
+
+        Assert.assertEquals(NAMES, created.size());
+        for (final Integer count : created.values()) {
+            Assert.assertEquals(Integer.valueOf(1), count);
+        }
+        Assert.assertEquals(NAMES, context.getBean(EmployeeRepository.class).findAllLdapUsernames().size());
+    }
+
+    @Test
+    public void testNoDuplicateDepartmentNamesIgnoringCase() throws Exception {
+        final DepartmentService departmentService = context.getBean(DepartmentService.class);
+
+        final Map<String, Integer> created = createConcurrently(index -> {
+            // every name also comes in upper case, which is the same name
+            final String name = "department" + index % NAMES;
+            departmentService.create(Department.Builder.newInstance(0 == index % 2 ? name : name.toUpperCase(), 1).build());
+            return name;
+        });
+
+        Assert.assertEquals(NAMES, created.size());
+        for (final Integer count : created.values()) {
+            Assert.assertEquals(Integer.valueOf(1), count);
+        }
+        Assert.assertEquals(NAMES, context.getBean(DepartmentRepository.class).findAllLowerNames().size());
+    }
+
+    interface Creation {
+        String create(final int index);
+    }
+
+    // how many times each name was created, attempts that were refused as already existing are not counted
+    private static Map<String, Integer> createConcurrently(final Creation creation) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<String>> futures = new ArrayList<>();
+        try {
+            for (int index = 0; index < ATTEMPTS; index++) {
+                final int attempt = index;
+                futures.add(executor.submit((Callable<String>) () -> {
+                    start.await();
+                    try {
+                        return creation.create(attempt);
+                    } catch (final EntityExistsException ex) {
+                        return null;
+                    }
+                }));
+            }
+            start.countDown();
+            final Map<String, Integer> result = new HashMap<>();
+            for (final Future<String> future : futures) {
+                final String name = future.get();
+                if (null != name) {
+                    result.merge(name, 1, Integer::sum);
+                }
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
\ No newline at end of file
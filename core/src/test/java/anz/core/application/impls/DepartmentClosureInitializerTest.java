@@ -0,0 +1,59 @@
+package anz.core.application.impls;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Test;
+
+import anz.core.repositories.DepartmentClosureRepository;
+import anz.core.repositories.DepartmentRepository;
+
+public class DepartmentClosureInitializerTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private DepartmentClosureRepository departmentClosureRepository = mockery.mock(DepartmentClosureRepository.class);
+
+    private DepartmentClosureInitializer target = new DepartmentClosureInitializer(departmentRepository, departmentClosureRepository);
+
+    @Test
+    public void testRebuildIfOutOfSyncWhenInSync() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).countByDepth(0);
+                will(returnValue(3L));
+
+                oneOf(departmentRepository).count();
+                will(returnValue(3L));
+            }
+        });
+
+        target.rebuildIfOutOfSync();
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testRebuildIfOutOfSync() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).countByDepth(0);
+                will(returnValue(0L));
+
+                oneOf(departmentRepository).count();
+                will(returnValue(3L));
+
+                oneOf(departmentClosureRepository).rebuildAll();
+            }
+        });
+
+        target.rebuildIfOutOfSync();
+
+        mockery.assertIsSatisfied();
+    }
+}
\ No newline at end of file
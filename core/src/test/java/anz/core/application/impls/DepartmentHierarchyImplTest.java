@@ -0,0 +1,211 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.domain.models.Department;
+import anz.core.repositories.DepartmentRepository;
+
+public class DepartmentHierarchyImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private DepartmentHierarchyImpl target = new DepartmentHierarchyImpl(departmentRepository);
+
+    @Before
+    public void setUp() {
+        // 1 -> 2 -> 3, 1 -> 4, 5
+        final Department department1 = Department.Builder.newInstance(1L, "d1", 0).build();
+        final Department department2 = Department.Builder.newInstance(2L, "d2", 0).parentDepartment(1L).build();
+        final Department department3 = Department.Builder.newInstance(3L, "d3", 0).parentDepartment(2L).build();
+        final Department department4 = Department.Builder.newInstance(4L, "d4", 0).parentDepartment(1L).build();
+        final Department department5 = Department.Builder.newInstance(5L, "d5", 0).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(department1, department2, department3, department4, department5)));
+            }
+        });
+    }
+
+    @Test
+    public void testLoadsOnce() {
+        Assert.assertTrue(target.contains(1L));
+        Assert.assertTrue(target.contains(5L));
+        Assert.assertFalse(target.contains(6L));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetParentId() {
+        Assert.assertEquals(Long.valueOf(2L), target.getParentId(3L));
+        Assert.assertNull(target.getParentId(1L));
+        Assert.assertNull(target.getParentId(6L));
+    }
+
+    @Test
+    public void testGetChildIds() {
+        Assert.assertEquals(2, target.getChildIds(1L).size());
+        Assert.assertTrue(target.getChildIds(1L).containsAll(Arrays.asList(2L, 4L)));
+        Assert.assertTrue(target.getChildIds(3L).isEmpty());
+    }
+
+    @Test
+    public void testIsDescendantOf() {
+        Assert.assertTrue(target.isDescendantOf(3L, 1L));
+        Assert.assertTrue(target.isDescendantOf(3L, 3L));
+        Assert.assertFalse(target.isDescendantOf(1L, 3L));
+        Assert.assertFalse(target.isDescendantOf(4L, 2L));
+        Assert.assertFalse(target.isDescendantOf(3L, 5L));
+    }
+
+    @Test
+    public void testGetSubtreeIds() {
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L, 4L), target.getSubtreeIds(1L));
+        Assert.assertEquals(Arrays.asList(2L, 3L), target.getSubtreeIds(2L));
+        Assert.assertEquals(Arrays.asList(5L), target.getSubtreeIds(5L));
+        Assert.assertTrue(target.getSubtreeIds(6L).isEmpty());
+    }
+
+    @Test
+    public void testSnapshotFollowsWrites() {
+        Assert.assertTrue(target.isDescendantOf(3L, 1L));
+
+        target.put(2L, 5L);
+        Assert.assertEquals(Arrays.asList(5L, 2L, 3L), target.getSubtreeIds(5L));
+        Assert.assertFalse(target.isDescendantOf(3L, 1L));
+
+        target.remove(3L);
+        Assert.assertEquals(Arrays.asList(5L, 2L), target.getSubtreeIds(5L));
+        Assert.assertFalse(target.isDescendantOf(3L, 5L));
+    }
+
+    @Test
+    public void testPutMovesDepartment() {
+        target.put(2L, 5L);
+
+        Assert.assertEquals(Long.valueOf(5L), target.getParentId(2L));
+        Assert.assertFalse(target.getChildIds(1L).contains(2L));
+        Assert.assertTrue(target.getChildIds(5L).contains(2L));
+        Assert.assertTrue(target.isDescendantOf(3L, 5L));
+        Assert.assertFalse(target.isDescendantOf(3L, 1L));
+    }
+
+    @Test
+    public void testPutAddsDepartment() {
+        target.put(6L, 3L);
+
+        Assert.assertTrue(target.contains(6L));
+        Assert.assertTrue(target.isDescendantOf(6L, 1L));
+    }
+
+    @Test
+    public void testPutInTransactionWaitsForCommit() {
+        Assert.assertTrue(target.contains(1L));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.put(2L, 5L);
+            // the cycle check of another move still sees the committed parent
+            Assert.assertEquals(Long.valueOf(1L), target.getParentId(2L));
+            Assert.assertFalse(target.isDescendantOf(3L, 5L));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(Long.valueOf(5L), target.getParentId(2L));
+        Assert.assertTrue(target.isDescendantOf(3L, 5L));
+    }
+
+    @Test
+    public void testPutInTransactionDroppedOnRollback() {
+        Assert.assertTrue(target.contains(1L));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.put(2L, 5L);
+            target.remove(4L);
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(Long.valueOf(1L), target.getParentId(2L));
+        Assert.assertTrue(target.contains(4L));
+        // 5 may go under 3 now, it could not if 2 had stayed under 5
+        Assert.assertFalse(target.isDescendantOf(3L, 5L));
+    }
+
+    @Test
+    public void testRemove() {
+        target.remove(4L);
+
+        Assert.assertFalse(target.contains(4L));
+        Assert.assertFalse(target.getChildIds(1L).contains(4L));
+    }
+
+    @Test
+    public void testGetDepth() {
+        Assert.assertEquals(0, target.getDepth(1L));
+        Assert.assertEquals(2, target.getDepth(3L));
+        Assert.assertEquals(0, target.getDepth(5L));
+        Assert.assertEquals(-1, target.getDepth(6L));
+    }
+
+    @Test
+    public void testGetLowestCommonAncestorId() {
+        Assert.assertEquals(Long.valueOf(1L), target.getLowestCommonAncestorId(3L, 4L));
+        Assert.assertEquals(Long.valueOf(1L), target.getLowestCommonAncestorId(4L, 3L));
+        Assert.assertEquals(Long.valueOf(2L), target.getLowestCommonAncestorId(3L, 2L));
+        Assert.assertEquals(Long.valueOf(2L), target.getLowestCommonAncestorId(2L, 3L));
+        Assert.assertEquals(Long.valueOf(3L), target.getLowestCommonAncestorId(3L, 3L));
+        Assert.assertNull(target.getLowestCommonAncestorId(3L, 5L));
+        Assert.assertNull(target.getLowestCommonAncestorId(3L, 6L));
+    }
+
+    @Test
+    public void testGetLowestCommonAncestorIdOnDeepChain() {
+        // 1 -> 2 -> 3 -> 7 -> 8 -> ... -> 40, long enough to need several lifting levels
+        long parentId = 3L;
+        for (long id = 7L; id <= 40L; id++) {
+            target.put(id, parentId);
+            parentId = id;
+        }
+        target.put(41L, 20L);
+
+        Assert.assertEquals(36, target.getDepth(40L));
+        Assert.assertEquals(Long.valueOf(20L), target.getLowestCommonAncestorId(40L, 41L));
+        Assert.assertEquals(Long.valueOf(1L), target.getLowestCommonAncestorId(40L, 4L));
+        Assert.assertEquals(Long.valueOf(13L), target.getLowestCommonAncestorId(13L, 40L));
+    }
+
+    @Test
+    public void testGetLowestCommonAncestorIdFollowsWrites() {
+        Assert.assertEquals(Long.valueOf(1L), target.getLowestCommonAncestorId(3L, 4L));
+
+        target.put(4L, 2L);
+        Assert.assertEquals(Long.valueOf(2L), target.getLowestCommonAncestorId(3L, 4L));
+        Assert.assertEquals(2, target.getDepth(4L));
+
+        target.put(1L, 5L);
+        Assert.assertEquals(Long.valueOf(5L), target.getLowestCommonAncestorId(3L, 5L));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,151 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import anz.core.domain.models.DepartmentRollup;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+public class DepartmentRollupsImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private EmployeeRepository employeeRepository = mockery.mock(EmployeeRepository.class);
+
+    private DepartmentRollupsImpl target = new DepartmentRollupsImpl(departmentRepository, employeeRepository);
+
+    @Before
+    public void setUp() {
+        // 1 -> 2 -> 3, 1 -> 4, 5
+        final List<Object[]> departments = new ArrayList<>();
+        departments.add(new Object[] { 1L, null, 1 });
+        departments.add(new Object[] { 2L, 1L, 2 });
+        departments.add(new Object[] { 3L, 2L, 3 });
+        departments.add(new Object[] { 4L, 1L, 4 });
+        departments.add(new Object[] { 5L, null, 5 });
+        final List<Object[]> headcounts = new ArrayList<>();
+        headcounts.add(new Object[] { 1L, 1L });
+        headcounts.add(new Object[] { 3L, 2L });
+        headcounts.add(new Object[] { 5L, 4L });
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAllParentsAndOpenPositions();
+                will(returnValue(departments));
+
+                oneOf(employeeRepository).countGroupByDepartmentId();
+                will(returnValue(headcounts));
+            }
+        });
+
+        target.ensureLoaded();
+    }
+
+    private void assertRollup(final long id, final long headcount, final long openPositions) {
+        final DepartmentRollup actual = target.get(id);
+        Assert.assertEquals(headcount, actual.getHeadcount());
+        Assert.assertEquals(openPositions, actual.getOpenPositions());
+    }
+
+    @Test
+    public void testLoad() {
+        assertRollup(1L, 3L, 10L);
+        assertRollup(2L, 2L, 5L);
+        assertRollup(3L, 2L, 3L);
+        assertRollup(4L, 0L, 4L);
+        assertRollup(5L, 4L, 5L);
+        Assert.assertNull(target.get(6L));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testAddDepartment() {
+        target.addDepartment(6L, 3L, 6);
+
+        assertRollup(6L, 0L, 6L);
+        assertRollup(3L, 2L, 9L);
+        assertRollup(1L, 3L, 16L);
+        assertRollup(5L, 4L, 5L);
+    }
+
+    @Test
+    public void testUpdateDepartmentMovesSubtree() {
+        target.updateDepartment(2L, 5L, 7);
+
+        assertRollup(2L, 2L, 10L);
+        assertRollup(1L, 1L, 5L);
+        assertRollup(5L, 6L, 15L);
+    }
+
+    @Test
+    public void testUpdateDepartmentMovesUnderMovedDepartment() {
+        target.updateDepartment(3L, 4L, 3);
+        target.updateDepartment(4L, 5L, 4);
+        target.addEmployee(3L);
+
+        assertRollup(4L, 3L, 7L);
+        assertRollup(5L, 7L, 12L);
+        assertRollup(2L, 0L, 2L);
+        assertRollup(1L, 1L, 3L);
+    }
+
+    @Test
+    public void testConcurrentMovesKeepTheTotals() throws InterruptedException {
+        // one thread moves a leaf between two departments while the other moves one of those departments around
+        final Thread leafMoves = new Thread(() -> {
+            for (int index = 0; index < 2000; index++) {
+                target.updateDepartment(3L, 4L, 3);
+                target.updateDepartment(3L, 2L, 3);
+            }
+        });
+        final Thread subtreeMoves = new Thread(() -> {
+            for (int index = 0; index < 2000; index++) {
+                target.updateDepartment(2L, 5L, 2);
+                target.updateDepartment(2L, 1L, 2);
+            }
+        });
+        leafMoves.start();
+        subtreeMoves.start();
+        leafMoves.join();
+        subtreeMoves.join();
+
+        assertRollup(1L, 3L, 10L);
+        assertRollup(2L, 2L, 5L);
+        assertRollup(3L, 2L, 3L);
+        assertRollup(4L, 0L, 4L);
+        assertRollup(5L, 4L, 5L);
+    }
+
+    @Test
+    public void testRemoveDepartment() {
+        target.removeDepartment(4L);
+
+        Assert.assertNull(target.get(4L));
+        assertRollup(1L, 3L, 6L);
+    }
+
+    @Test
+    public void testEmployees() {
+        target.addEmployee(3L);
+        target.addEmployee(null);
+        target.removeEmployee(5L);
+
+        assertRollup(3L, 3L, 3L);
+        assertRollup(1L, 4L, 10L);
+        assertRollup(5L, 3L, 5L);
+    }
+}
\ No newline at end of file
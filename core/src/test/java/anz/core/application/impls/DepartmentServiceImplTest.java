@@ -1,19 +1,50 @@
 package anz.core.application.impls;
 
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.hamcrest.CoreMatchers;
+import org.hamcrest.FeatureMatcher;
+import org.hamcrest.Matcher;
+import org.hibernate.exception.ConstraintViolationException;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
+import org.jmock.api.Invocation;
+import org.jmock.lib.action.CustomAction;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import anz.core.application.DepartmentRollups;
+import anz.core.application.EntityStreams;
+import anz.core.application.ReportingChains;
+import anz.core.application.TakenNames;
 import anz.core.application.shared.InvalidEntityException;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentClosure;
+import anz.core.domain.models.DepartmentImport;
+import anz.core.domain.models.DepartmentNode;
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.DepartmentRollup;
+import anz.core.domain.models.Employee;
+import anz.core.domain.models.EncodedEntity;
+import anz.core.repositories.DepartmentClosureRepository;
 import anz.core.repositories.DepartmentRepository;
 import anz.core.repositories.EmployeeRepository;
 
@@ -28,24 +59,111 @@ public class DepartmentServiceImplTest {
 
     private EmployeeRepository employeeRepository = mockery.mock(EmployeeRepository.class);
 
-    private DepartmentServiceImpl target = new DepartmentServiceImpl(departmentRepository, employeeRepository);
+    private DepartmentClosureRepository departmentClosureRepository = mockery.mock(DepartmentClosureRepository.class);
+
+    private DepartmentHierarchyImpl departmentHierarchy = new DepartmentHierarchyImpl(departmentRepository);
+
+    private DepartmentRollups departmentRollups = mockery.mock(DepartmentRollups.class);
+
+    private ReportingChains reportingChains = mockery.mock(ReportingChains.class);
+
+    private EntityStreams entityStreams = mockery.mock(EntityStreams.class);
+
+    private TableVersionsImpl tableVersions = new TableVersionsImpl();
+
+    private RelationCacheImpl relationCache = new RelationCacheImpl();
+
+    private MissingIdsImpl missingIds = new MissingIdsImpl();
+
+    private TakenNames takenNames = mockery.mock(TakenNames.class);
+
+    private EncodedEntitiesImpl encodedEntities = new EncodedEntitiesImpl();
+
+    private OrgSnapshotsImpl orgSnapshots = new OrgSnapshotsImpl(departmentRepository, employeeRepository, false);
+
+    private DepartmentServiceImpl target = new DepartmentServiceImpl(departmentRepository, employeeRepository, departmentClosureRepository, departmentHierarchy, departmentRollups,
+                                                                     reportingChains, entityStreams, tableVersions, relationCache, missingIds, takenNames, encodedEntities, orgSnapshots);
+
+    @Before
+    public void setUp() {
+        // every name might be taken, so the lookups stay as they were
+        mockery.checking(new Expectations() {
+            {
+                allowing(takenNames).mightBeTaken(with(any(Class.class)), with(any(String.class)));
+                will(returnValue(true));
+
+                allowing(takenNames).taken(with(any(Class.class)), with(any(String.class)));
+            }
+        });
+    }
+
+    // neither has an equals of its own, so a batch is matched by the names or the ancestor>descendant:depth rows it holds
+    private static Matcher<List<Department>> named(final String... names) {
+        return new FeatureMatcher<List<Department>, List<String>>(CoreMatchers.equalTo(Arrays.asList(names)), "departments named", "names") {
+            @Override
+            protected List<String> featureValueOf(final List<Department> departments) {
+                final List<String> result = new ArrayList<>();
+                for (final Department department : departments) {
+                    result.add(department.getName());
+                }
+                return result;
+            }
+        };
+    }
+
+    private static Matcher<List<DepartmentClosure>> closures(final String... rows) {
+        return new FeatureMatcher<List<DepartmentClosure>, List<String>>(CoreMatchers.equalTo(Arrays.asList(rows)), "closure rows", "rows") {
+            @Override
+            protected List<String> featureValueOf(final List<DepartmentClosure> closures) {
+                final List<String> result = new ArrayList<>();
+                for (final DepartmentClosure closure : closures) {
+                    result.add(closure.getAncestorId() + ">" + closure.getDescendantId() + ":" + closure.getDepth());
+                }
+                return result;
+            }
+        };
+    }
+
+    private static DataIntegrityViolationException violationOf(final String constraintName) {
+        final SQLException cause = new SQLException("integrity constraint violation: unique constraint or index violation; " + constraintName);
+        return new DataIntegrityViolationException("could not execute statement", new ConstraintViolationException("could not execute statement", cause, constraintName));
+    }
+
+    private void givenDepartments(final Department... departments) {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(departments)));
+            }
+        });
+    }
 
     @Test(expected = EntityExistsException.class)
     public void testCreateWhenDepartmentNameExist() {
-        final String name = "test";
-        Department department = Department.Builder.newInstance(name, 1).location("aa").managerId(1L).parentDepartment(2L).build();
-        final Department existDepartment = mockery.mock(Department.class);
+        final Department department = Department.Builder.newInstance("test", 1).location("aa").build();
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findByNameIgnoreCase(name);
-                will(returnValue(existDepartment));
+                oneOf(departmentRepository).save(department);
+                will(throwException(violationOf("UK_DEPARTMENT_LOWERNAME")));
             }
         });
 
         target.create(department);
+    }
 
-        mockery.assertIsSatisfied();
+    @Test(expected = DataIntegrityViolationException.class)
+    public void testCreateWhenOtherConstraintViolated() {
+        final Department department = Department.Builder.newInstance("test", 1).location("aa").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).save(department);
+                will(throwException(violationOf("SYS_CT_10092")));
+            }
+        });
+
+        target.create(department);
     }
 
     @Test(expected = EntityNotFoundException.class)
@@ -56,11 +174,8 @@ public class DepartmentServiceImplTest {
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findByNameIgnoreCase(name);
-                will(returnValue(null));
-
-                oneOf(employeeRepository).findOne(managerId);
-                will(returnValue(null));
+                oneOf(employeeRepository).countByIdIn(Collections.singletonList(managerId));
+                will(returnValue(0L));
             }
         });
 
@@ -74,16 +189,7 @@ public class DepartmentServiceImplTest {
         final String name = "test";
         final Long parentId = 2L;
         Department department = Department.Builder.newInstance(name, 1).location("aa").parentDepartment(parentId).build();
-
-        mockery.checking(new Expectations() {
-            {
-                oneOf(departmentRepository).findByNameIgnoreCase(name);
-                will(returnValue(null));
-
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(null));
-            }
-        });
+        givenDepartments();
 
         target.create(department);
 
@@ -93,15 +199,21 @@ public class DepartmentServiceImplTest {
     @Test
     public void testCreate() {
         final String name = "test";
-        final Department department = Department.Builder.newInstance(name, 1).location("aa").build();
+        final Long parentId = 2L;
+        final Department department = Department.Builder.newInstance(name, 1).location("aa").parentDepartment(parentId).build();
+        final Department saved = Department.Builder.newInstance(3L, name, 1).location("aa").parentDepartment(parentId).build();
+        givenDepartments(Department.Builder.newInstance(parentId, "parent", 1).build());
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findByNameIgnoreCase(name);
-                will(returnValue(null));
-
                 oneOf(departmentRepository).save(department);
-                will(returnValue(department));
+                will(returnValue(saved));
+
+                oneOf(departmentClosureRepository).insertSelf(saved.getId());
+
+                oneOf(departmentClosureRepository).attachSubtree(saved.getId(), parentId);
+
+                oneOf(departmentRollups).addDepartment(saved.getId(), parentId, 1);
             }
         });
 
@@ -110,268 +222,1044 @@ public class DepartmentServiceImplTest {
         mockery.assertIsSatisfied();
         Assert.assertEquals(department.getName(), actual.getName());
         Assert.assertEquals(department.getOpenPositions(), actual.getOpenPositions());
+        Assert.assertEquals(parentId, departmentHierarchy.getParentId(saved.getId()));
+        Assert.assertTrue(departmentHierarchy.getChildIds(parentId).contains(saved.getId()));
     }
 
     @Test
-    public void testGetAll() {
-        final List<Department> departments = new ArrayList<>();
+    public void testGetByIdWhenMissingUntilCreated() {
+        final Long id = 3L;
+        final Department department = Department.Builder.newInstance("test", 1).build();
+        final Department saved = Department.Builder.newInstance(id, "test", 1).build();
+        givenDepartments();
+
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findAll();
-                will(returnValue(departments));
+                exactly(2).of(departmentRepository).findOne(id);
+                will(onConsecutiveCalls(returnValue(null), returnValue(saved)));
+
+                oneOf(departmentRepository).save(department);
+                will(returnValue(saved));
+
+                oneOf(departmentClosureRepository).insertSelf(id);
+
+                oneOf(departmentRollups).addDepartment(id, null, 1);
             }
         });
 
-        List<Department> actual = target.getAll();
+        Assert.assertNull(target.getById(id));
+        Assert.assertNull(target.getById(id));
+        Assert.assertNull(target.getVersionById(id));
+        target.create(department);
 
+        Assert.assertSame(saved, target.getById(id));
         mockery.assertIsSatisfied();
-        Assert.assertEquals(departments.size(), actual.size());
     }
 
     @Test
-    public void testGetById() {
-        final Long id = 1L;
-        final Department department = Department.Builder.newInstance(id, "name", 1).build();
+    public void testCreateTree() {
+        givenDepartments(Department.Builder.newInstance(1L, "Root", 0).build());
+        // children come before their parents, and parents are given by ref, by the name of another row and by the name of an existing department
+        final List<DepartmentImport> imports = Arrays.asList(new DepartmentImport(null, Department.Builder.newInstance("team", 2).build(), "d", null),
+                                                             new DepartmentImport("d", Department.Builder.newInstance("division", 1).build(), null, "root"),
+                                                             new DepartmentImport(null, Department.Builder.newInstance("squad", 3).build(), null, "TEAM"));
+
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(department));
+                oneOf(departmentRepository).findByLowerNameIn(Arrays.asList("root"));
+                will(returnValue(Arrays.asList(Department.Builder.newInstance(1L, "Root", 0).build())));
+
+                oneOf(departmentRepository).findByLowerNameIn(Arrays.asList("team", "division", "squad"));
+                will(returnValue(new ArrayList<>()));
+
+                // one batch per level, a level before its children
+                oneOf(departmentRepository).insertAll(with(named("division")));
+                will(returnValue(Arrays.asList(10L)));
+
+                oneOf(departmentRepository).insertAll(with(named("team")));
+                will(returnValue(Arrays.asList(11L)));
+
+                oneOf(departmentRepository).insertAll(with(named("squad")));
+                will(returnValue(Arrays.asList(12L)));
+
+                // team, division and squad, each starting with the department itself
+                oneOf(departmentClosureRepository).insertAll(with(closures("11>11:0", "10>11:1", "1>11:2", "10>10:0", "1>10:1", "12>12:0", "11>12:1", "10>12:2",
+                                                                           "1>12:3")));
+
+                oneOf(departmentRollups).addDepartment(10L, 1L, 1);
+                oneOf(departmentRollups).addDepartment(11L, 10L, 2);
+                oneOf(departmentRollups).addDepartment(12L, 11L, 3);
             }
         });
 
-        Department actual = target.getById(id);
+        final List<Department> actual = target.createTree(imports);
 
         mockery.assertIsSatisfied();
-        Assert.assertEquals(department.getId(), actual.getId());
+
+        Assert.assertEquals(Long.valueOf(11L), actual.get(0).getId());
+        Assert.assertEquals(Long.valueOf(10L), actual.get(0).getParentDepartmentId());
+        Assert.assertEquals(Long.valueOf(10L), actual.get(1).getId());
+        Assert.assertEquals(Long.valueOf(1L), actual.get(1).getParentDepartmentId());
+        Assert.assertEquals(Long.valueOf(12L), actual.get(2).getId());
+        Assert.assertEquals(Long.valueOf(11L), actual.get(2).getParentDepartmentId());
+        Assert.assertTrue(departmentHierarchy.isDescendantOf(12L, 1L));
+        Assert.assertEquals(3, departmentHierarchy.getDepth(12L));
     }
 
     @Test
-    public void testGetParentByIdWhenDepartmentNotExist() {
-        final Long id = 1L;
+    public void testCreateTreeWhenCycle() {
+        final List<DepartmentImport> imports = Arrays.asList(new DepartmentImport("c", Department.Builder.newInstance("c", 0).build(), null, null),
+                                                             new DepartmentImport("a", Department.Builder.newInstance("a", 0).build(), "b", null),
+                                                             new DepartmentImport("b", Department.Builder.newInstance("b", 0).build(), "a", null),
+                                                             new DepartmentImport("d", Department.Builder.newInstance("d", 0).build(), "a", null));
+
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(null));
+                oneOf(departmentRepository).findByLowerNameIn(Arrays.asList("c", "a", "b", "d"));
+                will(returnValue(new ArrayList<>()));
             }
         });
 
-        Department actual = target.getParentById(id);
+        try {
+            target.createTree(imports);
+            Assert.fail();
+        } catch (final InvalidEntityException ex) {
+            Assert.assertEquals("Departments [a, b] form a cycle", ex.getMessage());
+        }
 
         mockery.assertIsSatisfied();
-        Assert.assertNull(actual);
     }
 
-    @Test
-    public void testGetParentByIdWhenParentDepartmentNotExist() {
-        final Long id = 1L;
-        final Department department = Department.Builder.newInstance(id, "name", 1).build();
+    @Test(expected = InvalidEntityException.class)
+    public void testCreateTreeWhenParentRefUnknown() {
+        final List<DepartmentImport> imports = Arrays.asList(new DepartmentImport("a", Department.Builder.newInstance("a", 0).build(), "b", null));
+
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(department));
+                oneOf(departmentRepository).findByLowerNameIn(Collections.singletonList("a"));
+                will(returnValue(new ArrayList<>()));
             }
         });
 
-        Department actual = target.getParentById(id);
+        target.createTree(imports);
+    }
 
-        mockery.assertIsSatisfied();
-        Assert.assertNull(actual);
+    @Test(expected = EntityExistsException.class)
+    public void testCreateTreeWhenNameRepeated() {
+        target.createTree(Arrays.asList(new DepartmentImport(null, Department.Builder.newInstance("a", 0).build(), null, null),
+                                        new DepartmentImport(null, Department.Builder.newInstance("A", 0).build(), null, null)));
     }
 
-    @Test
-    public void testGetParentById() {
-        final Long id = 1L;
-        final Long parentId = 2L;
-        final Department department = Department.Builder.newInstance(id, "name", 1).parentDepartment(parentId).build();
-        final Department parent = mockery.mock(Department.class);
+    @Test(expected = EntityNotFoundException.class)
+    public void testCreateTreeWhenManagerNotExist() {
+        final List<DepartmentImport> imports = Arrays.asList(new DepartmentImport(null, Department.Builder.newInstance("a", 0).managerId(5L).build(), null, null));
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(department));
+                oneOf(departmentRepository).findByLowerNameIn(Collections.singletonList("a"));
+                will(returnValue(new ArrayList<>()));
 
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(parent));
+                oneOf(employeeRepository).countByIdIn(Collections.singletonList(5L));
+                will(returnValue(0L));
             }
         });
 
-        Department actual = target.getParentById(id);
+        target.createTree(imports);
+    }
+
+    @Test
+    public void testCreateTreeLooksUpManagerIdsOnlyWhenSomeAreMissing() {
+        final List<DepartmentImport> imports = Arrays.asList(new DepartmentImport(null, Department.Builder.newInstance("a", 0).managerId(5L).build(), null, null),
+                                                             new DepartmentImport(null, Department.Builder.newInstance("b", 0).managerId(6L).build(), null, null));
 
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findByLowerNameIn(Arrays.asList("a", "b"));
+                will(returnValue(new ArrayList<>()));
+
+                oneOf(employeeRepository).countByIdIn(Arrays.asList(5L, 6L));
+                will(returnValue(1L));
+
+                oneOf(employeeRepository).findIdsIn(Arrays.asList(5L, 6L));
+                will(returnValue(Arrays.asList(5L)));
+            }
+        });
+
+        try {
+            target.createTree(imports);
+            Assert.fail();
+        } catch (final EntityNotFoundException ex) {
+            Assert.assertEquals("Manager with id [6] cannot be found", ex.getMessage());
+        }
         mockery.assertIsSatisfied();
-        Assert.assertNotNull(actual);
     }
 
     @Test
-    public void testGetSubDepartmentsById() {
-        final long id = 1L;
+    public void testGetAll() {
         final List<Department> departments = new ArrayList<>();
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findByParentDepartmentId(id);
+                oneOf(departmentRepository).findAll();
                 will(returnValue(departments));
             }
         });
 
-        List<Department> actual = target.getSubDepartmentsById(id);
+        List<Department> actual = target.getAll();
 
         mockery.assertIsSatisfied();
         Assert.assertEquals(departments.size(), actual.size());
     }
 
-    @Test(expected = EntityNotFoundException.class)
-    public void testUpdateWhenInvalidManagerIdSet() {
-        final Long managerId = 1L;
-        Department department = Department.Builder.newInstance("test", 1).location("aa").managerId(managerId).parentDepartment(2L).build();
+    @Test
+    public void testForEach() {
+        final Stream<Department> departments = Stream.of(Department.Builder.newInstance(1L, "test", 1).build());
+        final Consumer<Department> consumer = new ArrayList<Department>()::add;
 
         mockery.checking(new Expectations() {
             {
-                oneOf(employeeRepository).findOne(managerId);
-                will(returnValue(null));
+                oneOf(departmentRepository).streamAll();
+                will(returnValue(departments));
+
+                oneOf(entityStreams).forEach(departments, consumer);
             }
         });
 
-        target.update(department);
+        target.forEach(consumer);
 
         mockery.assertIsSatisfied();
     }
 
-    @Test(expected = InvalidEntityException.class)
-    public void testUpdateWhenParentIdIsSelfId() {
-        final Long id = 1L;
-        final Long parentId = 1L;
-        Department department = Department.Builder.newInstance(id, "test", 1).location("aa").parentDepartment(parentId).build();
+    @Test
+    public void testGetPage() {
+        final List<Department> departments = Arrays.asList(Department.Builder.newInstance(5L, "test", 1).build());
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findByIdGreaterThan(4L, new PageRequest(0, 10, Sort.Direction.ASC, "id"));
+                will(returnValue(departments));
+            }
+        });
 
-        target.update(department);
-    }
+        List<Department> actual = target.getPage(4L, 10);
 
-    @Test(expected = EntityNotFoundException.class)
-    public void testUpdateWhenParentNotExist() {
-        final Long id = 1L;
-        final Long parentId = 2L;
-        Department department = Department.Builder.newInstance(id, "test", 1).location("aa").parentDepartment(parentId).build();
+        mockery.assertIsSatisfied();
+        Assert.assertSame(departments, actual);
+    }
 
+    @Test
+    public void testGetFirstPage() {
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(null));
+                oneOf(departmentRepository).findByIdGreaterThan(Long.MIN_VALUE, new PageRequest(0, 10, Sort.Direction.ASC, "id"));
+                will(returnValue(new ArrayList<Department>()));
             }
         });
 
-        target.update(department);
+        List<Department> actual = target.getPage(null, 10);
 
         mockery.assertIsSatisfied();
+        Assert.assertTrue(actual.isEmpty());
     }
 
-    @Test(expected = InvalidEntityException.class)
-    public void testUpdateWhenParentIsChild() {
-        final Long parentId = 3L;
-        Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").parentDepartment(parentId).build();
-        final Department department2 = Department.Builder.newInstance(2L, "test2", 1).location("aa").parentDepartment(1L).build();
-        final Department department3 = Department.Builder.newInstance(3L, "test3", 1).location("aa").parentDepartment(2L).build();
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPageWhenLimitInvalid() {
+        target.getPage(null, 1001);
+    }
+
+    @Test
+    public void testGetByIds() {
+        final Department first = Department.Builder.newInstance(1L, "a", 0).build();
+        final Department third = Department.Builder.newInstance(3L, "b", 0).build();
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(department3));
-
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(department3));
-
-                oneOf(departmentRepository).findOne(department3.getParentDepartmentId());
-                will(returnValue(department2));
+                oneOf(departmentRepository).findAll(new LinkedHashSet<>(Arrays.asList(3L, 2L, 1L)));
+                will(returnValue(Arrays.asList(first, third)));
             }
         });
 
-        target.update(department1);
+        final List<Department> actual = target.getByIds(Arrays.asList(3L, 2L, 1L, 3L));
 
         mockery.assertIsSatisfied();
+
+        Assert.assertEquals(Arrays.asList(third, first), actual);
     }
 
     @Test
-    public void testUpdate() {
-        final Long parentId = 3L;
-        final Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").parentDepartment(parentId).build();
-        final Department department2 = Department.Builder.newInstance(parentId, "test3", 1).location("aa").build();
+    public void testGetByIdsWithFields() {
+        final Map<String, Object> first = new LinkedHashMap<>();
+        first.put("id", 1L);
+        final Map<String, Object> third = new LinkedHashMap<>();
+        third.put("id", 3L);
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(department2));
-
-                oneOf(departmentRepository).findOne(parentId);
-                will(returnValue(department2));
-
-                oneOf(departmentRepository).save(department1);
-                will(returnValue(department1));
+                oneOf(departmentRepository).findAttributesByIds(Arrays.asList("name"), new LinkedHashSet<>(Arrays.asList(3L, 1L)));
+                will(returnValue(Arrays.asList(first, third)));
             }
         });
 
-        Department actual = target.update(department1);
+        final List<Map<String, Object>> actual = target.getByIds(Arrays.asList("name"), Arrays.asList(3L, 1L));
 
         mockery.assertIsSatisfied();
 
-        Assert.assertEquals(department2.getId(), actual.getParentDepartmentId());
+        Assert.assertEquals(Arrays.asList(third, first), actual);
     }
 
-    @Test(expected = EntityNotFoundException.class)
-    public void testRemoveByIdWhenDepartmentNotExist() {
-        final Long id = 3L;
+    @Test
+    public void testGetPageWithFields() {
+        final List<Map<String, Object>> rows = new ArrayList<>();
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(null));
+                oneOf(departmentRepository).findAttributes(Arrays.asList("name"), 5L, 10);
+                will(returnValue(rows));
             }
         });
 
-        target.removeById(id);
+        Assert.assertSame(rows, target.getPage(Arrays.asList("name"), 5L, 10));
 
         mockery.assertIsSatisfied();
     }
 
-    @Test(expected = EntityExistsException.class)
-    public void testRemoveByIdWhenDepartmentContainsSubDepartments() {
-        final Long id = 3L;
-        final Department department = Department.Builder.newInstance(id, "test3", 1).location("aa").build();
-        final List<Department> children = new ArrayList<>();
-        final Department child = Department.Builder.newInstance(2L, "test3", 1).location("aa").build();
-        children.add(child);
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetByIdsWhenTooMany() {
+        target.getByIds(Collections.nCopies(1001, 1L));
+    }
 
+    @Test
+    public void testGetById() {
+        final Long id = 1L;
+        final Department department = Department.Builder.newInstance(id, "name", 1).build();
         mockery.checking(new Expectations() {
             {
                 oneOf(departmentRepository).findOne(id);
                 will(returnValue(department));
-
-                oneOf(departmentRepository).findByParentDepartmentId(id);
-                will(returnValue(children));
             }
         });
 
-        target.removeById(id);
+        Department actual = target.getById(id);
 
         mockery.assertIsSatisfied();
+        Assert.assertEquals(department.getId(), actual.getId());
     }
 
     @Test
-    public void testRemoveById() {
-        final Long id = 3L;
-        final Department department = Department.Builder.newInstance(id, "test3", 1).location("aa").build();
-        final List<Department> children = new ArrayList<>();
+    public void testGetParentByIdWhenDepartmentNotExist() {
+        final Long id = 1L;
+        givenDepartments();
 
-        mockery.checking(new Expectations() {
-            {
-                oneOf(departmentRepository).findOne(id);
-                will(returnValue(department));
+        Department actual = target.getParentById(id);
 
-                oneOf(departmentRepository).findByParentDepartmentId(id);
-                will(returnValue(children));
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual);
+    }
 
-                oneOf(departmentRepository).delete(id);
-            }
-        });
+    @Test
+    public void testGetParentByIdWhenParentDepartmentNotExist() {
+        final Long id = 1L;
+        givenDepartments(Department.Builder.newInstance(id, "name", 1).build());
 
-        target.removeById(id);
+        Department actual = target.getParentById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual);
+    }
+
+    @Test
+    public void testGetParentById() {
+        final Long id = 1L;
+        final Long parentId = 2L;
+        final Department department = Department.Builder.newInstance(id, "name", 1).parentDepartment(parentId).build();
+        final Department parent = Department.Builder.newInstance(parentId, "parent", 1).build();
+        givenDepartments(department, parent);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(parentId);
+                will(returnValue(parent));
+            }
+        });
+
+        Department actual = target.getParentById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertNotNull(actual);
+    }
+
+    @Test
+    public void testGetSubDepartmentsById() {
+        final long id = 1L;
+        final Department parent = Department.Builder.newInstance(id, "parent", 1).build();
+        final Department child = Department.Builder.newInstance(2L, "child", 1).parentDepartment(id).build();
+        final List<Department> departments = Arrays.asList(child);
+        givenDepartments(parent, child);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(departmentHierarchy.getChildIds(id));
+                will(returnValue(departments));
+            }
+        });
+
+        List<Department> actual = target.getSubDepartmentsById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(departments.size(), actual.size());
+    }
+
+    @Test
+    public void testGetSubDepartmentsByIdCached() {
+        final long id = 1L;
+        final Department child = Department.Builder.newInstance(2L, "child", 1).parentDepartment(id).build();
+        givenDepartments(Department.Builder.newInstance(id, "parent", 1).build(), child);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(departmentHierarchy.getChildIds(id));
+                will(returnValue(Arrays.asList(child)));
+            }
+        });
+
+        target.getSubDepartmentsById(id);
+        List<Department> actual = target.getSubDepartmentsById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Arrays.asList(child), actual);
+    }
+
+    @Test
+    public void testUpdateEvictsOnlyAffectedSubDepartments() {
+        // 2 moves from under 1 to under 3, the sub-departments of 4 stay cached
+        final Department department1 = Department.Builder.newInstance(1L, "d1", 1).build();
+        final Department department2 = Department.Builder.newInstance(2L, "d2", 1).parentDepartment(1L).build();
+        final Department department3 = Department.Builder.newInstance(3L, "d3", 1).build();
+        final Department department4 = Department.Builder.newInstance(4L, "d4", 1).build();
+        final Department department5 = Department.Builder.newInstance(5L, "d5", 1).parentDepartment(4L).build();
+        final Department moved = Department.Builder.newInstance(2L, "d2", 1).parentDepartment(3L).build();
+        givenDepartments(department1, department2, department3, department4, department5);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(Collections.singleton(2L));
+                will(returnValue(Arrays.asList(department2)));
+
+                oneOf(departmentRepository).findAll(Collections.singleton(5L));
+                will(returnValue(Arrays.asList(department5)));
+
+                oneOf(departmentRepository).save(moved);
+                will(returnValue(moved));
+
+                oneOf(departmentClosureRepository).detachSubtree(2L);
+
+                oneOf(departmentClosureRepository).attachSubtree(2L, 3L);
+
+                oneOf(departmentRollups).updateDepartment(2L, 3L, 1);
+
+                oneOf(reportingChains).departmentUpdated(2L, null, 3L);
+
+                oneOf(departmentRepository).findAll(Collections.singleton(2L));
+                will(returnValue(Arrays.asList(moved)));
+            }
+        });
+        for (final long id : new long[] { 1L, 3L, 4L }) {
+            target.getSubDepartmentsById(id);
+        }
+
+        target.update(moved);
+
+        Assert.assertTrue(target.getSubDepartmentsById(1L).isEmpty());
+        Assert.assertEquals(Arrays.asList(moved), target.getSubDepartmentsById(3L));
+        Assert.assertEquals(Arrays.asList(department5), target.getSubDepartmentsById(4L));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetSubDepartmentsByIdWhenNoChildren() {
+        final long id = 1L;
+        givenDepartments(Department.Builder.newInstance(id, "parent", 1).build());
+
+        List<Department> actual = target.getSubDepartmentsById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void testGetDescendants() {
+        final long id = 1L;
+        final Department child = Department.Builder.newInstance(2L, "child", 1).parentDepartment(id).build();
+        final Department grandchild = Department.Builder.newInstance(3L, "grandchild", 1).parentDepartment(2L).build();
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { child, 1 });
+        rows.add(new Object[] { grandchild, 2 });
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).findDescendants(id, 5);
+                will(returnValue(rows));
+            }
+        });
+
+        List<DepartmentNode> actual = target.getDescendants(id, 5);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertSame(child, actual.get(0).getDepartment());
+        Assert.assertEquals(1, actual.get(0).getDepth());
+        Assert.assertSame(grandchild, actual.get(1).getDepartment());
+        Assert.assertEquals(2, actual.get(1).getDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetDescendantsWhenMaxDepthInvalid() {
+        target.getDescendants(1L, 0);
+    }
+
+    @Test
+    public void testGetAncestors() {
+        final long id = 3L;
+        final Department parent = Department.Builder.newInstance(2L, "parent", 1).parentDepartment(1L).build();
+        final Department root = Department.Builder.newInstance(1L, "root", 1).build();
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { parent, 1 });
+        rows.add(new Object[] { root, 2 });
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).findAncestors(id);
+                will(returnValue(rows));
+            }
+        });
+
+        List<DepartmentNode> actual = target.getAncestors(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertSame(parent, actual.get(0).getDepartment());
+        Assert.assertSame(root, actual.get(1).getDepartment());
+        Assert.assertEquals(2, actual.get(1).getDepth());
+    }
+
+    @Test
+    public void testGetAncestor() {
+        final long id = 3L;
+        final long ancestorId = 1L;
+        final Department root = Department.Builder.newInstance(ancestorId, "root", 1).build();
+        final List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] { root, 2 });
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).findAncestor(id, ancestorId);
+                will(returnValue(rows));
+            }
+        });
+
+        DepartmentNode actual = target.getAncestor(id, ancestorId);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(root, actual.getDepartment());
+        Assert.assertEquals(2, actual.getDepth());
+    }
+
+    @Test
+    public void testGetAncestorWhenNotUnder() {
+        final long id = 3L;
+        final long ancestorId = 4L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentClosureRepository).findAncestor(id, ancestorId);
+                will(returnValue(new ArrayList<Object[]>()));
+            }
+        });
+
+        DepartmentNode actual = target.getAncestor(id, ancestorId);
+
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testUpdateWhenInvalidManagerIdSet() {
+        final Long managerId = 1L;
+        Department department = Department.Builder.newInstance("test", 1).location("aa").managerId(managerId).parentDepartment(2L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).countByIdIn(Collections.singletonList(managerId));
+                will(returnValue(0L));
+            }
+        });
+
+        target.update(department);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = InvalidEntityException.class)
+    public void testUpdateWhenParentIdIsSelfId() {
+        final Long id = 1L;
+        final Long parentId = 1L;
+        Department department = Department.Builder.newInstance(id, "test", 1).location("aa").parentDepartment(parentId).build();
+
+        target.update(department);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testUpdateWhenParentNotExist() {
+        final Long id = 1L;
+        final Long parentId = 2L;
+        Department department = Department.Builder.newInstance(id, "test", 1).location("aa").parentDepartment(parentId).build();
+        givenDepartments(department);
+
+        target.update(department);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = InvalidEntityException.class)
+    public void testUpdateWhenParentIsChild() {
+        final Long parentId = 3L;
+        Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").parentDepartment(parentId).build();
+        final Department department2 = Department.Builder.newInstance(2L, "test2", 1).location("aa").parentDepartment(1L).build();
+        final Department department3 = Department.Builder.newInstance(3L, "test3", 1).location("aa").parentDepartment(2L).build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).build(), department2, department3);
+
+        target.update(department1);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testUpdate() {
+        final Long parentId = 3L;
+        final Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").parentDepartment(parentId).build();
+        final Department department2 = Department.Builder.newInstance(parentId, "test3", 1).location("aa").build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).location("aa").build(), department2);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).save(department1);
+                will(returnValue(department1));
+
+                oneOf(departmentClosureRepository).detachSubtree(1L);
+
+                oneOf(departmentClosureRepository).attachSubtree(1L, parentId);
+
+                oneOf(departmentRollups).updateDepartment(1L, parentId, 1);
+
+                oneOf(reportingChains).departmentUpdated(1L, null, parentId);
+            }
+        });
+
+        encodedEntities.get(Department.class, 1L, "json", () -> new EncodedEntity(0L, new byte[0]));
+
+        Department actual = target.update(department1);
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertNull(encodedEntities.get(Department.class, 1L, "json"));
+        Assert.assertEquals(department2.getId(), actual.getParentDepartmentId());
+        Assert.assertEquals(parentId, departmentHierarchy.getParentId(1L));
+        Assert.assertTrue(departmentHierarchy.getChildIds(parentId).contains(1L));
+    }
+
+    @Test
+    public void testUpdateWithoutReparent() {
+        final Long parentId = 3L;
+        final Department department1 = Department.Builder.newInstance(1L, "test", 2).location("bb").parentDepartment(parentId).build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).location("aa").parentDepartment(parentId).build(),
+                         Department.Builder.newInstance(parentId, "test3", 1).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).save(department1);
+                will(returnValue(department1));
+
+                oneOf(departmentRollups).updateDepartment(1L, parentId, 2);
+
+                oneOf(reportingChains).departmentUpdated(1L, null, parentId);
+            }
+        });
+
+        final String tableVersion = target.getTableVersion();
+
+        Department actual = target.update(department1);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("bb", actual.getLocation());
+        Assert.assertNotEquals(tableVersion, target.getTableVersion());
+    }
+
+    @Test
+    public void testPatchChecksOnlyWhatChanges() {
+        final Long parentId = 3L;
+        final Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").managerId(5L).parentDepartment(parentId).build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).parentDepartment(parentId).build(), Department.Builder.newInstance(parentId, "test3", 1).build());
+
+        // the manager it keeps is not counted again
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(department1));
+
+                oneOf(departmentRepository).save(department1);
+                will(returnValue(department1));
+
+                oneOf(departmentRollups).updateDepartment(1L, parentId, 4);
+
+                oneOf(reportingChains).departmentUpdated(1L, 5L, parentId);
+            }
+        });
+
+        Department actual = target.patch(1L, DepartmentPatch.Builder.newInstance().openPositions(4).managerId(5L).build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(4, actual.getOpenPositions());
+        Assert.assertEquals("aa", actual.getLocation());
+        Assert.assertEquals(Long.valueOf(5L), actual.getManagerId());
+        Assert.assertEquals(parentId, actual.getParentDepartmentId());
+    }
+
+    @Test
+    public void testPatchClearsField() {
+        final Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").managerId(5L).build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(department1));
+
+                oneOf(departmentRepository).save(department1);
+                will(returnValue(department1));
+
+                oneOf(departmentRollups).updateDepartment(1L, null, 1);
+
+                oneOf(reportingChains).departmentUpdated(1L, null, null);
+            }
+        });
+
+        Department actual = target.patch(1L, DepartmentPatch.Builder.newInstance().managerId(null).build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual.getManagerId());
+        Assert.assertEquals("aa", actual.getLocation());
+    }
+
+    @Test
+    public void testPatchWithoutChangesWritesNothing() {
+        final Department department1 = Department.Builder.newInstance(1L, "test", 1).location("aa").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(department1));
+            }
+        });
+
+        final String tableVersion = target.getTableVersion();
+
+        Department actual = target.patch(1L, DepartmentPatch.Builder.newInstance().openPositions(1).location("aa").build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(department1, actual);
+        Assert.assertEquals(tableVersion, target.getTableVersion());
+    }
+
+    @Test
+    public void testPatchWhenDepartmentNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(null));
+            }
+        });
+
+        Assert.assertNull(target.patch(1L, DepartmentPatch.Builder.newInstance().openPositions(1).build()));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testPatchWhenManagerNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(Department.Builder.newInstance(1L, "test", 1).managerId(5L).build()));
+
+                oneOf(employeeRepository).countByIdIn(Collections.singletonList(6L));
+                will(returnValue(0L));
+            }
+        });
+
+        target.patch(1L, DepartmentPatch.Builder.newInstance().managerId(6L).build());
+    }
+
+    @Test(expected = InvalidEntityException.class)
+    public void testPatchWhenParentIsChild() {
+        final Department department2 = Department.Builder.newInstance(2L, "test2", 1).parentDepartment(1L).build();
+        final Department department3 = Department.Builder.newInstance(3L, "test3", 1).parentDepartment(2L).build();
+        givenDepartments(Department.Builder.newInstance(1L, "test", 1).build(), department2, department3);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(Department.Builder.newInstance(1L, "test", 1).build()));
+            }
+        });
+
+        target.patch(1L, DepartmentPatch.Builder.newInstance().parentDepartment(3L).build());
+    }
+
+    @Test
+    public void testTableVersionUnchangedWhenUpdateFails() {
+        final Department department1 = Department.Builder.newInstance(1L, "test", 1).parentDepartment(1L).build();
+        final String tableVersion = target.getTableVersion();
+
+        try {
+            target.update(department1);
+            Assert.fail();
+        } catch (final InvalidEntityException ex) {
+            Assert.assertEquals(tableVersion, target.getTableVersion());
+        }
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testRemoveByIdWhenDepartmentNotExist() {
+        final Long id = 3L;
+        givenDepartments();
+
+        target.removeById(id);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = EntityExistsException.class)
+    public void testRemoveByIdWhenDepartmentContainsSubDepartments() {
+        final Long id = 3L;
+        final Department department = Department.Builder.newInstance(id, "test3", 1).location("aa").build();
+        final Department child = Department.Builder.newInstance(2L, "test3", 1).location("aa").parentDepartment(id).build();
+        givenDepartments(department, child);
+
+        target.removeById(id);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testRemoveById() {
+        final Long id = 3L;
+        final Department department = Department.Builder.newInstance(id, "test3", 1).location("aa").build();
+        givenDepartments(department);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).delete(id);
+
+                oneOf(departmentClosureRepository).deleteLeaf(id);
+
+                oneOf(departmentRollups).removeDepartment(id);
+
+                oneOf(reportingChains).departmentRemoved(id);
+            }
+        });
+        final String tableVersion = target.getTableVersion();
+
+        target.removeById(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertFalse(departmentHierarchy.contains(id));
+        Assert.assertNotEquals(tableVersion, target.getTableVersion());
+    }
+
+    @Test
+    public void testGetEmployeesCachedUntilDepartmentRemoved() {
+        final long id = 3L;
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").departmentId(id).build();
+        givenDepartments(Department.Builder.newInstance(id, "test3", 1).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findByDepartmentId(id);
+                will(returnValue(Arrays.asList(employee)));
+
+                oneOf(departmentRepository).delete(id);
+
+                oneOf(departmentClosureRepository).deleteLeaf(id);
+
+                oneOf(departmentRollups).removeDepartment(id);
+
+                oneOf(reportingChains).departmentRemoved(id);
+
+                oneOf(employeeRepository).findByDepartmentId(id);
+                will(returnValue(Collections.emptyList()));
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(employee), target.getEmployees(id));
+        Assert.assertEquals(Arrays.asList(employee), target.getEmployees(id));
+        target.removeById(id);
+
+        Assert.assertTrue(target.getEmployees(id).isEmpty());
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetRollup() {
+        final long id = 1L;
+        final DepartmentRollup rollup = new DepartmentRollup(5L, 2L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRollups).get(id);
+                will(returnValue(rollup));
+            }
+        });
+
+        DepartmentRollup actual = target.getRollup(id);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(rollup, actual);
+    }
+
+    @Test
+    public void testGetLowestCommonAncestor() {
+        final Department root = Department.Builder.newInstance(1L, "root", 1).build();
+        givenDepartments(root, Department.Builder.newInstance(2L, "a", 1).parentDepartment(1L).build(),
+                         Department.Builder.newInstance(3L, "b", 1).parentDepartment(2L).build(),
+                         Department.Builder.newInstance(4L, "c", 1).parentDepartment(1L).build());
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(root));
+            }
+        });
+
+        CommonAncestor actual = target.getLowestCommonAncestor(3L, 4L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(root, actual.getDepartment());
+        Assert.assertEquals(2, actual.getDistanceFromA());
+        Assert.assertEquals(1, actual.getDistanceFromB());
+        Assert.assertEquals(3, actual.getDistance());
+    }
+
+    @Test
+    public void testGetLowestCommonAncestorWhenSeparateTrees() {
+        givenDepartments(Department.Builder.newInstance(1L, "a", 1).build(), Department.Builder.newInstance(2L, "b", 1).build());
+
+        CommonAncestor actual = target.getLowestCommonAncestor(1L, 2L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testGetLowestCommonAncestorWhenDepartmentNotExist() {
+        givenDepartments(Department.Builder.newInstance(1L, "a", 1).build());
+
+        target.getLowestCommonAncestor(1L, 2L);
+    }
+
+    @Test
+    public void testGetFromSnapshot() {
+        // 1 -> 2 -> 3, 1 -> 4, with one employee in 2
+        final Department department1 = Department.Builder.newInstance(1L, "d1", 1).build();
+        final Department department2 = Department.Builder.newInstance(2L, "d2", 1).parentDepartment(1L).build();
+        final Department department3 = Department.Builder.newInstance(3L, "d3", 1).parentDepartment(2L).build();
+        final Department department4 = Department.Builder.newInstance(4L, "d4", 1).parentDepartment(1L).build();
+        final Employee employee = Employee.Builder.newInstance(5L, "firstname", "lastname", "name", "title", "grade").departmentId(2L).build();
+        final DepartmentServiceImpl snapshotted = new DepartmentServiceImpl(departmentRepository, employeeRepository, departmentClosureRepository, departmentHierarchy,
+                                                                            departmentRollups, reportingChains, entityStreams, tableVersions, relationCache, missingIds,
+                                                                            takenNames, encodedEntities, new OrgSnapshotsImpl(departmentRepository, employeeRepository, true));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(department1, department2, department3, department4)));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Arrays.asList(employee)));
+            }
+        });
+
+        final List<DepartmentNode> descendants = snapshotted.getDescendants(1L, 5);
+        final List<DepartmentNode> ancestors = snapshotted.getAncestors(3L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Arrays.asList(2L, 4L, 3L), Arrays.asList(descendants.get(0).getDepartment().getId(), descendants.get(1).getDepartment().getId(),
+                                                                    descendants.get(2).getDepartment().getId()));
+        Assert.assertEquals(2, descendants.get(2).getDepth());
+        Assert.assertEquals(2, snapshotted.getDescendants(1L, 1).size());
+        Assert.assertEquals(Arrays.asList(1L, 2L), Arrays.asList(ancestors.get(1).getDepartment().getId(), ancestors.get(0).getDepartment().getId()));
+        Assert.assertEquals(2, snapshotted.getAncestor(3L, 1L).getDepth());
+        Assert.assertNull(snapshotted.getAncestor(4L, 2L));
+        Assert.assertEquals(Arrays.asList(2L, 4L), Arrays.asList(snapshotted.getSubDepartmentsById(1L).get(0).getId(), snapshotted.getSubDepartmentsById(1L).get(1).getId()));
+        Assert.assertEquals(Long.valueOf(5L), snapshotted.getEmployees(2L).get(0).getId());
+        Assert.assertEquals(2, snapshotted.getPage(2L, 10).size());
+        Assert.assertEquals(Arrays.asList("d3"), Arrays.asList(snapshotted.getByIds(Arrays.asList("name"), Arrays.asList(3L, 6L)).get(0).get("name")));
+        Assert.assertNull(snapshotted.getById(6L));
+    }
+
+    @Test
+    public void testGetByIdFromSnapshotIsACopy() {
+        final DepartmentServiceImpl snapshotted = new DepartmentServiceImpl(departmentRepository, employeeRepository, departmentClosureRepository, departmentHierarchy,
+                                                                            departmentRollups, reportingChains, entityStreams, tableVersions, relationCache, missingIds,
+                                                                            takenNames, encodedEntities, new OrgSnapshotsImpl(departmentRepository, employeeRepository, true));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(Department.Builder.newInstance(1L, "d1", 1).location("aa").build())));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Collections.emptyList()));
+            }
+        });
+
+        snapshotted.getById(1L).update(7, "bb", null, null);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(1, snapshotted.getById(1L).getOpenPositions());
+        Assert.assertEquals("aa", snapshotted.getAll().get(0).getLocation());
+    }
+
+    @Test
+    public void testCreatePublishesToSnapshot() {
+        final Department department = Department.Builder.newInstance("test", 1).parentDepartment(1L).build();
+        final Department saved = Department.Builder.newInstance(2L, "test", 1).parentDepartment(1L).build();
+        final DepartmentServiceImpl snapshotted = new DepartmentServiceImpl(departmentRepository, employeeRepository, departmentClosureRepository, departmentHierarchy,
+                                                                            departmentRollups, reportingChains, entityStreams, tableVersions, relationCache, missingIds,
+                                                                            takenNames, encodedEntities, new OrgSnapshotsImpl(departmentRepository, employeeRepository, true));
+
+        mockery.checking(new Expectations() {
+            {
+                // once by the hierarchy and once by the snapshot
+                exactly(2).of(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(Department.Builder.newInstance(1L, "d1", 1).build())));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Collections.emptyList()));
+
+                oneOf(departmentRepository).save(department);
+                will(returnValue(saved));
+
+                oneOf(departmentClosureRepository).insertSelf(2L);
+
+                oneOf(departmentClosureRepository).attachSubtree(2L, 1L);
+
+                oneOf(departmentRollups).addDepartment(2L, 1L, 1);
+            }
+        });
+
+        Assert.assertTrue(snapshotted.getSubDepartmentsById(1L).isEmpty());
+        snapshotted.create(department);
 
         mockery.assertIsSatisfied();
+        Assert.assertEquals(Long.valueOf(2L), snapshotted.getSubDepartmentsById(1L).get(0).getId());
+        Assert.assertEquals("test", snapshotted.getById(2L).getName());
     }
 }
\ No newline at end of file
@@ -1,20 +1,40 @@
 package anz.core.application.impls;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 
+import org.hibernate.exception.ConstraintViolationException;
 import org.jmock.Expectations;
 import org.jmock.Mockery;
 import org.jmock.lib.legacy.ClassImposteriser;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
-
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import anz.core.application.DepartmentRollups;
+import anz.core.application.EntityStreams;
+import anz.core.application.ReportingChains;
+import anz.core.application.TakenNames;
+import anz.core.domain.models.CommonAncestor;
 import anz.core.domain.models.Department;
 import anz.core.domain.models.Employee;
+import anz.core.domain.models.EmployeePatch;
+import anz.core.domain.models.EncodedEntity;
 import anz.core.domain.models.Gender;
+import anz.core.domain.models.ImportResult;
 import anz.core.repositories.DepartmentRepository;
 import anz.core.repositories.EmployeeRepository;
 
@@ -29,7 +49,41 @@ public class EmployeeServiceImplTest {
 
     private EmployeeRepository employeeRepository = mockery.mock(EmployeeRepository.class);
 
-    private EmployeeServiceImpl target = new EmployeeServiceImpl(departmentRepository, employeeRepository);
+    private DepartmentHierarchyImpl departmentHierarchy = new DepartmentHierarchyImpl(departmentRepository);
+
+    private DepartmentRollups departmentRollups = mockery.mock(DepartmentRollups.class);
+
+    private ReportingChains reportingChains = mockery.mock(ReportingChains.class);
+
+    private EntityStreams entityStreams = mockery.mock(EntityStreams.class);
+
+    private TableVersionsImpl tableVersions = new TableVersionsImpl();
+
+    private RelationCacheImpl relationCache = new RelationCacheImpl();
+
+    private MissingIdsImpl missingIds = new MissingIdsImpl();
+
+    private TakenNames takenNames = mockery.mock(TakenNames.class);
+
+    private EncodedEntitiesImpl encodedEntities = new EncodedEntitiesImpl();
+
+    private OrgSnapshotsImpl orgSnapshots = new OrgSnapshotsImpl(departmentRepository, employeeRepository, false);
+
+    private EmployeeServiceImpl target = new EmployeeServiceImpl(departmentRepository, employeeRepository, departmentHierarchy, departmentRollups, reportingChains,
+                                                                 entityStreams, tableVersions, relationCache, missingIds, takenNames, encodedEntities, orgSnapshots);
+
+    @Before
+    public void setUp() {
+        // every name might be taken, so the lookups stay as they were
+        mockery.checking(new Expectations() {
+            {
+                allowing(takenNames).mightBeTaken(with(any(Class.class)), with(any(String.class)));
+                will(returnValue(true));
+
+                allowing(takenNames).taken(with(any(Class.class)), with(any(String.class)));
+            }
+        });
+    }
 
     @Test(expected = EntityNotFoundException.class)
     public void testCreateWhenDepartmentNotExist() {
@@ -38,8 +92,8 @@ public class EmployeeServiceImplTest {
 
         mockery.checking(new Expectations() {
             {
-                oneOf(departmentRepository).findOne(departmentId);
-                will(returnValue(null));
+                oneOf(departmentRepository).countByIdIn(Collections.singletonList(departmentId));
+                will(returnValue(0L));
             }
         });
 
@@ -50,20 +104,18 @@ public class EmployeeServiceImplTest {
 
     @Test(expected = EntityExistsException.class)
     public void testCreateWhenLdapUsernameExist() {
-        final String ldapUsername = "name";
-        Employee employee = Employee.Builder.newInstance("firstname", "lastname", ldapUsername, "title", "grade").build();
-        final Employee exist = mockery.mock(Employee.class);
+        final Employee employee = Employee.Builder.newInstance("firstname", "lastname", "name", "title", "grade").build();
 
         mockery.checking(new Expectations() {
             {
-                oneOf(employeeRepository).findByLdapUsername(ldapUsername);
-                will(returnValue(exist));
+                oneOf(employeeRepository).save(employee);
+                will(throwException(new DataIntegrityViolationException("could not execute statement",
+                                                                        new ConstraintViolationException("could not execute statement", null,
+                                                                                                         "UK_EMPLOYEE_LDAPUSERNAME"))));
             }
         });
 
         target.create(employee);
-
-        mockery.assertIsSatisfied();
     }
 
     @Test
@@ -74,19 +126,92 @@ public class EmployeeServiceImplTest {
 
         mockery.checking(new Expectations() {
             {
-                oneOf(employeeRepository).findByLdapUsername(ldapUsername);
-                will(returnValue(null));
-
                 oneOf(employeeRepository).save(employee);
                 will(returnValue(exist));
+
+                oneOf(exist).getDepartmentId();
+                will(returnValue(1L));
+
+                allowing(exist).getId();
+                will(returnValue(5L));
+
+                oneOf(departmentRollups).addEmployee(1L);
             }
         });
+        final String tableVersion = target.getTableVersion();
 
         Employee actual = target.create(employee);
 
         mockery.assertIsSatisfied();
 
         Assert.assertNotNull(actual);
+        Assert.assertNotEquals(tableVersion, target.getTableVersion());
+    }
+
+    @Test
+    public void testGetByIdWhenMissing() {
+        final Long id = 3L;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(id);
+                will(returnValue(null));
+            }
+        });
+
+        Assert.assertNull(target.getById(id));
+        Assert.assertNull(target.getById(id));
+        Assert.assertNull(target.getVersionById(id));
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testCreateAll() {
+        final Employee created = Employee.Builder.newInstance("firstname", "lastname", "a", "title", "grade").departmentId(1L).build();
+        final Employee departmentNotExist = Employee.Builder.newInstance("firstname", "lastname", "b", "title", "grade").departmentId(2L).build();
+        final Employee ldapUsernameExist = Employee.Builder.newInstance("firstname", "lastname", "c", "title", "grade").build();
+        final Employee ldapUsernameRepeated = Employee.Builder.newInstance("firstname", "lastname", "a", "title", "grade").build();
+        final Employee withoutDepartment = Employee.Builder.newInstance("firstname", "lastname", "d", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).countByIdIn(Arrays.asList(1L, 2L));
+                will(returnValue(1L));
+
+                oneOf(departmentRepository).findIdsIn(Arrays.asList(1L, 2L));
+                will(returnValue(Arrays.asList(1L)));
+
+                oneOf(employeeRepository).findLdapUsernamesIn(Arrays.asList("a", "b", "c", "d"));
+                will(returnValue(Arrays.asList("c")));
+
+                oneOf(employeeRepository).insertAll(Arrays.asList(created, withoutDepartment));
+                will(returnValue(Arrays.asList(10L, 11L)));
+
+                oneOf(departmentRollups).addEmployee(1L);
+                oneOf(departmentRollups).addEmployee(with(aNull(Long.class)));
+            }
+        });
+
+        final List<ImportResult> actual = target.createAll(Arrays.asList(created, departmentNotExist, ldapUsernameExist, ldapUsernameRepeated, withoutDepartment));
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(5, actual.size());
+        Assert.assertEquals(ImportResult.Status.CREATED, actual.get(0).getStatus());
+        Assert.assertEquals(Long.valueOf(10L), actual.get(0).getId());
+        Assert.assertEquals(ImportResult.Status.NOT_FOUND, actual.get(1).getStatus());
+        Assert.assertEquals(ImportResult.Status.CONFLICT, actual.get(2).getStatus());
+        Assert.assertEquals(ImportResult.Status.CONFLICT, actual.get(3).getStatus());
+        Assert.assertNull(actual.get(3).getId());
+        Assert.assertEquals(ImportResult.Status.CREATED, actual.get(4).getStatus());
+        Assert.assertEquals(Long.valueOf(11L), actual.get(4).getId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCreateAllWhenTooMany() {
+        final Employee employee = Employee.Builder.newInstance("firstname", "lastname", "a", "title", "grade").build();
+
+        target.createAll(Collections.nCopies(10001, employee));
     }
 
     @Test
@@ -105,6 +230,122 @@ public class EmployeeServiceImplTest {
         Assert.assertEquals(employees.size(), actual.size());
     }
 
+    @Test
+    public void testForEach() {
+        final Stream<Employee> employees = Stream.of(Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").build());
+        final Consumer<Employee> consumer = new ArrayList<Employee>()::add;
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).streamAll();
+                will(returnValue(employees));
+
+                oneOf(entityStreams).forEach(employees, consumer);
+            }
+        });
+
+        target.forEach(consumer);
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testGetPage() {
+        final List<Employee> employees = Arrays.asList(Employee.Builder.newInstance(5L, "firstname", "lastname", "ldapUsername", "title", "grade").build());
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findByIdGreaterThan(4L, new PageRequest(0, 10, Sort.Direction.ASC, "id"));
+                will(returnValue(employees));
+            }
+        });
+
+        List<Employee> actual = target.getPage(4L, 10);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(employees, actual);
+    }
+
+    @Test
+    public void testGetFirstPage() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findByIdGreaterThan(Long.MIN_VALUE, new PageRequest(0, 10, Sort.Direction.ASC, "id"));
+                will(returnValue(new ArrayList<Employee>()));
+            }
+        });
+
+        List<Employee> actual = target.getPage(null, 10);
+
+        mockery.assertIsSatisfied();
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetPageWhenLimitInvalid() {
+        target.getPage(null, 1001);
+    }
+
+    @Test
+    public void testGetByIds() {
+        final Employee first = Employee.Builder.newInstance(1L, "f", "l", "a", "t", "g").build();
+        final Employee third = Employee.Builder.newInstance(3L, "f", "l", "b", "t", "g").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findAll(new LinkedHashSet<>(Arrays.asList(3L, 2L, 1L)));
+                will(returnValue(Arrays.asList(first, third)));
+            }
+        });
+
+        final List<Employee> actual = target.getByIds(Arrays.asList(3L, 2L, 1L, 3L));
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(Arrays.asList(third, first), actual);
+    }
+
+    @Test
+    public void testGetByIdsWithFields() {
+        final Map<String, Object> first = new LinkedHashMap<>();
+        first.put("id", 1L);
+        final Map<String, Object> third = new LinkedHashMap<>();
+        third.put("id", 3L);
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findAttributesByIds(Arrays.asList("lastname"), new LinkedHashSet<>(Arrays.asList(3L, 1L)));
+                will(returnValue(Arrays.asList(first, third)));
+            }
+        });
+
+        final List<Map<String, Object>> actual = target.getByIds(Arrays.asList("lastname"), Arrays.asList(3L, 1L));
+
+        mockery.assertIsSatisfied();
+
+        Assert.assertEquals(Arrays.asList(third, first), actual);
+    }
+
+    @Test
+    public void testGetPageWithFields() {
+        final List<Map<String, Object>> rows = new ArrayList<>();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findAttributes(Arrays.asList("lastname"), 5L, 10);
+                will(returnValue(rows));
+            }
+        });
+
+        Assert.assertSame(rows, target.getPage(Arrays.asList("lastname"), 5L, 10));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetByIdsWhenTooMany() {
+        target.getByIds(Collections.nCopies(1001, 1L));
+    }
+
     @Test
     public void testGetById() {
         final Long id = 1L;
@@ -179,6 +420,144 @@ public class EmployeeServiceImplTest {
         Assert.assertEquals(department.getOpenPositions(), actual.getOpenPositions());
     }
 
+    @Test
+    public void testGetDepartmentOfCachedUntilRemoved() {
+        final Long id = 1L;
+        final Long departmentId = 2L;
+        final Employee employee = Employee.Builder.newInstance(id, "firstname", "lastname", "ldapUsername", "title", "grade").departmentId(departmentId).build();
+        final Department department = Department.Builder.newInstance(departmentId, "name", 1).build();
+
+        mockery.checking(new Expectations() {
+            {
+                exactly(3).of(employeeRepository).findOne(id);
+                will(onConsecutiveCalls(returnValue(employee), returnValue(employee), returnValue(null)));
+
+                oneOf(departmentRepository).findOne(departmentId);
+                will(returnValue(department));
+
+                oneOf(departmentRepository).findByManagerId(id);
+                will(returnValue(Collections.emptyList()));
+
+                oneOf(employeeRepository).delete(id);
+
+                oneOf(departmentRollups).removeEmployee(departmentId);
+            }
+        });
+
+        Assert.assertSame(department, target.getDepartmentOf(id));
+        Assert.assertSame(department, target.getDepartmentOf(id));
+        target.removeById(id);
+        try {
+            target.getDepartmentOf(id);
+            Assert.fail();
+        } catch (final EntityNotFoundException ex) {
+            mockery.assertIsSatisfied();
+        }
+    }
+
+    @Test
+    public void testPatchMovesEmployee() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").departmentId(2L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+
+                oneOf(departmentRepository).countByIdIn(Collections.singletonList(3L));
+                will(returnValue(1L));
+
+                oneOf(employeeRepository).save(employee);
+                will(returnValue(employee));
+
+                oneOf(departmentRollups).removeEmployee(2L);
+
+                oneOf(departmentRollups).addEmployee(3L);
+            }
+        });
+
+        Employee actual = target.patch(1L, EmployeePatch.Builder.newInstance().title("manager").departmentId(3L).build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals("manager", actual.getTitle());
+        Assert.assertEquals("firstname", actual.getFirstname());
+        Assert.assertEquals(Long.valueOf(3L), actual.getDepartmentId());
+    }
+
+    @Test
+    public void testPatchWithoutMoveChecksNoDepartment() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").departmentId(2L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+
+                oneOf(employeeRepository).save(employee);
+                will(returnValue(employee));
+            }
+        });
+
+        Employee actual = target.patch(1L, EmployeePatch.Builder.newInstance().gender(Gender.Female).departmentId(2L).build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Gender.Female, actual.getGender());
+        Assert.assertEquals(Long.valueOf(2L), actual.getDepartmentId());
+    }
+
+    @Test
+    public void testPatchWithoutChangesWritesNothing() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").gender(Gender.Female)
+                                          .departmentId(2L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+            }
+        });
+
+        // the tag of the list and the tag of the row, which carries the version
+        final String tableVersion = target.getTableVersion();
+        final long version = employee.getVersion();
+
+        Employee actual = target.patch(1L, EmployeePatch.Builder.newInstance().title("title").gender(Gender.Female).departmentId(2L).build());
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(employee, actual);
+        Assert.assertEquals(tableVersion, target.getTableVersion());
+        Assert.assertEquals(version, actual.getVersion());
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testPatchWhenDepartmentNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(Employee.Builder.newInstance(1L, "firstname", "lastname", "ldapUsername", "title", "grade").build()));
+
+                oneOf(departmentRepository).countByIdIn(Collections.singletonList(3L));
+                will(returnValue(0L));
+            }
+        });
+
+        target.patch(1L, EmployeePatch.Builder.newInstance().departmentId(3L).build());
+    }
+
+    @Test
+    public void testPatchWhenEmployeeNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(null));
+            }
+        });
+
+        Assert.assertNull(target.patch(1L, EmployeePatch.Builder.newInstance().title("manager").build()));
+
+        mockery.assertIsSatisfied();
+    }
+
     @Test(expected = EntityNotFoundException.class)
     public void testRemoveByIdWhenEmployeeNotExist() {
         final Long id = 3L;
@@ -233,11 +612,181 @@ public class EmployeeServiceImplTest {
                 will(returnValue(departments));
 
                 oneOf(employeeRepository).delete(id);
+
+                oneOf(departmentRollups).removeEmployee(null);
             }
         });
+        encodedEntities.get(Employee.class, id, "json", () -> new EncodedEntity(0L, new byte[0]));
 
         target.removeById(id);
 
         mockery.assertIsSatisfied();
+        Assert.assertNull(encodedEntities.get(Employee.class, id, "json"));
+    }
+
+    @Test
+    public void testGetLowestCommonDepartment() {
+        final Department root = Department.Builder.newInstance(1L, "root", 1).build();
+        final Department child = Department.Builder.newInstance(2L, "child", 1).parentDepartment(1L).build();
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").departmentId(2L).build();
+        final Employee other = Employee.Builder.newInstance(2L, "firstname", "lastname", "b", "title", "grade").departmentId(1L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+
+                oneOf(employeeRepository).findOne(2L);
+                will(returnValue(other));
+
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(root, child)));
+
+                oneOf(departmentRepository).findOne(1L);
+                will(returnValue(root));
+            }
+        });
+
+        CommonAncestor actual = target.getLowestCommonDepartment(1L, 2L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(root, actual.getDepartment());
+        Assert.assertEquals(1, actual.getDistanceFromA());
+        Assert.assertEquals(0, actual.getDistanceFromB());
+    }
+
+    @Test
+    public void testGetLowestCommonDepartmentWhenNoDepartmentSet() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").build();
+        final Employee other = Employee.Builder.newInstance(2L, "firstname", "lastname", "b", "title", "grade").departmentId(1L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+
+                oneOf(employeeRepository).findOne(2L);
+                will(returnValue(other));
+            }
+        });
+
+        CommonAncestor actual = target.getLowestCommonDepartment(1L, 2L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertNull(actual);
+    }
+
+    @Test(expected = EntityNotFoundException.class)
+    public void testGetLowestCommonDepartmentWhenEmployeeNotExist() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(null));
+            }
+        });
+
+        target.getLowestCommonDepartment(1L, 2L);
+    }
+
+    @Test
+    public void testGetReportingChain() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").departmentId(3L).build();
+        final Employee manager = Employee.Builder.newInstance(2L, "firstname", "lastname", "b", "title", "grade").departmentId(2L).build();
+        final Employee topManager = Employee.Builder.newInstance(4L, "firstname", "lastname", "c", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+
+                oneOf(reportingChains).getManagerIds(3L);
+                will(returnValue(Arrays.asList(1L, 2L, 2L, 4L)));
+
+                oneOf(employeeRepository).findAll(new LinkedHashSet<>(Arrays.asList(2L, 4L)));
+                will(returnValue(Arrays.asList(topManager, manager)));
+            }
+        });
+
+        List<Employee> actual = target.getReportingChain(1L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(2, actual.size());
+        Assert.assertSame(manager, actual.get(0));
+        Assert.assertSame(topManager, actual.get(1));
+    }
+
+    @Test
+    public void testGetReportingChainWhenNoDepartmentSet() {
+        final Employee employee = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findOne(1L);
+                will(returnValue(employee));
+            }
+        });
+
+        List<Employee> actual = target.getReportingChain(1L);
+
+        mockery.assertIsSatisfied();
+        Assert.assertTrue(actual.isEmpty());
+    }
+
+    @Test
+    public void testCreateAllPublishesToSnapshot() {
+        final Employee existing = Employee.Builder.newInstance(1L, "firstname", "lastname", "a", "title", "grade").departmentId(1L).build();
+        final Employee employee = Employee.Builder.newInstance("firstname", "lastname", "b", "title", "grade").gender(Gender.Female).departmentId(1L).build();
+        final EmployeeServiceImpl snapshotted = new EmployeeServiceImpl(departmentRepository, employeeRepository, departmentHierarchy, departmentRollups, reportingChains,
+                                                                        entityStreams, tableVersions, relationCache, missingIds, takenNames, encodedEntities,
+                                                                        new OrgSnapshotsImpl(departmentRepository, employeeRepository, true));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(Department.Builder.newInstance(1L, "d1", 1).build())));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Arrays.asList(existing)));
+
+                oneOf(departmentRepository).countByIdIn(Collections.singletonList(1L));
+                will(returnValue(1L));
+
+                oneOf(employeeRepository).findLdapUsernamesIn(Collections.singletonList("b"));
+                will(returnValue(Collections.emptyList()));
+
+                oneOf(employeeRepository).insertAll(Arrays.asList(employee));
+                will(returnValue(Arrays.asList(2L)));
+
+                oneOf(departmentRollups).addEmployee(1L);
+            }
+        });
+
+        Assert.assertEquals("d1", snapshotted.getDepartmentOf(1L).getName());
+        snapshotted.createAll(Arrays.asList(employee));
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Arrays.asList(1L, 2L), Arrays.asList(snapshotted.getAll().get(0).getId(), snapshotted.getAll().get(1).getId()));
+        Assert.assertEquals(Gender.Female, snapshotted.getById(2L).getGender());
+        Assert.assertEquals(Long.valueOf(0L), snapshotted.getVersionById(2L));
+        Assert.assertEquals(Gender.Female, snapshotted.getPage(Arrays.asList("gender"), 1L, 10).get(0).get("gender"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetAllFromSnapshotWhenFieldUnknown() {
+        final EmployeeServiceImpl snapshotted = new EmployeeServiceImpl(departmentRepository, employeeRepository, departmentHierarchy, departmentRollups, reportingChains,
+                                                                        entityStreams, tableVersions, relationCache, missingIds, takenNames, encodedEntities,
+                                                                        new OrgSnapshotsImpl(departmentRepository, employeeRepository, true));
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Collections.emptyList()));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Collections.emptyList()));
+            }
+        });
+
+        snapshotted.getAll(Arrays.asList("class"));
     }
 }
\ No newline at end of file
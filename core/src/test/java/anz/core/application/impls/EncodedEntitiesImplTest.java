@@ -0,0 +1,120 @@
+package anz.core.application.impls;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.EncodedEntity;
+import anz.core.domain.models.Employee;
+
+public class EncodedEntitiesImplTest {
+    private static final int SIZE = 100;
+
+    private static final long COST = SIZE + EncodedEntitiesImpl.OVERHEAD;
+
+    // room for three entities
+    private EncodedEntitiesImpl target = new EncodedEntitiesImpl(3 * COST);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private EncodedEntity get(final Class<?> entityType, final long id, final String variant) {
+        return target.get(entityType, id, variant, () -> new EncodedEntity(loads.incrementAndGet(), new byte[SIZE]));
+    }
+
+    @Test
+    public void testGet() {
+        Assert.assertNull(target.get(Employee.class, 1L, "json"));
+
+        final EncodedEntity loaded = get(Employee.class, 1L, "json");
+
+        Assert.assertSame(loaded, get(Employee.class, 1L, "json"));
+        Assert.assertSame(loaded, target.get(Employee.class, 1L, "json"));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testVariantsAndTypesKeptApart() {
+        get(Employee.class, 1L, "json");
+        get(Employee.class, 1L, "cbor");
+        get(Department.class, 1L, "json");
+
+        Assert.assertEquals(3, loads.get());
+        Assert.assertEquals(3 * COST, target.size());
+    }
+
+    @Test
+    public void testNotFoundNotCached() {
+        Assert.assertNull(target.get(Employee.class, 1L, "json", () -> null));
+        Assert.assertEquals(0, target.size());
+    }
+
+    @Test
+    public void testEvictDropsEveryVariant() {
+        get(Employee.class, 1L, "json");
+        get(Employee.class, 1L, "cbor");
+        get(Employee.class, 2L, "json");
+
+        target.evict(Employee.class, 1L);
+
+        Assert.assertNull(target.get(Employee.class, 1L, "json"));
+        Assert.assertNull(target.get(Employee.class, 1L, "cbor"));
+        Assert.assertNotNull(target.get(Employee.class, 2L, "json"));
+        Assert.assertEquals(COST, target.size());
+    }
+
+    @Test
+    public void testLeastRecentlyReadDroppedFirst() {
+        get(Employee.class, 1L, "json");
+        get(Employee.class, 2L, "json");
+        get(Employee.class, 3L, "json");
+        target.get(Employee.class, 1L, "json");
+
+        get(Employee.class, 4L, "json");
+
+        Assert.assertNotNull(target.get(Employee.class, 1L, "json"));
+        Assert.assertNull(target.get(Employee.class, 2L, "json"));
+        Assert.assertNotNull(target.get(Employee.class, 4L, "json"));
+        Assert.assertEquals(3 * COST, target.size());
+    }
+
+    @Test
+    public void testTooLargeNotCached() {
+        final EncodedEntity loaded = target.get(Employee.class, 1L, "json", () -> new EncodedEntity(0L, new byte[(int) (3 * COST)]));
+
+        Assert.assertNotNull(loaded);
+        Assert.assertEquals(0, target.size());
+    }
+
+    @Test
+    public void testNotCachedWhenEvictedWhileLoading() {
+        target.get(Employee.class, 1L, "json", () -> {
+            target.evict(Employee.class, 1L);
+            return new EncodedEntity(0L, new byte[SIZE]);
+        });
+
+        Assert.assertNull(target.get(Employee.class, 1L, "json"));
+    }
+
+    @Test
+    public void testEvictAgainAfterTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.evict(Employee.class, 1L);
+            // read between the update and the commit
+            get(Employee.class, 1L, "json");
+            Assert.assertNotNull(target.get(Employee.class, 1L, "json"));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertNull(target.get(Employee.class, 1L, "json"));
+        Assert.assertEquals(0, target.size());
+    }
+}
\ No newline at end of file
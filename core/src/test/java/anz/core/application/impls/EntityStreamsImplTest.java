@@ -0,0 +1,55 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.Sequence;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import anz.core.domain.models.Department;
+
+public class EntityStreamsImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private EntityManager entityManager = mockery.mock(EntityManager.class);
+
+    private EntityStreamsImpl target = new EntityStreamsImpl();
+
+    @Test
+    public void testForEachDetachesAndCloses() {
+        target.setEntityManager(entityManager);
+        final Department department1 = Department.Builder.newInstance(1L, "d1", 0).build();
+        final Department department2 = Department.Builder.newInstance(2L, "d2", 0).build();
+        final List<Department> consumed = new ArrayList<>();
+        final List<Boolean> closed = new ArrayList<>();
+        final Sequence detaching = mockery.sequence("detaching");
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(entityManager).detach(department1);
+                inSequence(detaching);
+
+                oneOf(entityManager).detach(department2);
+                inSequence(detaching);
+            }
+        });
+
+        target.forEach(Stream.of(department1, department2).onClose(() -> closed.add(true)), consumed::add);
+
+        mockery.assertIsSatisfied();
+        Assert.assertEquals(Arrays.asList(department1, department2), consumed);
+        Assert.assertEquals(Arrays.asList(true), closed);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,46 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.data.repository.CrudRepository;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+public class FinderIndexCheckTest {
+    interface IgnoringCase extends CrudRepository<Department, Long> {
+        Department findByNameIgnoreCase(final String name);
+    }
+
+    @Test
+    public void testEveryFinderSupported() {
+        final Set<String> departmentColumns = new HashSet<>(Arrays.asList("id", "lowername", "managerid"));
+        final Set<String> employeeColumns = new HashSet<>(Arrays.asList("id", "departmentid"));
+
+        Assert.assertTrue(FinderIndexCheck.unsupportedFinders(DepartmentRepository.class, Department.class, departmentColumns).isEmpty());
+        Assert.assertTrue(FinderIndexCheck.unsupportedFinders(EmployeeRepository.class, Employee.class, employeeColumns).isEmpty());
+    }
+
+    @Test
+    public void testFinderWithoutIndex() {
+        final Set<String> employeeColumns = new HashSet<>(Arrays.asList("id"));
+
+        Assert.assertEquals(Collections.singletonList("EmployeeRepository.findByDepartmentId"),
+                            FinderIndexCheck.unsupportedFinders(EmployeeRepository.class, Employee.class, employeeColumns));
+    }
+
+    @Test
+    public void testFinderIgnoringCase() {
+        final Set<String> departmentColumns = new HashSet<>(Arrays.asList("id", "name"));
+
+        Assert.assertEquals(Collections.singletonList("IgnoringCase.findByNameIgnoreCase"),
+                            FinderIndexCheck.unsupportedFinders(IgnoringCase.class, Department.class, departmentColumns));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package anz.core.application.impls;
+
+import java.util.Properties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.SharedCacheMode;
+import javax.sql.DataSource;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+// full table reads leave the second level cache to the rows that are read one at a time
+public class FullTableReadCacheTest {
+    @Configuration
+    static class SecondLevelCacheConfig extends InMemoryDatabaseConfig {
+        @Override
+        LocalContainerEntityManagerFactoryBean entityManagerFactory(final DataSource dataSource) {
+            final LocalContainerEntityManagerFactoryBean entityManagerFactory = super.entityManagerFactory(dataSource);
+            final Properties properties = new Properties();
+            properties.putAll(entityManagerFactory.getJpaPropertyMap());
+            properties.setProperty("hibernate.cache.use_second_level_cache", "true");
+            properties.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+            entityManagerFactory.setSharedCacheMode(SharedCacheMode.ENABLE_SELECTIVE);
+            entityManagerFactory.setJpaProperties(properties);
+            return entityManagerFactory;
+        }
+    }
+
+    private static AnnotationConfigApplicationContext context;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static Statistics statistics;
+
+    private static long departmentId;
+
+    private static long employeeId;
+
+    @BeforeClass
+    public static void setUpClass() {
+        context = new AnnotationConfigApplicationContext(SecondLevelCacheConfig.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        departmentId = context.getBean(DepartmentRepository.class).save(Department.Builder.newInstance("department", 1).build()).getId();
+        employeeId = context.getBean(EmployeeRepository.class).save(Employee.Builder.newInstance("firstname", "lastname", "employee", "title", "grade").build())
+                            .getId();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        context.close();
+    }
+
+    @Before
+    public void setUp() {
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    public void testDepartmentFindAllSkipsTheCache() {
+        final DepartmentRepository departmentRepository = context.getBean(DepartmentRepository.class);
+
+        Assert.assertEquals(1, departmentRepository.findAll().size());
+        Assert.assertEquals(0, statistics.getSecondLevelCachePutCount());
+
+        departmentRepository.findOne(departmentId);
+        Assert.assertEquals(1, statistics.getSecondLevelCachePutCount());
+    }
+
+    @Test
+    public void testEmployeeFindAllSkipsTheCache() {
+        final EmployeeRepository employeeRepository = context.getBean(EmployeeRepository.class);
+
+        Assert.assertEquals(1, employeeRepository.findAll().size());
+        Assert.assertEquals(0, statistics.getSecondLevelCachePutCount());
+
+        employeeRepository.findOne(employeeId);
+        Assert.assertEquals(1, statistics.getSecondLevelCachePutCount());
+    }
+}
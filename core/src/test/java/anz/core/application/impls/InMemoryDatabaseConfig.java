@@ -0,0 +1,56 @@
+package anz.core.application.impls;
+
+import java.util.Properties;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.SharedCacheMode;
+import javax.sql.DataSource;
+
+import org.hibernate.jpa.HibernatePersistenceProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+// the services and repositories against an in-memory database with a fresh schema, without the second level cache so every
+// read reaches the database, and with statistics so tests can count the statements
+@Configuration
+@ComponentScan("anz.core.application")
+@EnableJpaRepositories("anz.core.repositories")
+@EnableTransactionManagement
+class InMemoryDatabaseConfig {
+    @Bean
+    DataSource dataSource() {
+        final DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:hsqldb:mem:anz", "sa", "");
+        dataSource.setDriverClassName("org.hsqldb.jdbcDriver");
+        return dataSource;
+    }
+
+    // without a vendor adapter, like the application
+    @Bean
+    LocalContainerEntityManagerFactoryBean entityManagerFactory(final DataSource dataSource) {
+        final Properties properties = new Properties();
+        properties.setProperty("hibernate.dialect", "org.hibernate.dialect.HSQLDialect");
+        properties.setProperty("hibernate.hbm2ddl.auto", "create");
+        properties.setProperty("hibernate.cache.use_second_level_cache", "false");
+        properties.setProperty("hibernate.cache.use_query_cache", "false");
+        properties.setProperty("hibernate.generate_statistics", "true");
+        final LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan("anz.core.domain.models");
+        entityManagerFactory.setPersistenceProviderClass(HibernatePersistenceProvider.class);
+        entityManagerFactory.setSharedCacheMode(SharedCacheMode.NONE);
+        entityManagerFactory.setJpaProperties(properties);
+        return entityManagerFactory;
+    }
+
+    @Bean
+    PlatformTransactionManager transactionManager(final EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
\ No newline at end of file
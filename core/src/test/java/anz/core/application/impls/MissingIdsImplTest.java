@@ -0,0 +1,97 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+
+public class MissingIdsImplTest {
+    private MissingIdsImpl target = new MissingIdsImpl();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String get(final Class<?> entityType, final long id, final String result) {
+        return target.get(entityType, id, () -> {
+            loads.incrementAndGet();
+            return result;
+        });
+    }
+
+    @Test
+    public void testRemembersMissing() {
+        Assert.assertNull(get(Employee.class, 1L, null));
+        Assert.assertNull(get(Employee.class, 1L, "found"));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testDoesNotRememberFound() {
+        Assert.assertEquals("found", get(Employee.class, 1L, "found"));
+        Assert.assertEquals("found", get(Employee.class, 1L, "found"));
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testKeptApartByEntityType() {
+        get(Employee.class, 1L, null);
+
+        Assert.assertEquals("found", get(Department.class, 1L, "found"));
+    }
+
+    @Test
+    public void testCreatedForgets() {
+        get(Employee.class, 1L, null);
+        get(Employee.class, 2L, null);
+
+        target.created(Employee.class, Collections.singletonList(1L));
+
+        Assert.assertEquals("found", get(Employee.class, 1L, "found"));
+        Assert.assertNull(get(Employee.class, 2L, "found"));
+    }
+
+    @Test
+    public void testNotRememberedWhenCreatedWhileLoading() {
+        target.get(Employee.class, 1L, () -> {
+            target.created(Employee.class, Collections.singletonList(1L));
+            return null;
+        });
+
+        Assert.assertEquals(0, target.size(Employee.class));
+    }
+
+    @Test
+    public void testCreatedForgetsAgainAfterTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.created(Employee.class, Arrays.asList(1L, 2L));
+            // looked up between the insert and the commit
+            get(Employee.class, 1L, null);
+            Assert.assertEquals(1, target.size(Employee.class));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(0, target.size(Employee.class));
+    }
+
+    @Test
+    public void testBounded() {
+        for (long id = 0; id <= MissingIdsImpl.MAX_IDS; id++) {
+            get(Employee.class, id, null);
+        }
+
+        Assert.assertEquals(MissingIdsImpl.MAX_IDS, target.size(Employee.class));
+        // the least recently asked id made room
+        Assert.assertEquals("found", get(Employee.class, 0L, "found"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.application.OrgSnapshot;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+public class OrgSnapshotsImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private EmployeeRepository employeeRepository = mockery.mock(EmployeeRepository.class);
+
+    private OrgSnapshotsImpl target = new OrgSnapshotsImpl(departmentRepository, employeeRepository, true);
+
+    private Department department1 = Department.Builder.newInstance(1L, "d1", 1).build();
+
+    private Department department2 = Department.Builder.newInstance(2L, "d2", 1).parentDepartment(1L).build();
+
+    private Employee employee = Employee.Builder.newInstance(3L, "firstname", "lastname", "a", "title", "grade").departmentId(2L).build();
+
+    @Before
+    public void setUp() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(department1, department2)));
+
+                oneOf(employeeRepository).findAll();
+                will(returnValue(Arrays.asList(employee)));
+            }
+        });
+    }
+
+    @Test
+    public void testLoadsOnce() {
+        final OrgSnapshot snapshot = target.current();
+
+        mockery.assertIsSatisfied();
+        Assert.assertSame(snapshot, target.current());
+        Assert.assertEquals("d2", snapshot.getDepartment(2L).getName());
+        Assert.assertEquals("a", snapshot.getEmployee(3L).getLdapUsername());
+        Assert.assertNull(snapshot.getDepartment(3L));
+        Assert.assertEquals(Arrays.asList(department2.getId()), idsOf(snapshot.getSubDepartments(1L)));
+        Assert.assertEquals(Arrays.asList(employee.getId()), Arrays.asList(snapshot.getEmployeesOf(2L).get(0).getId()));
+        Assert.assertTrue(snapshot.getEmployeesOf(1L).isEmpty());
+    }
+
+    @Test
+    public void testDisabled() {
+        final OrgSnapshotsImpl disabled = new OrgSnapshotsImpl(departmentRepository, employeeRepository, false);
+
+        disabled.departmentRemoved(1L);
+
+        Assert.assertNull(disabled.current());
+    }
+
+    @Test
+    public void testWriteDoesNotChangePublishedSnapshot() {
+        final OrgSnapshot before = target.current();
+
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(2L, "d2", 5).version(1L).build()));
+        target.employeeRemoved(3L);
+        final OrgSnapshot after = target.current();
+
+        Assert.assertTrue(after.getVersion() > before.getVersion());
+        Assert.assertEquals(1, before.getDepartment(2L).getOpenPositions());
+        Assert.assertEquals(5, after.getDepartment(2L).getOpenPositions());
+        Assert.assertEquals(1, before.getEmployeesOf(2L).size());
+        Assert.assertNull(after.getEmployee(3L));
+        Assert.assertTrue(after.getEmployeesOf(2L).isEmpty());
+        Assert.assertEquals("d1", after.getDepartment(1L).getName());
+    }
+
+    @Test
+    public void testChangingReturnedEntitiesLeavesSnapshot() {
+        final OrgSnapshot snapshot = target.current();
+
+        snapshot.getEmployee(3L).update("changed", "changed", null, 1L, "changed", "changed", 1L);
+        snapshot.getEmployees(null, 0).get(0).update("changed", "changed", null, 1L, "changed", "changed", 1L);
+        snapshot.getEmployeesOf(2L).get(0).update("changed", "changed", null, 1L, "changed", "changed", 1L);
+        snapshot.getDepartment(2L).update(9, "changed", 3L, null);
+        snapshot.getSubDepartments(1L).get(0).update(9, "changed", 3L, null);
+        snapshot.getDepartments(null, 0).get(1).update(9, "changed", 3L, null);
+
+        final Employee unchangedEmployee = snapshot.getEmployee(3L);
+        Assert.assertEquals("firstname", unchangedEmployee.getFirstname());
+        Assert.assertEquals("title", unchangedEmployee.getTitle());
+        Assert.assertEquals(Long.valueOf(2L), unchangedEmployee.getDepartmentId());
+        Assert.assertEquals(1, snapshot.getEmployeesOf(2L).size());
+        final Department unchangedDepartment = snapshot.getDepartment(2L);
+        Assert.assertEquals(1, unchangedDepartment.getOpenPositions());
+        Assert.assertNull(unchangedDepartment.getManagerId());
+        Assert.assertEquals(Long.valueOf(1L), unchangedDepartment.getParentDepartmentId());
+        Assert.assertNotSame(unchangedEmployee, snapshot.getEmployee(3L));
+    }
+
+    @Test
+    public void testSaveMovesDepartment() {
+        target.current();
+
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(2L, "d2", 1).version(1L).build()));
+        target.employeesSaved(Collections.singletonList(Employee.Builder.newInstance(3L, "firstname", "lastname", "a", "title", "grade").departmentId(1L).build()));
+
+        Assert.assertTrue(target.current().getSubDepartments(1L).isEmpty());
+        Assert.assertEquals(Arrays.asList(3L), Arrays.asList(target.current().getEmployeesOf(1L).get(0).getId()));
+        Assert.assertTrue(target.current().getEmployeesOf(2L).isEmpty());
+    }
+
+    @Test
+    public void testStaleSaveIsDropped() {
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(2L, "new", 1).version(2L).build()));
+        target.current();
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(2L, "newer", 1).version(2L).build()));
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(2L, "older", 1).version(1L).build()));
+
+        Assert.assertEquals("newer", target.current().getDepartment(2L).getName());
+    }
+
+    @Test
+    public void testPublishedOnlyAfterCommit() {
+        target.current();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.departmentRemoved(2L);
+            Assert.assertNotNull(target.current().getDepartment(2L));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assert.assertNull(target.current().getDepartment(2L));
+        Assert.assertTrue(target.current().getSubDepartments(1L).isEmpty());
+    }
+
+    @Test
+    public void testPages() {
+        target.current();
+        for (long id = 10L; id < 5000L; id += 7L) {
+            target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(id, "d" + id, 1).build()));
+        }
+        target.departmentsSaved(Collections.singletonList(Department.Builder.newInstance(Long.MAX_VALUE, "last", 1).build()));
+        target.departmentRemoved(17L);
+
+        final OrgSnapshot snapshot = target.current();
+
+        Assert.assertEquals(Arrays.asList(1L, 2L, 10L, 24L), idsOf(snapshot.getDepartments(null, 4)));
+        Assert.assertEquals(Arrays.asList(4994L, Long.MAX_VALUE), idsOf(snapshot.getDepartments(4990L, 0)));
+        Assert.assertEquals(715, snapshot.getDepartments(null, 0).size());
+        Assert.assertEquals("last", snapshot.getDepartment(Long.MAX_VALUE).getName());
+        Assert.assertNull(snapshot.getDepartment(-1L));
+    }
+
+    private static List<Long> idsOf(final List<Department> departments) {
+        final Long[] ids = new Long[departments.size()];
+        for (int index = 0; index < ids.length; index++) {
+            ids[index] = departments.get(index).getId();
+        }
+        return Arrays.asList(ids);
+    }
+}
\ No newline at end of file
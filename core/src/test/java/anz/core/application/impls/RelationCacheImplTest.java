@@ -0,0 +1,148 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class RelationCacheImplTest {
+    private RelationCacheImpl target = new RelationCacheImpl();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private String get(final String key, final String... tags) {
+        return target.get(key, () -> key + loads.incrementAndGet(), value -> Arrays.asList(tags));
+    }
+
+    @Test
+    public void testGet() {
+        Assert.assertEquals("a1", get("a", "x"));
+        Assert.assertEquals("a1", get("a", "x"));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testGetNull() {
+        final Supplier<String> loader = () -> {
+            loads.incrementAndGet();
+            return null;
+        };
+
+        Assert.assertNull(target.get("a", loader, value -> Collections.<String> emptyList()));
+        Assert.assertNull(target.get("a", loader, value -> Collections.<String> emptyList()));
+        Assert.assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testEvictByKey() {
+        get("a", "x");
+        get("b", "x");
+
+        target.evict(Collections.singletonList("a"));
+
+        Assert.assertEquals("a3", get("a", "x"));
+        Assert.assertEquals("b2", get("b", "x"));
+    }
+
+    @Test
+    public void testEvictByTag() {
+        get("a", "x");
+        get("b", "x", "y");
+        get("c", "y");
+        get("d", "z");
+
+        target.evict(Collections.singletonList("x"));
+
+        Assert.assertEquals(2, target.size());
+        Assert.assertEquals("c3", get("c", "y"));
+        Assert.assertEquals("d4", get("d", "z"));
+        Assert.assertEquals("a5", get("a", "x"));
+    }
+
+    @Test
+    public void testNotCachedWhenEvictedWhileLoading() {
+        final String value = target.get("a", () -> {
+            target.evict(Collections.singletonList("x"));
+            return "stale";
+        }, loaded -> Collections.singletonList("x"));
+
+        Assert.assertEquals("stale", value);
+        Assert.assertEquals(0, target.size());
+        Assert.assertEquals("a1", get("a", "x"));
+    }
+
+    @Test
+    public void testEvictAgainAfterTransactionCompletes() {
+        get("a", "x");
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.evict(Collections.singletonList("x"));
+            // read between the write and the commit
+            get("a", "x");
+            Assert.assertEquals(1, target.size());
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertEquals(0, target.size());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedMakesRoomWhenFull() {
+        for (int index = 0; index < RelationCacheImpl.MAX_ENTRIES; index++) {
+            target.get("key" + index, () -> "value", value -> Collections.singletonList("tag"));
+        }
+        // key0 is used again, so key1 is now the least recently used
+        target.get("key0", () -> "reloaded", value -> Collections.<String> emptyList());
+
+        Assert.assertEquals("a1", get("a"));
+        Assert.assertEquals("a1", get("a"));
+        Assert.assertEquals(RelationCacheImpl.MAX_ENTRIES, target.size());
+        Assert.assertEquals("value", target.get("key0", () -> "reloaded", value -> Collections.<String> emptyList()));
+        Assert.assertEquals("reloaded", target.get("key1", () -> "reloaded", value -> Collections.<String> emptyList()));
+    }
+
+    @Test
+    public void testTagsGoWithTheirEntries() {
+        get("a", "x");
+        get("b", "x", "y");
+
+        target.evict(Collections.singletonList("y"));
+        // a and x remain
+        Assert.assertEquals(2, target.tagCount());
+
+        target.evict(Collections.singletonList("a"));
+        Assert.assertEquals(0, target.size());
+        Assert.assertEquals(0, target.tagCount());
+    }
+
+    @Test
+    public void testTagsOfLeastRecentlyUsedGoWhenFull() {
+        for (int index = 0; index <= RelationCacheImpl.MAX_ENTRIES; index++) {
+            get("key" + index, "tag" + index);
+        }
+
+        Assert.assertEquals(RelationCacheImpl.MAX_ENTRIES, target.size());
+        Assert.assertEquals(2 * RelationCacheImpl.MAX_ENTRIES, target.tagCount());
+    }
+
+    @Test
+    public void testEvictionsOfTagsNobodyUsesAreNotKept() {
+        for (int index = 0; index < 1000; index++) {
+            target.evict(Collections.singletonList("tag" + index));
+        }
+
+        Assert.assertEquals(0, target.tagCount());
+        Assert.assertEquals("a1", get("a", "tag0"));
+        Assert.assertEquals("a1", get("a", "tag0"));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,156 @@
+package anz.core.application.impls;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.domain.models.Department;
+import anz.core.repositories.DepartmentRepository;
+
+public class ReportingChainsImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private DepartmentHierarchyImpl departmentHierarchy = new DepartmentHierarchyImpl(departmentRepository);
+
+    private ReportingChainsImpl target = new ReportingChainsImpl(departmentRepository, departmentHierarchy);
+
+    private final Department department1 = Department.Builder.newInstance(1L, "d1", 0).managerId(10L).build();
+
+    private final Department department2 = Department.Builder.newInstance(2L, "d2", 0).parentDepartment(1L).build();
+
+    private final Department department3 = Department.Builder.newInstance(3L, "d3", 0).managerId(30L).parentDepartment(2L).build();
+
+    private final Department department4 = Department.Builder.newInstance(4L, "d4", 0).managerId(40L).parentDepartment(1L).build();
+
+    @Before
+    public void setUp() {
+        // 1 -> 2 -> 3, 1 -> 4
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll();
+                will(returnValue(Arrays.asList(department1, department2, department3, department4)));
+            }
+        });
+    }
+
+    @Test
+    public void testGetManagerIdsLoadsMissingLevelsOnce() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 2L, 1L));
+                will(returnValue(Arrays.asList(department1, department2, department3)));
+
+                oneOf(departmentRepository).findAll(Arrays.asList(4L));
+                will(returnValue(Arrays.asList(department4)));
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(30L, 10L), target.getManagerIds(3L));
+        Assert.assertEquals(Arrays.asList(30L, 10L), target.getManagerIds(3L));
+        Assert.assertEquals(Arrays.asList(10L), target.getManagerIds(2L));
+        Assert.assertEquals(Arrays.asList(40L, 10L), target.getManagerIds(4L));
+        Assert.assertEquals(Collections.emptyList(), target.getManagerIds(5L));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testManagerChangeDropsSubtreeOnly() {
+        final Department updated = Department.Builder.newInstance(2L, "d2", 0).managerId(20L).parentDepartment(1L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 2L, 1L));
+                will(returnValue(Arrays.asList(department1, department2, department3)));
+
+                oneOf(departmentRepository).findAll(Arrays.asList(4L));
+                will(returnValue(Arrays.asList(department4)));
+
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 2L));
+                will(returnValue(Arrays.asList(updated, department3)));
+            }
+        });
+
+        target.getManagerIds(3L);
+        target.getManagerIds(4L);
+
+        target.departmentUpdated(4L, 40L, 1L);
+        target.departmentUpdated(2L, 20L, 1L);
+
+        Assert.assertEquals(Arrays.asList(30L, 20L, 10L), target.getManagerIds(3L));
+        Assert.assertEquals(Arrays.asList(40L, 10L), target.getManagerIds(4L));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testParentChangeDropsSubtree() {
+        final Department moved = Department.Builder.newInstance(3L, "d3", 0).managerId(30L).parentDepartment(4L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 2L, 1L));
+                will(returnValue(Arrays.asList(department1, department2, department3)));
+
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 4L));
+                will(returnValue(Arrays.asList(moved, department4)));
+            }
+        });
+
+        target.getManagerIds(3L);
+
+        departmentHierarchy.put(3L, 4L);
+        target.departmentUpdated(3L, 30L, 4L);
+
+        Assert.assertEquals(Arrays.asList(30L, 40L, 10L), target.getManagerIds(3L));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testReadBeforeCommitIsDroppedOnCommit() {
+        final Department updated = Department.Builder.newInstance(2L, "d2", 0).managerId(20L).parentDepartment(1L).build();
+
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAll(Arrays.asList(3L, 2L, 1L));
+                will(returnValue(Arrays.asList(department1, department2, department3)));
+
+                exactly(2).of(departmentRepository).findAll(Arrays.asList(3L, 2L));
+                will(onConsecutiveCalls(returnValue(Arrays.asList(department2, department3)), returnValue(Arrays.asList(updated, department3))));
+            }
+        });
+
+        target.getManagerIds(3L);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.departmentUpdated(2L, 20L, 1L);
+            // read between the write and the commit, the old row is all there is to read
+            Assert.assertEquals(Arrays.asList(30L, 10L), target.getManagerIds(3L));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        Assert.assertEquals(Arrays.asList(30L, 20L, 10L), target.getManagerIds(3L));
+
+        mockery.assertIsSatisfied();
+    }
+}
\ No newline at end of file
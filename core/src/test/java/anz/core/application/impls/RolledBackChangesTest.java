@@ -0,0 +1,113 @@
+package anz.core.application.impls;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import anz.core.application.DepartmentHierarchy;
+import anz.core.application.DepartmentRollups;
+import anz.core.application.DepartmentService;
+import anz.core.application.EmployeeService;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentRollup;
+import anz.core.domain.models.Employee;
+
+// changes made by a transaction that rolls back must not show in what the services keep in memory
+public class RolledBackChangesTest {
+    private static AnnotationConfigApplicationContext context;
+
+    private static DepartmentService departmentService;
+
+    private static EmployeeService employeeService;
+
+    private static DepartmentHierarchy departmentHierarchy;
+
+    private static DepartmentRollups departmentRollups;
+
+    private static TransactionTemplate transactionTemplate;
+
+    @BeforeClass
+    public static void setUpClass() {
+        context = new AnnotationConfigApplicationContext(InMemoryDatabaseConfig.class);
+        departmentService = context.getBean(DepartmentService.class);
+        employeeService = context.getBean(EmployeeService.class);
+        departmentHierarchy = context.getBean(DepartmentHierarchy.class);
+        departmentRollups = context.getBean(DepartmentRollups.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        context.close();
+    }
+
+    @Test
+    public void testRolledBackUpdateLeavesTheHierarchyAndRollups() {
+        final long fromId = departmentService.create(Department.Builder.newInstance("from", 1).build()).getId();
+        final long toId = departmentService.create(Department.Builder.newInstance("to", 1).build()).getId();
+        final long id = departmentService.create(Department.Builder.newInstance("moved", 2).parentDepartment(fromId).build()).getId();
+        employeeService.create(Employee.Builder.newInstance("firstname", "lastname", "moved", "title", "grade").departmentId(id).build());
+
+        rolledBack(() -> update(id, 5, toId));
+
+        Assert.assertEquals(Long.valueOf(fromId), departmentHierarchy.getParentId(id));
+        Assert.assertFalse(departmentHierarchy.getChildIds(toId).contains(id));
+        assertRollup(1L, 3L, departmentRollups.get(fromId));
+        assertRollup(0L, 1L, departmentRollups.get(toId));
+        assertRollup(1L, 2L, departmentRollups.get(id));
+    }
+
+    @Test
+    public void testRolledBackCreatesLeaveTheHierarchyAndRollups() {
+        final long parentId = departmentService.create(Department.Builder.newInstance("parent", 1).build()).getId();
+        final long[] id = new long[1];
+
+        rolledBack(() -> {
+            id[0] = departmentService.create(Department.Builder.newInstance("created", 4).parentDepartment(parentId).build()).getId();
+            employeeService.create(Employee.Builder.newInstance("firstname", "lastname", "created", "title", "grade").departmentId(parentId).build());
+        });
+
+        Assert.assertFalse(departmentHierarchy.contains(id[0]));
+        Assert.assertTrue(departmentHierarchy.getChildIds(parentId).isEmpty());
+        Assert.assertNull(departmentRollups.get(id[0]));
+        assertRollup(0L, 1L, departmentRollups.get(parentId));
+    }
+
+    @Test
+    public void testMoveAfterRolledBackMoveIsNoCycle() {
+        final long fromId = departmentService.create(Department.Builder.newInstance("old parent", 1).build()).getId();
+        final long toId = departmentService.create(Department.Builder.newInstance("new parent", 1).build()).getId();
+        final long id = departmentService.create(Department.Builder.newInstance("child", 1).parentDepartment(fromId).build()).getId();
+
+        rolledBack(() -> update(id, 1, toId));
+
+        Assert.assertFalse(departmentHierarchy.isDescendantOf(id, toId));
+        // a link left behind by the rolled back move would make this a cycle
+        update(toId, 1, id);
+        Assert.assertEquals(Long.valueOf(id), departmentHierarchy.getParentId(toId));
+        Assert.assertTrue(departmentHierarchy.isDescendantOf(toId, fromId));
+    }
+
+    private static void update(final long id, final int openPositions, final long parentId) {
+        final Department department = departmentService.getById(id);
+        department.update(openPositions, department.getLocation(), department.getManagerId(), parentId);
+        departmentService.update(department);
+    }
+
+    private static void assertRollup(final long headcount, final long openPositions, final DepartmentRollup rollup) {
+        Assert.assertEquals(headcount, rollup.getHeadcount());
+        Assert.assertEquals(openPositions, rollup.getOpenPositions());
+    }
+
+    private static void rolledBack(final Runnable change) {
+        transactionTemplate.execute(status -> {
+            change.run();
+            status.setRollbackOnly();
+            return null;
+        });
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package anz.core.application.impls;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.application.DepartmentService;
+import anz.core.application.EmployeeService;
+import anz.core.domain.models.Department;
+import anz.core.domain.models.DepartmentPatch;
+import anz.core.domain.models.Employee;
+
+// what the web application does for a PUT /department, once with an entity manager bound for the whole request, the way the
+// filter in web.xml binds it, and once without
+public class SharedEntityManagerTest {
+    private static AnnotationConfigApplicationContext context;
+
+    private static EntityManagerFactory entityManagerFactory;
+
+    private static DepartmentService departmentService;
+
+    private static Statistics statistics;
+
+    private static long managerId;
+
+    private static long parentId;
+
+    private static long id;
+
+    @BeforeClass
+    public static void setUpClass() {
+        context = new AnnotationConfigApplicationContext(InMemoryDatabaseConfig.class);
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        departmentService = context.getBean(DepartmentService.class);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        managerId = context.getBean(EmployeeService.class).create(Employee.Builder.newInstance("firstname", "lastname", "manager", "title", "grade").build())
+                           .getId();
+        parentId = departmentService.create(Department.Builder.newInstance("parent", 1).build()).getId();
+        id = departmentService.create(Department.Builder.newInstance("child", 1).parentDepartment(parentId).build()).getId();
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+        context.close();
+    }
+
+    // the first update fills what the services keep in memory, like the hierarchy, so only the update itself is counted
+    @Before
+    public void setUp() {
+        inRequest(() -> update(0));
+        statistics.clear();
+    }
+
+    @Test
+    public void testUpdateReadsTheDepartmentOnceInARequest() {
+        inRequest(() -> update(2));
+
+        Assert.assertEquals(1, statistics.getEntityStatistics(Department.class.getName()).getLoadCount());
+        Assert.assertEquals(0, statistics.getEntityStatistics(Employee.class.getName()).getLoadCount());
+        // the department, the count of the manager and the update
+        Assert.assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testUpdateReadsTheDepartmentTwiceWithoutARequest() {
+        update(2);
+
+        Assert.assertEquals(2, statistics.getEntityStatistics(Department.class.getName()).getLoadCount());
+        Assert.assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    public void testPatchReadsTheDepartmentAndWritesIt() {
+        inRequest(() -> departmentService.patch(id, DepartmentPatch.Builder.newInstance().openPositions(2).managerId(managerId).build()));
+
+        Assert.assertEquals(1, statistics.getEntityStatistics(Department.class.getName()).getLoadCount());
+        // the manager it keeps is not counted
+        Assert.assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    private static void update(final int openPositions) {
+        final Department department = departmentService.getById(id);
+        department.update(openPositions, null, managerId, parentId);
+        departmentService.update(department);
+    }
+
+    private static void inRequest(final Runnable request) {
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            request.run();
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,50 @@
+package anz.core.application.impls;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+
+public class TableVersionsImplTest {
+    private TableVersionsImpl target = new TableVersionsImpl();
+
+    @Test
+    public void testChanged() {
+        final String employeeVersion = target.get(Employee.class);
+        final String departmentVersion = target.get(Department.class);
+
+        target.changed(Employee.class);
+
+        Assert.assertNotEquals(employeeVersion, target.get(Employee.class));
+        Assert.assertEquals(departmentVersion, target.get(Department.class));
+    }
+
+    @Test
+    public void testChangedAfterTransactionCompletes() {
+        final String version = target.get(Employee.class);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            target.changed(Employee.class);
+            Assert.assertEquals(version, target.get(Employee.class));
+
+            for (final TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        Assert.assertNotEquals(version, target.get(Employee.class));
+    }
+
+    @Test
+    public void testDiffersAcrossRestarts() throws InterruptedException {
+        final String version = target.get(Employee.class);
+        Thread.sleep(2L);
+
+        Assert.assertNotEquals(version, new TableVersionsImpl().get(Employee.class));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+package anz.core.application.impls;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+
+import anz.core.domain.models.Department;
+import anz.core.domain.models.Employee;
+import anz.core.repositories.DepartmentRepository;
+import anz.core.repositories.EmployeeRepository;
+
+public class TakenNamesImplTest {
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private DepartmentRepository departmentRepository = mockery.mock(DepartmentRepository.class);
+
+    private EmployeeRepository employeeRepository = mockery.mock(EmployeeRepository.class);
+
+    private TakenNamesImpl target = new TakenNamesImpl(departmentRepository, employeeRepository);
+
+    private void givenLdapUsernames(final String... ldapUsernames) {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(employeeRepository).findAllLdapUsernames();
+                will(returnValue(Arrays.asList(ldapUsernames)));
+            }
+        });
+    }
+
+    @Test
+    public void testLoadsOnce() {
+        givenLdapUsernames("a", "b");
+
+        Assert.assertTrue(target.mightBeTaken(Employee.class, "a"));
+        Assert.assertTrue(target.mightBeTaken(Employee.class, "b"));
+        Assert.assertFalse(target.mightBeTaken(Employee.class, "c"));
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test
+    public void testTaken() {
+        givenLdapUsernames();
+
+        target.taken(Employee.class, "a");
+
+        Assert.assertTrue(target.mightBeTaken(Employee.class, "a"));
+        Assert.assertFalse(target.mightBeTaken(Employee.class, "A"));
+    }
+
+    @Test
+    public void testDepartmentNamesIgnoreCase() {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(departmentRepository).findAllLowerNames();
+                will(returnValue(Arrays.asList("sales")));
+            }
+        });
+
+        Assert.assertTrue(target.mightBeTaken(Department.class, "Sales"));
+        target.taken(Department.class, "IT");
+        Assert.assertTrue(target.mightBeTaken(Department.class, "it"));
+        Assert.assertFalse(target.mightBeTaken(Department.class, "hr"));
+    }
+
+    @Test
+    public void testNullMightBeTaken() {
+        Assert.assertTrue(target.mightBeTaken(Employee.class, null));
+    }
+
+    @Test
+    public void testGrowsWithoutLosingNames() {
+        givenLdapUsernames();
+        final List<String> names = new ArrayList<>();
+        for (int index = 0; index < 10000; index++) {
+            names.add("user" + index);
+            target.taken(Employee.class, "user" + index);
+        }
+
+        for (final String name : names) {
+            Assert.assertTrue(target.mightBeTaken(Employee.class, name));
+        }
+        int falsePositives = 0;
+        for (int index = 0; index < 10000; index++) {
+            if (target.mightBeTaken(Employee.class, "other" + index)) {
+                falsePositives++;
+            }
+        }
+        // each filter of the chain adds its own rate
+        Assert.assertTrue(String.valueOf(falsePositives), falsePositives < 500);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEntityType() {
+        target.mightBeTaken(String.class, "a");
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package anz.core.repositories;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jmock.Expectations;
+import org.jmock.Mockery;
+import org.jmock.lib.legacy.ClassImposteriser;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BatchesTest {
+    private static final String SQL = "insert into T (value) values (?)";
+
+    private Mockery mockery = new Mockery() {
+        {
+            setImposteriser(ClassImposteriser.INSTANCE);
+        }
+    };
+
+    private Connection connection = mockery.mock(Connection.class);
+
+    private DatabaseMetaData metaData = mockery.mock(DatabaseMetaData.class);
+
+    private PreparedStatement statement = mockery.mock(PreparedStatement.class);
+
+    private ResultSet keys = mockery.mock(ResultSet.class, "keys");
+
+    private ResultSet otherKeys = mockery.mock(ResultSet.class, "otherKeys");
+
+    private final List<Long> rows = Arrays.asList(7L, 8L);
+
+    @Test
+    public void testInsertBatchedWhenDriverReturnsKeys() throws SQLException {
+        expectStatement(true);
+        mockery.checking(new Expectations() {
+            {
+                exactly(2).of(statement).addBatch();
+
+                oneOf(statement).executeBatch();
+                will(returnValue(new int[] { 1, 1 }));
+
+                oneOf(statement).getGeneratedKeys();
+                will(returnValue(keys));
+
+                exactly(3).of(keys).next();
+                will(onConsecutiveCalls(returnValue(true), returnValue(true), returnValue(false)));
+
+                exactly(2).of(keys).getLong(1);
+                will(onConsecutiveCalls(returnValue(1L), returnValue(2L)));
+
+                oneOf(keys).close();
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(1L, 2L), insert());
+
+        mockery.assertIsSatisfied();
+    }
+
+    @Test(expected = SQLException.class)
+    public void testInsertBatchedFailsOnMissingKeys() throws SQLException {
+        expectStatement(true);
+        mockery.checking(new Expectations() {
+            {
+                exactly(2).of(statement).addBatch();
+
+                oneOf(statement).executeBatch();
+                will(returnValue(new int[] { 1, 1 }));
+
+                oneOf(statement).getGeneratedKeys();
+                will(returnValue(keys));
+
+                exactly(2).of(keys).next();
+                will(onConsecutiveCalls(returnValue(true), returnValue(false)));
+
+                oneOf(keys).getLong(1);
+                will(returnValue(1L));
+
+                oneOf(keys).close();
+            }
+        });
+
+        insert();
+    }
+
+    @Test
+    public void testInsertOneByOneWhenDriverHasNoBatchKeys() throws SQLException {
+        expectStatement(false);
+        mockery.checking(new Expectations() {
+            {
+                never(statement).addBatch();
+
+                exactly(2).of(statement).executeUpdate();
+                will(returnValue(1));
+
+                exactly(2).of(statement).getGeneratedKeys();
+                will(onConsecutiveCalls(returnValue(keys), returnValue(otherKeys)));
+
+                exactly(2).of(keys).next();
+                will(onConsecutiveCalls(returnValue(true), returnValue(false)));
+
+                oneOf(keys).getLong(1);
+                will(returnValue(1L));
+
+                oneOf(keys).close();
+
+                exactly(2).of(otherKeys).next();
+                will(onConsecutiveCalls(returnValue(true), returnValue(false)));
+
+                oneOf(otherKeys).getLong(1);
+                will(returnValue(2L));
+
+                oneOf(otherKeys).close();
+            }
+        });
+
+        Assert.assertEquals(Arrays.asList(1L, 2L), insert());
+
+        mockery.assertIsSatisfied();
+    }
+
+    private void expectStatement(final boolean supportsGetGeneratedKeys) throws SQLException {
+        mockery.checking(new Expectations() {
+            {
+                oneOf(connection).getMetaData();
+                will(returnValue(metaData));
+
+                oneOf(metaData).supportsGetGeneratedKeys();
+                will(returnValue(supportsGetGeneratedKeys));
+
+                oneOf(connection).prepareStatement(SQL, Statement.RETURN_GENERATED_KEYS);
+                will(returnValue(statement));
+
+                oneOf(statement).setLong(1, 7L);
+
+                oneOf(statement).setLong(1, 8L);
+
+                oneOf(statement).close();
+            }
+        });
+    }
+
+    private List<Long> insert() throws SQLException {
+        return Batches.insert(connection, SQL, rows, (statement, row) -> statement.setLong(1, row));
+    }
+}
\ No newline at end of file